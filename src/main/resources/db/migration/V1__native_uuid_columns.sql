@@ -0,0 +1,49 @@
+-- Konverterer UUID-kolonnerne fra tekst til PostgreSQL's native uuid-type.
+-- Native uuid fylder 16 bytes i stedet for 36+ tegn og kan bruges direkte af uuid-indekser.
+-- Scriptet er idempotent: kolonner der allerede er uuid, eller tabeller der ikke findes, springes over.
+-- Katalogopslagene er begrænset til current_schema(), som er det skema de ukvalificerede tabelnavne
+-- nedenfor opløses i, så tabeller med samme navn i andre skemaer på search_path ikke forveksles.
+
+DO $$
+DECLARE
+    fk RECORD;
+BEGIN
+    -- Fremmednøgler fra Reservation til Laptop skal fjernes mens typerne ændres
+    FOR fk IN
+        SELECT con.conname
+        FROM pg_constraint con
+        JOIN pg_class rel ON rel.oid = con.conrelid
+        JOIN pg_namespace relns ON relns.oid = rel.relnamespace
+        JOIN pg_class ref ON ref.oid = con.confrelid
+        JOIN pg_namespace refns ON refns.oid = ref.relnamespace
+        WHERE con.contype = 'f' AND rel.relname = 'reservation' AND ref.relname = 'laptop'
+          AND relns.nspname = current_schema() AND refns.nspname = current_schema()
+    LOOP
+        EXECUTE format('ALTER TABLE Reservation DROP CONSTRAINT %I', fk.conname);
+    END LOOP;
+
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'laptop' AND column_name = 'laptop_uuid' AND data_type <> 'uuid') THEN
+        ALTER TABLE Laptop ALTER COLUMN laptop_uuid TYPE uuid USING laptop_uuid::uuid;
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'reservation' AND column_name = 'reservation_uuid' AND data_type <> 'uuid') THEN
+        ALTER TABLE Reservation ALTER COLUMN reservation_uuid TYPE uuid USING reservation_uuid::uuid;
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'reservation' AND column_name = 'laptop_uuid' AND data_type <> 'uuid') THEN
+        ALTER TABLE Reservation ALTER COLUMN laptop_uuid TYPE uuid USING laptop_uuid::uuid;
+    END IF;
+
+    -- Genopret fremmednøglen med de nye typer
+    IF EXISTS (SELECT 1 FROM information_schema.tables
+               WHERE table_schema = current_schema() AND table_name = 'reservation')
+       AND EXISTS (SELECT 1 FROM information_schema.tables
+                   WHERE table_schema = current_schema() AND table_name = 'laptop') THEN
+        ALTER TABLE Reservation
+            ADD CONSTRAINT reservation_laptop_uuid_fkey
+            FOREIGN KEY (laptop_uuid) REFERENCES Laptop (laptop_uuid);
+    END IF;
+END $$;
@@ -0,0 +1,38 @@
+-- Opretter systemets tabeller hvis de ikke allerede findes.
+-- Eksisterende databaser (oprettet manuelt før migreringerne) berøres ikke.
+
+CREATE TABLE IF NOT EXISTS Laptop (
+    laptop_uuid      uuid         PRIMARY KEY,
+    brand            VARCHAR(100) NOT NULL,
+    model            VARCHAR(100) NOT NULL,
+    gigabyte         INTEGER      NOT NULL,
+    ram              INTEGER      NOT NULL,
+    performance_type VARCHAR(10)  NOT NULL,
+    state            VARCHAR(20)  NOT NULL DEFAULT 'AvailableState'
+);
+
+CREATE TABLE IF NOT EXISTS Student (
+    via_id             INTEGER      PRIMARY KEY,
+    name               VARCHAR(200) NOT NULL,
+    degree_end_date    DATE         NOT NULL,
+    degree_title       VARCHAR(200) NOT NULL,
+    email              VARCHAR(200) NOT NULL,
+    phone_number       INTEGER      NOT NULL,
+    performance_needed VARCHAR(10)  NOT NULL,
+    has_laptop         BOOLEAN      NOT NULL DEFAULT FALSE
+);
+
+CREATE TABLE IF NOT EXISTS Reservation (
+    reservation_uuid uuid        PRIMARY KEY,
+    laptop_uuid      uuid        NOT NULL REFERENCES Laptop (laptop_uuid),
+    student_via_id   INTEGER     NOT NULL REFERENCES Student (via_id),
+    status           VARCHAR(20) NOT NULL,
+    creation_date    TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS QueueEntry (
+    entry_id         BIGSERIAL   PRIMARY KEY,
+    student_via_id   INTEGER     NOT NULL REFERENCES Student (via_id),
+    performance_type VARCHAR(10) NOT NULL,
+    entry_date       TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
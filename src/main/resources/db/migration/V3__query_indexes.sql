@@ -0,0 +1,33 @@
+-- Indekser tilpasset DAO'ernes forespørgsler.
+-- Partielle indekser bruges hvor forespørgslen altid filtrerer på samme literal,
+-- så indekset kun indeholder de rækker der faktisk søges i.
+
+-- QueueDAO: WHERE performance_type = ? ORDER BY entry_date, entry_id (kø-hoved, dequeueBatch)
+CREATE INDEX IF NOT EXISTS idx_queueentry_type_entry
+    ON QueueEntry (performance_type, entry_date, entry_id);
+
+-- QueueDAO: isStudentInQueue, removeFromQueue og removeFromAllQueues slår op på studerende
+CREATE INDEX IF NOT EXISTS idx_queueentry_student
+    ON QueueEntry (student_via_id, performance_type);
+
+-- LaptopDAO.getAvailableLaptopsByPerformance: WHERE performance_type = ? AND state = 'AvailableState'
+CREATE INDEX IF NOT EXISTS idx_laptop_available_by_type
+    ON Laptop (performance_type)
+    WHERE state = 'AvailableState';
+
+-- ReservationDAO.getActiveReservations: WHERE r.status = 'ACTIVE'
+CREATE INDEX IF NOT EXISTS idx_reservation_active
+    ON Reservation (creation_date, reservation_uuid)
+    WHERE status = 'ACTIVE';
+
+-- ReservationDAO.getByStudentId og sletning af en students reservationer
+CREATE INDEX IF NOT EXISTS idx_reservation_student
+    ON Reservation (student_via_id);
+
+-- ReservationDAO.getByLaptopId og fremmednøglen til Laptop
+CREATE INDEX IF NOT EXISTS idx_reservation_laptop
+    ON Reservation (laptop_uuid);
+
+-- ReservationDAO.page: keyset-paginering på (creation_date, reservation_uuid)
+CREATE INDEX IF NOT EXISTS idx_reservation_creation
+    ON Reservation (creation_date, reservation_uuid);
@@ -0,0 +1,88 @@
+package model;
+
+import model.database.DatabaseConnection;
+import model.database.LaptopDAO;
+import model.database.SchemaMigrator;
+import model.enums.PerformanceTypeEnum;
+import model.models.Laptop;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Test af read/write-routing mellem primær og read replica.
+ * Kræver to lokale PostgreSQL-instanser uden replikering imellem, fx:
+ * docker run --rm -p 5432:5432 -e POSTGRES_PASSWORD=postgres postgres:16
+ * docker run --rm -p 5433:5432 -e POSTGRES_PASSWORD=postgres postgres:16
+ * og kørsel med -Ddb.url=jdbc:postgresql://localhost:5432/postgres -Ddb.user=postgres -Ddb.password=postgres
+ * -Ddb.replica.url=jdbc:postgresql://localhost:5433/postgres -Ddb.replica.stickyWindowMs=500
+ * Da instanserne ikke replikerer, afslører det hvilken database en læsning ramte.
+ */
+public class ReadReplicaRoutingTest {
+
+    private LaptopDAO laptopDAO;
+    private Laptop laptop;
+    private long stickyWindowMillis;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        assumeTrue(DatabaseConnection.hasReadReplica(), "Ingen read replica konfigureret (db.replica.url)");
+
+        stickyWindowMillis = Long.parseLong(System.getProperty("db.replica.stickyWindowMs", "2000"));
+        laptopDAO = new LaptopDAO();
+
+        // Replicaen får samme skema som primæren; migreringerne køres kun automatisk mod primæren
+        try (Connection conn = DriverManager.getConnection(
+                System.getProperty("db.replica.url"),
+                System.getProperty("db.replica.user", System.getProperty("db.user")),
+                System.getProperty("db.replica.password", System.getProperty("db.password")))) {
+            new SchemaMigrator().migrate(conn);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        if (laptop != null) {
+            laptopDAO.delete(laptop.getId());
+        }
+    }
+
+    @Test
+    void testReadAfterWriteGoesToPrimaryThenReplica() throws Exception {
+        laptop = new Laptop("Replica Test", "RW-1", 256, 8, PerformanceTypeEnum.LOW);
+        assertTrue(laptopDAO.insert(laptop), "Insert should succeed on the primary");
+
+        // Inden for vinduet skal læsningen ramme primæren og se skrivningen
+        assertNotNull(laptopDAO.getById(laptop.getId()), "Read right after write should see the new laptop");
+
+        Thread.sleep(stickyWindowMillis + 200);
+
+        // Efter vinduet går læsningen til replicaen, som ikke har rækken
+        assertNull(laptopDAO.getById(laptop.getId()), "Read after the window should be served by the replica");
+    }
+
+    @Test
+    void testReadsUseReplicaPool() throws Exception {
+        Thread.sleep(stickyWindowMillis + 200);
+
+        int replicaBefore = replicaCheckouts();
+        laptopDAO.getAll();
+        laptopDAO.count();
+
+        assertEquals(replicaBefore + 2, replicaCheckouts(), "Both reads should check out from the replica pool");
+    }
+
+    private static int replicaCheckouts() {
+        return DatabaseConnection.getAllMetricsSnapshots().stream()
+                .filter(snapshot -> "replica".equals(snapshot.getPoolName()))
+                .mapToInt(snapshot -> (int) (snapshot.getCheckoutWait().getCount() - snapshot.getFailedCheckouts()))
+                .sum();
+    }
+}
@@ -0,0 +1,99 @@
+package model;
+
+import model.database.DatabaseConnection;
+import model.database.ReservationDAO;
+import model.database.SqlStatementSnapshot;
+import model.enums.ReservationStatusEnum;
+import model.models.Reservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Test for indlæsning af reservationer.
+ * Tester at alle liste-metoder i ReservationDAO henter reservation, laptop og student
+ * i én forespørgsel i stedet for 1 + 2N opslag.
+ */
+public class ReservationLoadingTest {
+
+    private ReservationDAO reservationDAO;
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(DatabaseConnection.testConnection(), "Databasen er ikke tilgængelig");
+        reservationDAO = new ReservationDAO();
+    }
+
+    @Test
+    void testGetAllUsesSingleQuery() throws SQLException {
+        long before = statementExecutions();
+        List<Reservation> reservations = reservationDAO.getAll();
+        long queries = statementExecutions() - before;
+
+        assertEquals(1, queries, "getAll should issue exactly one query regardless of row count");
+        assertFullyHydrated(reservations);
+    }
+
+    @Test
+    void testGetActiveReservationsUsesSingleQuery() throws SQLException {
+        long before = statementExecutions();
+        List<Reservation> reservations = reservationDAO.getActiveReservations();
+        long queries = statementExecutions() - before;
+
+        assertEquals(1, queries, "getActiveReservations should issue exactly one query");
+        assertFullyHydrated(reservations);
+        for (Reservation reservation : reservations) {
+            assertEquals(ReservationStatusEnum.ACTIVE, reservation.getStatus(), "Only active reservations expected");
+        }
+    }
+
+    @Test
+    void testGetByStudentAndLaptopUseSingleQuery() throws SQLException {
+        List<Reservation> all = reservationDAO.getAll();
+        assumeTrue(!all.isEmpty(), "Ingen reservationer i databasen");
+        Reservation sample = all.get(0);
+
+        long before = statementExecutions();
+        List<Reservation> byStudent = reservationDAO.getByStudentId(sample.getStudent().getViaId());
+        assertEquals(1, statementExecutions() - before,
+                "getByStudentId should issue exactly one query");
+        assertFullyHydrated(byStudent);
+        assertTrue(byStudent.contains(sample), "Sample reservation should be found by student");
+
+        before = statementExecutions();
+        List<Reservation> byLaptop = reservationDAO.getByLaptopId(sample.getLaptop().getId());
+        assertEquals(1, statementExecutions() - before,
+                "getByLaptopId should issue exactly one query");
+        assertFullyHydrated(byLaptop);
+        assertTrue(byLaptop.contains(sample), "Sample reservation should be found by laptop");
+    }
+
+    /**
+     * Tæller SQL-udførelser via SQL-profileren, summeret over alle skabeloner. Tæller statements og
+     * ikke forbindelseshentninger, så N+1 forespørgsler på samme forbindelse også fanges.
+     */
+    private static long statementExecutions() {
+        long calls = 0;
+        for (SqlStatementSnapshot snapshot : DatabaseConnection.getSqlProfile(Integer.MAX_VALUE)) {
+            calls += snapshot.getCalls();
+        }
+        return calls;
+    }
+
+    /**
+     * Verificerer at hver reservation har en komplet laptop og student.
+     */
+    private static void assertFullyHydrated(List<Reservation> reservations) {
+        for (Reservation reservation : reservations) {
+            assertNotNull(reservation.getLaptop(), "Laptop should be hydrated");
+            assertNotNull(reservation.getStudent(), "Student should be hydrated");
+            assertNotNull(reservation.getLaptop().getBrand(), "Laptop brand should be mapped from the join");
+            assertNotNull(reservation.getStudent().getName(), "Student name should be mapped from the join");
+        }
+    }
+}
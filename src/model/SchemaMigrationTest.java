@@ -0,0 +1,118 @@
+package model;
+
+import model.database.SchemaMigrator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Test af skema-migreringerne mod en lokal PostgreSQL, fx startet med:
+ * docker run --rm -p 5432:5432 -e POSTGRES_PASSWORD=postgres postgres:16
+ * Forbindelsen kan ændres med -Dmigration.test.url, -Dmigration.test.user og -Dmigration.test.password.
+ * Testen køres i et separat skema, så den ikke rører eksisterende data.
+ */
+public class SchemaMigrationTest {
+
+    private static final String TEST_SCHEMA = "migration_test";
+
+    private Connection conn;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        String url = System.getProperty("migration.test.url", "jdbc:postgresql://localhost:5432/postgres");
+        String user = System.getProperty("migration.test.user", "postgres");
+        String password = System.getProperty("migration.test.password", "postgres");
+
+        try {
+            conn = DriverManager.getConnection(url, user, password);
+        } catch (SQLException e) {
+            System.out.println("Ingen lokal PostgreSQL på " + url + " - springer over: " + e.getMessage());
+        }
+        assumeTrue(conn != null, "Lokal PostgreSQL ikke tilgængelig");
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP SCHEMA IF EXISTS " + TEST_SCHEMA + " CASCADE");
+            stmt.execute("CREATE SCHEMA " + TEST_SCHEMA);
+            stmt.execute("SET search_path TO " + TEST_SCHEMA);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        if (conn != null) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DROP SCHEMA IF EXISTS " + TEST_SCHEMA + " CASCADE");
+            }
+            conn.close();
+        }
+    }
+
+    @Test
+    void testMigrationsCreateSchemaAndAreIdempotent() throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator();
+
+        int applied = migrator.migrate(conn);
+        assertTrue(applied > 0, "Fresh database should get all migrations");
+        assertEquals(0, migrator.migrate(conn), "Second run should not apply anything");
+        assertTrue(migrator.getCurrentVersion(conn) >= 3, "Index migration should be applied");
+
+        Set<String> tables = new HashSet<>();
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT table_name FROM information_schema.tables WHERE table_schema = ?")) {
+            stmt.setString(1, TEST_SCHEMA);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    tables.add(rs.getString(1));
+                }
+            }
+        }
+        assertTrue(tables.contains("laptop"), "Laptop table should exist");
+        assertTrue(tables.contains("student"), "Student table should exist");
+        assertTrue(tables.contains("reservation"), "Reservation table should exist");
+        assertTrue(tables.contains("queueentry"), "QueueEntry table should exist");
+    }
+
+    @Test
+    void testHotQueriesUseIndexes() throws SQLException {
+        new SchemaMigrator().migrate(conn);
+
+        try (Statement stmt = conn.createStatement()) {
+            // Tomme tabeller ville ellers altid blive sekventielt skannet
+            stmt.execute("SET enable_seqscan = off");
+        }
+
+        assertUsesIndex("idx_queueentry_type_entry",
+                "SELECT entry_id FROM QueueEntry WHERE performance_type = 'HIGH' " +
+                "ORDER BY entry_date ASC, entry_id ASC LIMIT 1");
+        assertUsesIndex("idx_laptop_available_by_type",
+                "SELECT laptop_uuid FROM Laptop WHERE performance_type = 'HIGH' AND state = 'AvailableState'");
+        assertUsesIndex("idx_reservation_active",
+                "SELECT reservation_uuid FROM Reservation r WHERE r.status = 'ACTIVE'");
+        assertUsesIndex("idx_reservation_student",
+                "SELECT reservation_uuid FROM Reservation WHERE student_via_id = 1");
+    }
+
+    private void assertUsesIndex(String indexName, String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("EXPLAIN " + sql)) {
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append('\n');
+            }
+        }
+        assertTrue(plan.toString().contains(indexName),
+                "Expected " + indexName + " in plan for: " + sql + "\n" + plan);
+    }
+}
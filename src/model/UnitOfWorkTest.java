@@ -0,0 +1,109 @@
+package model;
+
+import model.database.DatabaseConnection;
+import model.database.LaptopDAO;
+import model.database.UnitOfWork;
+import model.enums.PerformanceTypeEnum;
+import model.models.Laptop;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Test af UnitOfWork.
+ * Tester at DAO-kald inden for en unit of work deler én forbindelse, at indlejrede units deltager
+ * i den ydre transaktion, og at handlinger efter commit droppes ved rollback.
+ */
+public class UnitOfWorkTest {
+
+    private LaptopDAO laptopDAO;
+    private Laptop laptop;
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(DatabaseConnection.testConnection(), "Databasen er ikke tilgængelig");
+        laptopDAO = new LaptopDAO();
+        laptop = new Laptop("UnitOfWork Test", "UOW-1", 256, 8, PerformanceTypeEnum.LOW);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        if (laptopDAO != null && laptopDAO.exists(laptop.getId())) {
+            laptopDAO.delete(laptop.getId());
+        }
+    }
+
+    @Test
+    void testCommitSharesOneConnection() throws SQLException {
+        int before = DatabaseConnection.getConnectionCount();
+        boolean[] afterCommitRan = {false};
+
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            assertTrue(laptopDAO.insert(laptop), "Insert should succeed");
+            assertTrue(laptopDAO.exists(laptop.getId()), "The unit of work should see its own insert");
+            UnitOfWork.afterCommit(() -> afterCommitRan[0] = true);
+            assertFalse(afterCommitRan[0], "After-commit actions must wait for the commit");
+            unitOfWork.commit();
+        }
+
+        assertEquals(1, DatabaseConnection.getConnectionCount() - before,
+                "All calls in the unit of work should use one checkout");
+        assertTrue(afterCommitRan[0], "After-commit actions should run on commit");
+        assertTrue(laptopDAO.exists(laptop.getId()), "The insert should be committed");
+    }
+
+    @Test
+    @SuppressWarnings("try") // Unit of work lukkes uden commit - ressourcen bruges kun for sin virkning
+    void testCloseWithoutCommitRollsBack() throws SQLException {
+        boolean[] afterCommitRan = {false};
+
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            assertTrue(laptopDAO.insert(laptop), "Insert should succeed");
+            UnitOfWork.afterCommit(() -> afterCommitRan[0] = true);
+        }
+
+        assertFalse(afterCommitRan[0], "After-commit actions should be dropped on rollback");
+        assertFalse(laptopDAO.exists(laptop.getId()), "The insert should be rolled back");
+    }
+
+    @Test
+    void testSwallowedStatementErrorPreventsCommit() throws SQLException {
+        boolean[] afterCommitRan = {false};
+
+        try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+            assertTrue(laptopDAO.insert(laptop), "Insert should succeed");
+            UnitOfWork.afterCommit(() -> afterCommitRan[0] = true);
+
+            // Samme nøgle igen giver 23505, som kalderen fanger og ignorerer
+            SQLException duplicate = assertThrows(SQLException.class, () -> laptopDAO.insert(laptop),
+                    "The duplicate insert should fail");
+            assertEquals("23505", duplicate.getSQLState(), "Expected a unique violation");
+
+            assertThrows(SQLException.class, unitOfWork::commit,
+                    "Commit should fail after a statement in the unit of work failed");
+        }
+
+        assertFalse(afterCommitRan[0], "After-commit actions should be dropped when the commit fails");
+        assertFalse(laptopDAO.exists(laptop.getId()), "The insert should be rolled back");
+    }
+
+    @Test
+    @SuppressWarnings("try") // Unit of work lukkes uden commit - ressourcen bruges kun for sin virkning
+    void testNestedRollbackRollsBackOuter() throws SQLException {
+        try (UnitOfWork outer = UnitOfWork.begin()) {
+            assertTrue(laptopDAO.insert(laptop), "Insert should succeed");
+            try (UnitOfWork inner = UnitOfWork.begin()) {
+                // Lukkes uden commit
+            }
+            assertThrows(SQLException.class, outer::commit, "The outer commit should fail after an inner rollback");
+        }
+
+        assertFalse(UnitOfWork.isActive(), "The unit of work should be ended");
+        assertFalse(laptopDAO.exists(laptop.getId()), "The insert should be rolled back");
+    }
+}
@@ -0,0 +1,118 @@
+package model;
+
+import model.database.DatabaseConnection;
+import model.database.LaptopDAO;
+import model.database.UpsertResult;
+import model.enums.PerformanceTypeEnum;
+import model.models.Laptop;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Test af upsert med INSERT ... ON CONFLICT.
+ * Tester at databasen klassificerer hver række som indsat eller opdateret, at samme nøgle to gange
+ * i ét kald skrives én gang, og at flere blokke á 500 rulles tilbage samlet ved fejl.
+ */
+public class UpsertTest {
+
+    private LaptopDAO laptopDAO;
+    private final List<Laptop> created = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(DatabaseConnection.testConnection(), "Databasen er ikke tilgængelig");
+        laptopDAO = new LaptopDAO();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        for (Laptop laptop : created) {
+            if (laptopDAO.exists(laptop.getId())) {
+                laptopDAO.delete(laptop.getId());
+            }
+        }
+        created.clear();
+    }
+
+    private Laptop newLaptop(String brand) {
+        Laptop laptop = new Laptop(brand, "UPSERT-1", 256, 8, PerformanceTypeEnum.LOW);
+        created.add(laptop);
+        return laptop;
+    }
+
+    @Test
+    void testMixedInsertAndUpdateAreClassified() throws SQLException {
+        Laptop existing = newLaptop("Upsert Existing");
+        assertTrue(laptopDAO.insert(existing), "Insert should succeed");
+        Laptop fresh = newLaptop("Upsert Fresh");
+
+        Laptop changed = new Laptop(existing.getId(), "Upsert Changed", existing.getModel(),
+                existing.getGigabyte(), existing.getRam(), existing.getPerformanceType());
+        UpsertResult<Laptop> result = laptopDAO.upsertAll(List.of(changed, fresh));
+
+        assertEquals(List.of(fresh), result.getInserted(), "Only the new laptop should be inserted");
+        assertEquals(List.of(changed), result.getUpdated(), "Only the existing laptop should be updated");
+        assertEquals("Upsert Changed", laptopDAO.getById(existing.getId()).getBrand(),
+                "The existing row should carry the upserted values");
+        assertSame(fresh, laptopDAO.getById(fresh.getId()),
+                "The inserted instance should be the canonical one");
+    }
+
+    @Test
+    void testDuplicateKeyInOneCallIsWrittenOnce() throws SQLException {
+        Laptop first = newLaptop("Upsert First");
+        Laptop last = new Laptop(first.getId(), "Upsert Last", first.getModel(),
+                first.getGigabyte(), first.getRam(), first.getPerformanceType());
+
+        UpsertResult<Laptop> result = laptopDAO.upsertAll(List.of(first, last));
+
+        assertEquals(1, result.getTotalCount(), "A duplicate key should be written once");
+        assertEquals(1, result.getInsertedCount(), "The row did not exist before");
+        assertEquals("Upsert Last", laptopDAO.getById(first.getId()).getBrand(),
+                "The last entity with the key should win");
+    }
+
+    @Test
+    void testFailureInLaterChunkRollsBackAllChunks() {
+        List<Laptop> laptops = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            laptops.add(newLaptop("Upsert Chunk " + i));
+        }
+        // brand er VARCHAR(100), så den 501. laptop fejler i anden blok
+        laptops.add(newLaptop("X".repeat(101)));
+
+        assertThrows(SQLException.class, () -> laptopDAO.upsertAll(laptops),
+                "A too long brand should fail the upsert");
+
+        for (Laptop laptop : laptops) {
+            assertFalse(existsQuietly(laptop), "No laptop from the first chunk should be committed");
+        }
+    }
+
+    @Test
+    void testNullIsRejected() {
+        assertThrows(NullPointerException.class, () -> laptopDAO.upsertAll(null),
+                "A null collection should be rejected");
+        List<Laptop> withNull = new ArrayList<>();
+        withNull.add(newLaptop("Upsert Null"));
+        withNull.add(null);
+        assertThrows(NullPointerException.class, () -> laptopDAO.upsertAll(withNull),
+                "A null entity should be rejected");
+    }
+
+    private boolean existsQuietly(Laptop laptop) {
+        try {
+            return laptopDAO.exists(laptop.getId());
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package model.database;
+
+import model.events.SystemEvents;
+import model.log.Log;
+import model.util.EventBus;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Justerer en pools forbindelsesgrænse ud fra målt ventetid, udnyttelse og fejl fra databasen.
+ * Køres periodisk. Grænsen øges gradvist når kaldere venter og poolen er næsten fuldt udnyttet,
+ * sænkes langsomt når poolen står ubrugt, og halveres når databasen afviser forbindelser
+ * (fx 53300 too_many_connections) - efterfulgt af en pause der fordobles ved gentagne afvisninger.
+ * Det passer til Neon, hvor både inaktive forbindelser og udsultning koster.
+ */
+class AdaptivePoolController implements Runnable {
+    private static final Logger logger = Logger.getLogger(AdaptivePoolController.class.getName());
+    private static final Log log = Log.getInstance();
+    private static final EventBus eventBus = EventBus.getInstance();
+
+    // Udnyttelse over/under disse grænser tæller som travl/ledig
+    private static final double BUSY_RATIO = 0.8;
+    private static final double IDLE_RATIO = 0.5;
+
+    // Højeste antal perioder der holdes pause efter afvisninger (2^6 perioder)
+    private static final int MAX_BACKOFF_LEVEL = 6;
+
+    private final ConnectionPool pool;
+    private final ConnectionLimiter limiter;
+    private final int lowerBound;
+    private final int upperBound;
+    private final long growWaitMillis;
+    private final int shrinkIdleIntervals;
+
+    private int idleIntervals;
+    private int cooldownIntervals;
+    private int backoffLevel;
+
+    /**
+     * @param pool                Poolen der styres
+     * @param limiter             Poolens forbindelsesgrænse
+     * @param lowerBound          Mindste grænse
+     * @param upperBound          Største grænse (c3p0's maxPoolSize)
+     * @param growWaitMillis      p95 ventetid der tæller som at kaldere venter
+     * @param shrinkIdleIntervals Antal ledige perioder i træk før grænsen sænkes
+     */
+    AdaptivePoolController(ConnectionPool pool, ConnectionLimiter limiter, int lowerBound, int upperBound,
+                           long growWaitMillis, int shrinkIdleIntervals) {
+        this.pool = pool;
+        this.limiter = limiter;
+        this.lowerBound = Math.max(1, lowerBound);
+        this.upperBound = Math.max(this.lowerBound, upperBound);
+        this.growWaitMillis = growWaitMillis;
+        this.shrinkIdleIntervals = Math.max(1, shrinkIdleIntervals);
+    }
+
+    @Override
+    public void run() {
+        try {
+            adjust(pool.drainControlSample());
+        } catch (RuntimeException e) {
+            // En fejl må ikke stoppe den planlagte kørsel
+            logger.log(Level.WARNING, "Fejl i adaptiv styring af pool '" + pool.getName() + "'", e);
+        }
+    }
+
+    /**
+     * Én styringsperiode.
+     *
+     * @param sample Målinger for perioden
+     */
+    void adjust(ControlSample sample) {
+        int limit = limiter.getLimit();
+
+        if (sample.serverRejections > 0) {
+            backoffLevel = Math.min(backoffLevel + 1, MAX_BACKOFF_LEVEL);
+            cooldownIntervals = 1 << backoffLevel;
+            idleIntervals = 0;
+            resize(limit, Math.max(lowerBound, limit / 2),
+                    "databasen afviste " + sample.serverRejections + " forbindelsesforsøg");
+            return;
+        }
+
+        if (cooldownIntervals > 0) {
+            cooldownIntervals--;
+            return;
+        }
+        if (backoffLevel > 0) {
+            backoffLevel--;
+        }
+
+        double utilization = (double) sample.peakInUse / limit;
+        boolean callersWaiting = sample.waiting > 0 || sample.p95WaitMillis > growWaitMillis;
+
+        if (callersWaiting && utilization >= BUSY_RATIO && limit < upperBound) {
+            idleIntervals = 0;
+            int step = Math.max(1, sample.waiting);
+            resize(limit, Math.min(upperBound, limit + step),
+                    String.format("p95 ventetid %.0f ms, %d ventende", sample.p95WaitMillis, sample.waiting));
+            return;
+        }
+
+        if (utilization < IDLE_RATIO && !callersWaiting) {
+            idleIntervals++;
+            if (idleIntervals >= shrinkIdleIntervals && limit > lowerBound) {
+                idleIntervals = 0;
+                resize(limit, limit - 1, "højst " + sample.peakInUse + " forbindelser i brug");
+            }
+        } else {
+            idleIntervals = 0;
+        }
+    }
+
+    private void resize(int oldLimit, int newLimit, String reason) {
+        if (oldLimit == newLimit) {
+            return;
+        }
+        limiter.setLimit(newLimit);
+
+        String message = "Pool '" + pool.getName() + "' justeret fra " + oldLimit + " til " + newLimit +
+                " forbindelser (" + reason + ")";
+        if (newLimit < oldLimit && reason.startsWith("databasen")) {
+            logger.warning(message);
+            log.warning(message);
+        } else {
+            logger.info(message);
+        }
+
+        eventBus.post(new SystemEvents.DatabasePoolResizedEvent(pool.getName(), oldLimit, newLimit, reason));
+    }
+
+    /**
+     * Målinger for én styringsperiode.
+     */
+    static final class ControlSample {
+        final double p95WaitMillis;
+        final int peakInUse;
+        final int waiting;
+        final int serverRejections;
+
+        ControlSample(double p95WaitMillis, int peakInUse, int waiting, int serverRejections) {
+            this.p95WaitMillis = p95WaitMillis;
+            this.peakInUse = peakInUse;
+            this.waiting = waiting;
+            this.serverRejections = serverRejections;
+        }
+    }
+}
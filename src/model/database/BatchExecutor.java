@@ -0,0 +1,273 @@
+package model.database;
+
+import model.log.Log;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Hjælpeklasse til JDBC batch-skrivninger for DAO-klasserne.
+ * Udfører addBatch/executeBatch i chunks inden for én transaktion på én forbindelse,
+ * og upserts hvor hver chunk sendes som ét statement med et array pr. kolonne.
+ */
+final class BatchExecutor {
+    private static final Logger logger = Logger.getLogger(BatchExecutor.class.getName());
+    private static final Log log = Log.getInstance();
+
+    // Antal rækker pr. executeBatch - holder hukommelsesforbruget og statement-størrelsen nede
+    static final int DEFAULT_CHUNK_SIZE = 500;
+
+    /**
+     * Binder en entitets værdier til et PreparedStatement.
+     *
+     * @param <T> Entitetstypen
+     */
+    @FunctionalInterface
+    interface StatementBinder<T> {
+        void bind(PreparedStatement stmt, T entity) throws SQLException;
+    }
+
+    /**
+     * Binder en chunk af entiteter til et upsert-statement som ét array pr. kolonne.
+     *
+     * @param <T> Entitetstypen
+     */
+    @FunctionalInterface
+    interface ArrayBinder<T> {
+        void bind(PreparedStatement stmt, Connection conn, List<T> chunk) throws SQLException;
+    }
+
+    private BatchExecutor() {
+        // Utility-klasse - kan ikke instantieres
+    }
+
+    /**
+     * Udfører et parameteriseret statement for alle entiteter som JDBC batches i én transaktion.
+     * Ved fejl rulles hele transaktionen tilbage, så enten skrives alle rækker eller ingen.
+     *
+     * @param sql      SQL med parametre
+     * @param entities Entiteter der skal skrives
+     * @param binder   Binder entitetens værdier til statementet
+     * @param <T>      Entitetstypen
+     * @return Antal påvirkede rækker
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    static <T> int executeBatch(String sql, Collection<T> entities, StatementBinder<T> binder) throws SQLException {
+        return executeBatch(sql, entities, binder, null);
+    }
+
+    /**
+     * Som executeBatch, men giver de entiteter hvis statement ramte mindst én række.
+     * Bruges til UPDATE, hvor en entitet uden matchende række ikke må give et event.
+     *
+     * @param sql      SQL med parametre
+     * @param entities Entiteter der skal skrives
+     * @param binder   Binder entitetens værdier til statementet
+     * @param <T>      Entitetstypen
+     * @return Entiteterne der påvirkede mindst én række, i samme rækkefølge
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    static <T> List<T> executeBatchMatched(String sql, Collection<T> entities, StatementBinder<T> binder)
+            throws SQLException {
+        List<T> matched = new ArrayList<>();
+        executeBatch(sql, entities, binder, matched);
+        return matched;
+    }
+
+    private static <T> int executeBatch(String sql, Collection<T> entities, StatementBinder<T> binder,
+                                        List<T> matched) throws SQLException {
+        if (entities == null || entities.isEmpty()) {
+            return 0;
+        }
+
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            int affectedRows = 0;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                List<T> pending = new ArrayList<>(Math.min(entities.size(), DEFAULT_CHUNK_SIZE));
+                for (T entity : entities) {
+                    binder.bind(stmt, entity);
+                    stmt.addBatch();
+                    pending.add(entity);
+
+                    if (pending.size() == DEFAULT_CHUNK_SIZE) {
+                        affectedRows += flush(stmt, pending, matched);
+                    }
+                }
+                if (!pending.isEmpty()) {
+                    affectedRows += flush(stmt, pending, matched);
+                }
+            }
+
+            conn.commit();
+
+            logger.fine("Batch udført: " + entities.size() + " rækker, " + affectedRows + " påvirket");
+            return affectedRows;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                    log.warning("Batch-transaktion rullet tilbage: " + e.getMessage());
+                } catch (SQLException ex) {
+                    log.error("Fejl under rollback: " + ex.getMessage());
+                }
+            }
+            // BatchUpdateException gemmer den egentlige årsag i næste exception
+            if (e.getNextException() != null) {
+                e.addSuppressed(e.getNextException());
+            }
+            throw e;
+        } finally {
+            resetAndClose(conn);
+        }
+    }
+
+    /**
+     * Udfører et upsert-statement (INSERT ... SELECT FROM unnest(...) ON CONFLICT DO UPDATE) for alle
+     * entiteter, en chunk pr. round trip. Statementet skal returnere nøglen som første kolonne og
+     * (xmax = 0) som anden; xmax er 0 for en række indsat af statementet selv og sat for en opdateret.
+     * Er der flere chunks, udføres de i én transaktion, så enten skrives alle rækker eller ingen.
+     * Samme nøgle flere gange skrives kun én gang, med den sidste entitet - ON CONFLICT DO UPDATE
+     * afviser at ramme samme række to gange i ét statement.
+     *
+     * @param sql      Upsert-SQL med RETURNING nøgle, (xmax = 0)
+     * @param entities Entiteter der skal skrives
+     * @param keyOf    Giver entitetens nøgle som driveren returnerer den, fx UUID eller Integer
+     * @param binder   Binder en chunk som kolonne-arrays
+     * @param <T>      Entitetstypen
+     * @return De indsatte og de opdaterede entiteter
+     * @throws SQLException         hvis der er problemer med databasen
+     * @throws NullPointerException hvis entities eller en af entiteterne er null
+     */
+    static <T> UpsertResult<T> executeUpsert(String sql, Collection<T> entities, Function<T, ?> keyOf,
+                                             ArrayBinder<T> binder) throws SQLException {
+        Objects.requireNonNull(entities, "Entiteter til upsert må ikke være null");
+        List<T> inserted = new ArrayList<>();
+        List<T> updated = new ArrayList<>();
+        if (entities.isEmpty()) {
+            return new UpsertResult<>(inserted, updated);
+        }
+
+        Map<Object, T> byKey = new LinkedHashMap<>();
+        for (T entity : entities) {
+            Objects.requireNonNull(entity, "En entitet til upsert er null");
+            byKey.put(keyOf.apply(entity), entity);
+        }
+        List<T> unique = new ArrayList<>(byKey.values());
+
+        // Ét statement er atomart i sig selv - kun flere chunks kræver en transaktion
+        boolean transactional = unique.size() > DEFAULT_CHUNK_SIZE;
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            if (transactional) {
+                conn.setAutoCommit(false);
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int from = 0; from < unique.size(); from += DEFAULT_CHUNK_SIZE) {
+                    binder.bind(stmt, conn, unique.subList(from, Math.min(from + DEFAULT_CHUNK_SIZE, unique.size())));
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            T entity = byKey.get(rs.getObject(1));
+                            if (entity != null) {
+                                (rs.getBoolean(2) ? inserted : updated).add(entity);
+                            }
+                        }
+                    }
+                }
+            }
+
+            if (transactional) {
+                conn.commit();
+            }
+
+            logger.fine("Upsert udført: " + inserted.size() + " indsat, " + updated.size() + " opdateret");
+            return new UpsertResult<>(inserted, updated);
+        } catch (SQLException e) {
+            if (transactional && conn != null) {
+                try {
+                    conn.rollback();
+                    log.warning("Upsert-transaktion rullet tilbage: " + e.getMessage());
+                } catch (SQLException ex) {
+                    log.error("Fejl under rollback: " + ex.getMessage());
+                }
+            }
+            throw e;
+        } finally {
+            resetAndClose(conn);
+        }
+    }
+
+    /**
+     * Slår autocommit til igen og returnerer forbindelsen til poolen.
+     * Forbindelsen lukkes også hvis nulstillingen fejler, så den ikke lækker.
+     */
+    private static void resetAndClose(Connection conn) {
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.setAutoCommit(true);
+        } catch (SQLException e) {
+            log.warning("Fejl ved nulstilling af forbindelse: " + e.getMessage());
+        } finally {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                log.warning("Fejl ved lukning af forbindelse: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Sender de ventende statements og samler de entiteter der ramte mindst én række i matched.
+     */
+    private static <T> int flush(PreparedStatement stmt, List<T> pending, List<T> matched) throws SQLException {
+        int[] counts = stmt.executeBatch();
+        if (matched != null) {
+            if (counts.length != pending.size()) {
+                // Driveren gav ikke et antal pr. statement - antag at alle ramte
+                matched.addAll(pending);
+            } else {
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == Statement.SUCCESS_NO_INFO || counts[i] > 0) {
+                        matched.add(pending.get(i));
+                    }
+                }
+            }
+        }
+        pending.clear();
+        return sumUpdateCounts(counts);
+    }
+
+    /**
+     * Summerer opdateringstællere fra executeBatch.
+     * Med reWriteBatchedInserts returnerer driveren SUCCESS_NO_INFO, som tælles som én række.
+     */
+    private static int sumUpdateCounts(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            if (count == Statement.SUCCESS_NO_INFO) {
+                total++;
+            } else if (count > 0) {
+                total += count;
+            }
+        }
+        return total;
+    }
+}
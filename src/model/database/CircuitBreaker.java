@@ -0,0 +1,172 @@
+package model.database;
+
+import model.enums.CircuitBreakerStateEnum;
+import model.events.SystemEvents;
+import model.log.Log;
+import model.util.EventBus;
+
+import java.util.logging.Logger;
+
+/**
+ * Circuit breaker der stopper forsøg mod en ressource der er nede.
+ * CLOSED: alle kald tillades; efter et antal fejl i træk åbnes breakeren.
+ * OPEN: alle kald afvises straks, indtil åbningstiden er udløbet.
+ * HALF_OPEN: ét prøvekald tillades; lykkes det lukkes breakeren, ellers åbnes den igen.
+ * Tilstandsskift sendes som CircuitBreakerStateChangedEvent.
+ */
+public class CircuitBreaker {
+    private static final Logger logger = Logger.getLogger(CircuitBreaker.class.getName());
+    private static final Log log = Log.getInstance();
+    private static final EventBus eventBus = EventBus.getInstance();
+
+    private final String name;
+    private volatile int failureThreshold;
+    private volatile long openDurationMillis;
+
+    private CircuitBreakerStateEnum state = CircuitBreakerStateEnum.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    /**
+     * @param name               Navn der bruges i logs og events
+     * @param failureThreshold   Antal fejl i træk før breakeren åbnes
+     * @param openDurationMillis Hvor længe breakeren forbliver åben før et prøvekald tillades
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openDurationMillis) {
+        this.name = name;
+        configure(failureThreshold, openDurationMillis);
+    }
+
+    /**
+     * Ændrer grænserne uden at nulstille tilstanden.
+     *
+     * @param failureThreshold   Antal fejl i træk før breakeren åbnes
+     * @param openDurationMillis Hvor længe breakeren forbliver åben før et prøvekald tillades
+     */
+    public void configure(int failureThreshold, long openDurationMillis) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationMillis = Math.max(0, openDurationMillis);
+    }
+
+    /**
+     * Afgør om et kald må forsøges nu.
+     * Returnerer true højst én gang mens breakeren er halvåben, indtil resultatet er registreret.
+     *
+     * @return true hvis kaldet må forsøges
+     */
+    public boolean allowRequest() {
+        CircuitBreakerStateEnum from;
+        synchronized (this) {
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (System.currentTimeMillis() - openedAt < openDurationMillis) {
+                        return false;
+                    }
+                    from = transition(CircuitBreakerStateEnum.HALF_OPEN);
+                    trialInFlight = true;
+                    break;
+                default:
+                    if (trialInFlight) {
+                        return false;
+                    }
+                    trialInFlight = true;
+                    return true;
+            }
+        }
+        publish(from, CircuitBreakerStateEnum.HALF_OPEN);
+        return true;
+    }
+
+    /**
+     * Registrerer et lykket kald. Lukker breakeren hvis den var halvåben.
+     */
+    public void recordSuccess() {
+        CircuitBreakerStateEnum from;
+        synchronized (this) {
+            consecutiveFailures = 0;
+            trialInFlight = false;
+            if (state == CircuitBreakerStateEnum.CLOSED) {
+                return;
+            }
+            from = transition(CircuitBreakerStateEnum.CLOSED);
+        }
+        publish(from, CircuitBreakerStateEnum.CLOSED);
+    }
+
+    /**
+     * Registrerer et fejlet kald. Åbner breakeren hvis grænsen er nået eller prøvekaldet fejlede.
+     */
+    public void recordFailure() {
+        CircuitBreakerStateEnum from;
+        synchronized (this) {
+            consecutiveFailures++;
+            trialInFlight = false;
+            boolean shouldOpen = state == CircuitBreakerStateEnum.HALF_OPEN
+                    || (state == CircuitBreakerStateEnum.CLOSED && consecutiveFailures >= failureThreshold);
+            if (!shouldOpen) {
+                return;
+            }
+            openedAt = System.currentTimeMillis();
+            from = transition(CircuitBreakerStateEnum.OPEN);
+        }
+        publish(from, CircuitBreakerStateEnum.OPEN);
+    }
+
+    /**
+     * Nulstiller breakeren til lukket, fx efter at poolen er geninitialiseret.
+     */
+    public void reset() {
+        CircuitBreakerStateEnum from;
+        synchronized (this) {
+            consecutiveFailures = 0;
+            trialInFlight = false;
+            if (state == CircuitBreakerStateEnum.CLOSED) {
+                return;
+            }
+            from = transition(CircuitBreakerStateEnum.CLOSED);
+        }
+        publish(from, CircuitBreakerStateEnum.CLOSED);
+    }
+
+    public synchronized CircuitBreakerStateEnum getState() {
+        return state;
+    }
+
+    /**
+     * @return Millisekunder til et prøvekald tillades, eller 0 hvis breakeren ikke er åben
+     */
+    public synchronized long getRemainingOpenMillis() {
+        if (state != CircuitBreakerStateEnum.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openDurationMillis - (System.currentTimeMillis() - openedAt));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private CircuitBreakerStateEnum transition(CircuitBreakerStateEnum to) {
+        CircuitBreakerStateEnum from = state;
+        state = to;
+        return from;
+    }
+
+    /**
+     * Logger og sender tilstandsskiftet. Kaldes uden for låsen, så lyttere ikke kan blokere breakeren.
+     */
+    private void publish(CircuitBreakerStateEnum from, CircuitBreakerStateEnum to) {
+        String message = "Circuit breaker '" + name + "' skiftede fra " + from + " til " + to;
+        if (to == CircuitBreakerStateEnum.OPEN) {
+            logger.warning(message);
+            log.warning(message);
+        } else {
+            logger.info(message);
+            log.info(message);
+        }
+        eventBus.post(new SystemEvents.CircuitBreakerStateChangedEvent(name, from, to));
+    }
+}
@@ -0,0 +1,56 @@
+package model.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Basisklasse for row mappers der slår kolonnepositioner op én gang pr. ResultSet.
+ * Opslag på kolonnenavn for hver række er dyrt i driveren, så positionerne findes ved
+ * første række og genbruges for resten af resultatet.
+ * En instans må kun bruges af én tråd ad gangen - opret en ny pr. statement.
+ *
+ * @param <T> Typen der bygges fra rækken
+ */
+public abstract class ColumnIndexRowMapper<T> implements RowMapper<T> {
+    private final String[] columns;
+    private ResultSet resolvedFor;
+    private int[] indexes;
+
+    /**
+     * @param columnPrefix Præfiks foran alle kolonnenavne, fx ved aliaserede projektioner ("" for ingen)
+     * @param columns      Kolonnenavne i den rækkefølge subklassen slår dem op i
+     */
+    protected ColumnIndexRowMapper(String columnPrefix, String... columns) {
+        this.columns = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            this.columns[i] = columnPrefix + columns[i];
+        }
+    }
+
+    @Override
+    public final T map(ResultSet rs) throws SQLException {
+        if (rs != resolvedFor) {
+            indexes = resolve(rs);
+            resolvedFor = rs;
+        }
+        return mapRow(rs, indexes);
+    }
+
+    /**
+     * Bygger objektet fra rækken.
+     *
+     * @param rs      ResultSet placeret på en gyldig række
+     * @param indexes JDBC-positioner for kolonnerne, i samme rækkefølge som givet til konstruktøren
+     * @return Objektet bygget fra rækken
+     * @throws SQLException hvis kolonner ikke kan læses
+     */
+    protected abstract T mapRow(ResultSet rs, int[] indexes) throws SQLException;
+
+    private int[] resolve(ResultSet rs) throws SQLException {
+        int[] resolved = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            resolved[i] = rs.findColumn(columns[i]);
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,110 @@
+package model.database;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Begrænser hvor mange forbindelser en pool må have udlånt samtidig.
+ * Grænsen kan ændres mens poolen kører. c3p0's maxPoolSize sættes til den øvre grænse,
+ * så det er denne begrænsning der reelt bestemmer hvor mange forbindelser poolen åbner.
+ */
+class ConnectionLimiter {
+    private final AdjustableSemaphore permits;
+    private final AtomicInteger peakInUse = new AtomicInteger();
+    private volatile int limit;
+
+    /**
+     * @param initialLimit Grænsen ved start
+     */
+    ConnectionLimiter(int initialLimit) {
+        this.limit = Math.max(1, initialLimit);
+        this.permits = new AdjustableSemaphore(this.limit);
+    }
+
+    /**
+     * Venter på en plads.
+     *
+     * @param timeoutMillis Maksimal ventetid
+     * @return true hvis der blev tildelt en plads
+     */
+    boolean acquire(long timeoutMillis) {
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+            peakInUse.accumulateAndGet(getInUse(), Math::max);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Frigiver en plads når en forbindelse er returneret.
+     */
+    void release() {
+        permits.release();
+    }
+
+    /**
+     * Ændrer grænsen. Sænkes den under antallet af udlånte forbindelser, venter nye kaldere
+     * indtil nok forbindelser er returneret.
+     *
+     * @param newLimit Ny grænse (mindst 1)
+     */
+    synchronized void setLimit(int newLimit) {
+        int target = Math.max(1, newLimit);
+        int delta = target - limit;
+        if (delta > 0) {
+            permits.release(delta);
+        } else if (delta < 0) {
+            permits.reducePermits(-delta);
+        }
+        limit = target;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return Antal udlånte forbindelser (tilnærmet)
+     */
+    int getInUse() {
+        return Math.max(0, limit - permits.availablePermits());
+    }
+
+    /**
+     * Returnerer det højeste antal udlånte forbindelser siden sidste kald og starter en ny måling.
+     *
+     * @return Højeste antal samtidigt udlånte forbindelser i perioden
+     */
+    int drainPeakInUse() {
+        return Math.max(peakInUse.getAndSet(getInUse()), getInUse());
+    }
+
+    /**
+     * @return Antal tråde der venter på en plads (tilnærmet)
+     */
+    int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Semaphore hvor antallet af pladser kan sænkes uden at vente på at de bliver ledige.
+     */
+    private static final class AdjustableSemaphore extends Semaphore {
+        private static final long serialVersionUID = 1L;
+
+        AdjustableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package model.database;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Samler målinger for forbindelsespoolen: ventetid ved checkout, antal genforsøg og hvor længe
+ * hver kaldende DAO-metode holder på forbindelsen.
+ * Mætning vurderes pr. tidsvindue, så en gammel spids ikke holder p99 oppe for evigt.
+ */
+class ConnectionMetrics {
+
+    // Klasser der selv henter forbindelser på vegne af en DAO - springes over ved opslag af kalder
+    private static final Set<String> INFRASTRUCTURE_CLASSES = Set.of(
+            DatabaseConnection.class.getName(),
+            ConnectionPool.class.getName(),
+            StreamingQuery.class.getName(),
+            BatchExecutor.class.getName(),
+            ConnectionMetrics.class.getName());
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private final LatencyHistogram checkoutWait = new LatencyHistogram();
+    private final LatencyHistogram windowCheckoutWait = new LatencyHistogram();
+    private final LatencyHistogram controlCheckoutWait = new LatencyHistogram();
+    private final Map<String, LatencyHistogram> holdTimeByCaller = new ConcurrentHashMap<>();
+
+    // retryDistribution[i] = antal checkouts der lykkedes efter i genforsøg
+    private final AtomicLongArray retryDistribution;
+    private final LongAdder failedCheckouts = new LongAdder();
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicBoolean saturated = new AtomicBoolean(false);
+    private volatile long saturationThresholdNanos;
+    private volatile long saturationWindowNanos;
+
+    /**
+     * @param maxRetries Maksimalt antal genforsøg ved checkout
+     */
+    ConnectionMetrics(int maxRetries) {
+        this.retryDistribution = new AtomicLongArray(maxRetries + 1);
+        configureSaturation(1000, 10_000);
+    }
+
+    /**
+     * Sætter grænsen for hvornår poolen regnes for mættet.
+     *
+     * @param thresholdMillis p99 ventetid ved checkout der udløser mætningsevent
+     * @param windowMillis    Længden af det vindue p99 beregnes over
+     */
+    void configureSaturation(long thresholdMillis, long windowMillis) {
+        this.saturationThresholdNanos = thresholdMillis * 1_000_000L;
+        this.saturationWindowNanos = windowMillis * 1_000_000L;
+    }
+
+    /**
+     * Registrerer en lykket checkout.
+     *
+     * @param waitNanos Samlet ventetid inkl. genforsøg
+     * @param retries   Antal genforsøg før forbindelsen blev hentet
+     */
+    void recordCheckout(long waitNanos, int retries) {
+        checkoutWait.record(waitNanos);
+        windowCheckoutWait.record(waitNanos);
+        controlCheckoutWait.record(waitNanos);
+        retryDistribution.incrementAndGet(Math.min(retries, retryDistribution.length() - 1));
+    }
+
+    /**
+     * Registrerer en checkout der fejlede efter alle genforsøg.
+     *
+     * @param waitNanos Samlet ventetid før der blev givet op
+     */
+    void recordFailedCheckout(long waitNanos) {
+        failedCheckouts.increment();
+        checkoutWait.record(waitNanos);
+        windowCheckoutWait.record(waitNanos);
+        controlCheckoutWait.record(waitNanos);
+    }
+
+    /**
+     * Registrerer hvor længe en kalder holdt på en forbindelse.
+     *
+     * @param caller    Kaldende metode, fx "ReservationDAO.getAll"
+     * @param holdNanos Tid fra checkout til close
+     */
+    void recordHold(String caller, long holdNanos) {
+        holdTimeByCaller.computeIfAbsent(caller, k -> new LatencyHistogram()).record(holdNanos);
+    }
+
+    /**
+     * Afslutter det aktuelle vindue hvis det er udløbet og vurderer mætning.
+     * Kun én tråd vinder afslutningen af et givent vindue.
+     *
+     * @return Vinduets p99 i nanosekunder hvis poolen netop er blevet mættet, ellers -1
+     */
+    long evaluateSaturation() {
+        long start = windowStart.get();
+        long now = System.nanoTime();
+        if (now - start < saturationWindowNanos || !windowStart.compareAndSet(start, now)) {
+            return -1;
+        }
+
+        long p99 = windowCheckoutWait.getPercentileNanos(99);
+        windowCheckoutWait.reset();
+
+        if (p99 > saturationThresholdNanos) {
+            return saturated.compareAndSet(false, true) ? p99 : -1;
+        }
+        saturated.set(false);
+        return -1;
+    }
+
+    /**
+     * Returnerer ventetiderne siden sidste kald og starter en ny periode.
+     * Bruges af AdaptivePoolController, der har sin egen takt uafhængigt af mætningsvinduet.
+     *
+     * @return Snapshot af ventetiderne i perioden
+     */
+    LatencyHistogram.Snapshot drainControlWindow() {
+        LatencyHistogram.Snapshot snapshot = controlCheckoutWait.snapshot();
+        controlCheckoutWait.reset();
+        return snapshot;
+    }
+
+    /**
+     * @return true hvis seneste afsluttede vindue havde p99 over grænsen
+     */
+    boolean isSaturated() {
+        return saturated.get();
+    }
+
+    long getSaturationThresholdMillis() {
+        return saturationThresholdNanos / 1_000_000L;
+    }
+
+    LatencyHistogram.Snapshot getCheckoutWaitSnapshot() {
+        return checkoutWait.snapshot();
+    }
+
+    long[] getRetryDistribution() {
+        long[] copy = new long[retryDistribution.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = retryDistribution.get(i);
+        }
+        return copy;
+    }
+
+    long getFailedCheckouts() {
+        return failedCheckouts.sum();
+    }
+
+    Map<String, LatencyHistogram.Snapshot> getHoldTimeSnapshots() {
+        Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+        holdTimeByCaller.forEach((caller, histogram) -> snapshots.put(caller, histogram.snapshot()));
+        return snapshots;
+    }
+
+    /**
+     * Nulstiller alle målinger.
+     */
+    void reset() {
+        checkoutWait.reset();
+        windowCheckoutWait.reset();
+        controlCheckoutWait.reset();
+        holdTimeByCaller.clear();
+        for (int i = 0; i < retryDistribution.length(); i++) {
+            retryDistribution.set(i, 0);
+        }
+        failedCheckouts.reset();
+        saturated.set(false);
+        windowStart.set(System.nanoTime());
+    }
+
+    /**
+     * Finder den DAO-metode (eller anden kode) der har bedt om forbindelsen.
+     *
+     * @return "Klasse.metode" for første kalder uden for forbindelsesinfrastrukturen
+     */
+    static String resolveCaller() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> !INFRASTRUCTURE_CLASSES.contains(frame.getClassName()))
+                .filter(frame -> !frame.getMethodName().startsWith("lambda$"))
+                .findFirst()
+                .map(frame -> simpleName(frame.getClassName()) + "." + frame.getMethodName())
+                .orElse("ukendt"));
+    }
+
+    private static String simpleName(String className) {
+        String name = className.substring(className.lastIndexOf('.') + 1);
+        int nested = name.indexOf('$');
+        return nested > 0 ? name.substring(0, nested) : name;
+    }
+}
@@ -0,0 +1,720 @@
+package model.database;
+
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import model.enums.CircuitBreakerStateEnum;
+import model.events.SystemEvents;
+import model.log.Log;
+import model.util.EventBus;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Én c3p0-pool med egen circuit breaker, egne målinger og egen genforsøgslogik.
+ * DatabaseConnection ejer poolerne (primær og evt. read replica) og vælger hvilken der bruges.
+ * Konfigurationen læses fra nøgler med et fælles præfiks, fx "db.", "db.replica." eller "db.workload.reporting.".
+ */
+class ConnectionPool {
+    private static final Logger logger = Logger.getLogger(ConnectionPool.class.getName());
+    private static final Log log = Log.getInstance();
+    private static final EventBus eventBus = EventBus.getInstance();
+    private static final LeakDetector leakDetector = LeakDetector.getInstance();
+
+    // Præfiks (efter pool-præfikset) for driver-egenskaber der sendes direkte videre til PostgreSQL JDBC-driveren
+    private static final String PG_PROPERTY_KEY = "pgProperty.";
+
+    // Maksimalt antal genforsøg
+    static final int MAX_RETRY_ATTEMPTS = 3;
+
+    // Sat i lease-tælleren når poolen er trukket tilbage efter en konfigurationsændring
+    private static final int RETIRED = 1 << 30;
+
+    // SQLState fra serveren når den ikke vil tage flere forbindelser (too_many_connections, cannot_connect_now)
+    private static final String TOO_MANY_CONNECTIONS = "53300";
+    private static final String CANNOT_CONNECT_NOW = "57P03";
+
+    private final String name;
+    private final ComboPooledDataSource dataSource;
+    // Kilden forbindelser hentes fra - dataSource, eller FaultInjectingDataSource foran den når db.fault.enabled er sat
+    private final DataSource connectionSource;
+    // Forsøg på at hente forbindelser køres her, så kaldende tråde ikke sover mellem genforsøg.
+    // Begrænset til maxPoolSize tråde og en kø af fast længde - flere tråde kan alligevel ikke få en plads
+    private final ThreadPoolExecutor acquireExecutor;
+    private final ScheduledExecutorService scheduler;
+    private final ConnectionMetrics metrics = new ConnectionMetrics(MAX_RETRY_ATTEMPTS);
+    private final CircuitBreaker circuitBreaker;
+    private final long backoffBaseMillis;
+    private final long backoffMaxMillis;
+    // Gælder både ventetiden på limiteren og c3p0's egen checkoutTimeout, som følger efter hinanden.
+    // Ét forsøg kan derfor vente op til 2 x checkoutTimeoutMillis; kalderens Deadline begrænser den samlede ventetid
+    private final long checkoutTimeoutMillis;
+
+    // Grænse for samtidigt udlånte forbindelser - styres af AdaptivePoolController hvis den er slået til
+    private final ConnectionLimiter limiter;
+    private final AtomicInteger serverRejections = new AtomicInteger(0);
+    private final ScheduledFuture<?> adaptiveTask;
+
+    // Forbindelsesstatistik
+    private final AtomicInteger connectionCounter = new AtomicInteger(0);
+    private final AtomicInteger failedConnectionCounter = new AtomicInteger(0);
+
+    // Antal igangværende hentninger plus udlånte forbindelser, og RETIRED-bitten
+    private final AtomicInteger leases = new AtomicInteger(0);
+    private volatile ScheduledFuture<?> forcedCloseTask;
+
+    private volatile boolean closed;
+
+    /**
+     * Opretter og konfigurerer en pool.
+     *
+     * @param name            Navn der bruges i logs, events og JMX (fx "primary")
+     * @param dbProps         Indlæst database.properties
+     * @param prefix          Præfiks for poolens nøgler, fx "db." eller "db.replica."
+     * @param scheduler       Scheduler til periodiske opgaver som adaptiv pool-størrelse og genforsøg
+     */
+    ConnectionPool(String name, Properties dbProps, String prefix, ScheduledExecutorService scheduler) {
+        this.name = name;
+        this.scheduler = scheduler;
+        this.dataSource = createDataSource(dbProps, prefix);
+        this.acquireExecutor = createAcquireExecutor(name, dataSource.getMaxPoolSize(),
+                Integer.parseInt(setting(dbProps, prefix, "acquire.queueSize", "100")));
+        this.checkoutTimeoutMillis = dataSource.getCheckoutTimeout();
+        FaultProfile faultProfile = FaultProfile.fromProperties(dbProps, prefix);
+        this.connectionSource = faultProfile.isEnabled()
+                ? new FaultInjectingDataSource(dataSource, faultProfile)
+                : dataSource;
+
+        // Backoff og circuit breaker for hentning af forbindelser
+        this.backoffBaseMillis = Long.parseLong(setting(dbProps, prefix, "acquire.backoffBaseMs", "250"));
+        this.backoffMaxMillis = Long.parseLong(setting(dbProps, prefix, "acquire.backoffMaxMs", "4000"));
+        this.circuitBreaker = new CircuitBreaker(name,
+                Integer.parseInt(setting(dbProps, prefix, "circuit.failureThreshold", "5")),
+                Long.parseLong(setting(dbProps, prefix, "circuit.openMs", "15000")));
+
+        // Grænse for hvornår poolen regnes for mættet
+        metrics.configureSaturation(
+                Long.parseLong(setting(dbProps, prefix, "metrics.saturationThresholdMs", "1000")),
+                Long.parseLong(setting(dbProps, prefix, "metrics.saturationWindowMs", "10000")));
+
+        // Adaptiv størrelse: start ved initialSize og lad controlleren flytte grænsen inden for [minSize, maxSize].
+        // Uden adaptiv styring er grænsen blot maxSize.
+        int maxSize = dataSource.getMaxPoolSize();
+        int lowerBound = Math.min(maxSize, Math.max(1, dataSource.getMinPoolSize()));
+        boolean adaptive = Boolean.parseBoolean(setting(dbProps, prefix, "pool.adaptive.enabled", "false"));
+        if (adaptive) {
+            int initialLimit = Math.min(maxSize, Math.max(lowerBound, dataSource.getInitialPoolSize()));
+            this.limiter = new ConnectionLimiter(initialLimit);
+            long intervalMillis = Long.parseLong(setting(dbProps, prefix, "pool.adaptive.intervalMs", "5000"));
+            AdaptivePoolController controller = new AdaptivePoolController(this, limiter, lowerBound, maxSize,
+                    Long.parseLong(setting(dbProps, prefix, "pool.adaptive.growWaitMs", "50")),
+                    Integer.parseInt(setting(dbProps, prefix, "pool.adaptive.shrinkIdleIntervals", "6")));
+            this.adaptiveTask = scheduler.scheduleWithFixedDelay(controller, intervalMillis, intervalMillis,
+                    TimeUnit.MILLISECONDS);
+            logger.info("Adaptiv størrelse slået til for pool '" + name + "' (" + lowerBound + "-" + maxSize +
+                    " forbindelser, start " + initialLimit + ")");
+        } else {
+            this.limiter = new ConnectionLimiter(maxSize);
+            this.adaptiveTask = null;
+        }
+    }
+
+    /**
+     * Læser en indstilling for poolen. Andre pools arver primærens værdi hvis de ikke selv har en.
+     */
+    static String setting(Properties dbProps, String prefix, String key, String defaultValue) {
+        String value = dbProps.getProperty(prefix + key);
+        if (value == null) {
+            value = dbProps.getProperty("db." + key, defaultValue);
+        }
+        return value;
+    }
+
+    /**
+     * Læser timeout for at hente en forbindelse i millisekunder fra pool.checkoutTimeoutMs.
+     * Er den ikke sat, bruges den ældre timeout.checkout, som er i sekunder.
+     */
+    static int checkoutTimeoutMillis(Properties dbProps, String prefix) {
+        String millis = setting(dbProps, prefix, "pool.checkoutTimeoutMs", null);
+        if (millis != null) {
+            return Integer.parseInt(millis);
+        }
+        String seconds = setting(dbProps, prefix, "timeout.checkout", null);
+        if (seconds != null) {
+            logger.warning("timeout.checkout er forældet - brug pool.checkoutTimeoutMs (millisekunder)");
+            return Math.multiplyExact(Integer.parseInt(seconds), 1000);
+        }
+        return 20000;
+    }
+
+    /**
+     * Opretter executoren til hentninger. Er alle tråde optaget og køen fuld, afvises nye hentninger
+     * med det samme i stedet for at starte en tråd pr. ventende kalder.
+     */
+    private static ThreadPoolExecutor createAcquireExecutor(String name, int threads, int queueSize) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), runnable -> {
+                    Thread thread = new Thread(runnable, "db-acquire-" + name);
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static ComboPooledDataSource createDataSource(Properties dbProps, String prefix) {
+        ComboPooledDataSource cpds = new ComboPooledDataSource();
+        try {
+            // Sæt database driver
+            cpds.setDriverClass(setting(dbProps, prefix, "driver", null));
+        } catch (Exception e) {
+            throw new IllegalStateException("Ukendt database driver", e);
+        }
+
+        // Sæt database connection info
+        String user = setting(dbProps, prefix, "user", null);
+        String password = setting(dbProps, prefix, "password", null);
+        cpds.setJdbcUrl(setting(dbProps, prefix, "url", null));
+        cpds.setUser(user);
+        cpds.setPassword(password);
+
+        // Konfigurer pool-størrelse - små standardværdier for serverless
+        cpds.setInitialPoolSize(Integer.parseInt(setting(dbProps, prefix, "pool.initialSize", "3")));
+        cpds.setMinPoolSize(Integer.parseInt(setting(dbProps, prefix, "pool.minSize", "1")));
+        cpds.setMaxPoolSize(Integer.parseInt(setting(dbProps, prefix, "pool.maxSize", "10")));
+        cpds.setAcquireIncrement(Integer.parseInt(setting(dbProps, prefix, "pool.acquireIncrement", "1")));
+
+        // Konfigurer statement caching - loftet pr. forbindelse sikrer at de forberedte sætninger
+        // fra opvarmningen ikke skubbes ud af en fælles cache når poolen vokser
+        cpds.setMaxStatements(Integer.parseInt(setting(dbProps, prefix, "pool.maxStatements", "50")));
+        cpds.setMaxStatementsPerConnection(Integer.parseInt(
+                setting(dbProps, prefix, "pool.maxStatementsPerConnection", "0")));
+
+        // Konfigurer forbindelsestest - vigtigt for serverless.
+        // Som standard testes inaktive forbindelser i baggrunden og ved returnering, ikke ved hver hentning:
+        // en test ved hentning koster et ekstra round trip på hver forespørgsel.
+        cpds.setIdleConnectionTestPeriod(Integer.parseInt(setting(dbProps, prefix, "test.idleTime", "60")));
+        cpds.setTestConnectionOnCheckout(Boolean.parseBoolean(setting(dbProps, prefix, "test.onCheckout", "false")));
+        cpds.setTestConnectionOnCheckin(Boolean.parseBoolean(setting(dbProps, prefix, "test.onCheckin", "true")));
+
+        // Konfigurer timeouts - kortere for serverless
+        cpds.setCheckoutTimeout(checkoutTimeoutMillis(dbProps, prefix));
+        cpds.setMaxIdleTime(Integer.parseInt(setting(dbProps, prefix, "timeout.idle", "300")));        // Max inaktivitetstid
+        cpds.setMaxConnectionAge(Integer.parseInt(setting(dbProps, prefix, "timeout.maxAge", "1800")));  // Max forbindelsesalder
+
+        // Forbindelser over minSize lukkes hurtigere, så poolen følger en sænket grænse
+        cpds.setMaxIdleTimeExcessConnections(Integer.parseInt(
+                setting(dbProps, prefix, "pool.maxIdleExcessSeconds", "60")));
+
+        // Konfigurer automatisk forbindelsestest
+        cpds.setPreferredTestQuery(setting(dbProps, prefix, "test.query", "SELECT 1"));
+
+        // Konfigurer retry-indstillinger
+        cpds.setAcquireRetryAttempts(Integer.parseInt(setting(dbProps, prefix, "retry.attempts", "5")));  // Flere forsøg for serverless
+        cpds.setAcquireRetryDelay(Integer.parseInt(setting(dbProps, prefix, "retry.delay", "500")));      // Millisekunder mellem forsøg
+
+        // Aktivér forbindelses-reset ved lukning
+        cpds.setAutoCommitOnClose(true);
+
+        // Tilføj forbindelsesegenskaber specifikt for Neon
+        Properties properties = new Properties();
+        properties.setProperty("user", user);
+        properties.setProperty("password", password);
+
+        // Send alle <præfiks>pgProperty.* videre til driveren (fx reWriteBatchedInserts).
+        // Andre pools arver primærens driver-egenskaber og kan overskrive dem.
+        forwardDriverProperties(dbProps, "db." + PG_PROPERTY_KEY, properties);
+        if (!"db.".equals(prefix)) {
+            forwardDriverProperties(dbProps, prefix + PG_PROPERTY_KEY, properties);
+        }
+        cpds.setProperties(properties);
+        return cpds;
+    }
+
+    private static void forwardDriverProperties(Properties dbProps, String keyPrefix, Properties target) {
+        for (String key : dbProps.stringPropertyNames()) {
+            if (key.startsWith(keyPrefix)) {
+                String driverProperty = key.substring(keyPrefix.length());
+                target.setProperty(driverProperty, dbProps.getProperty(key));
+                logger.fine("Driver-egenskab sat: " + driverProperty + "=" + dbProps.getProperty(key));
+            }
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    ComboPooledDataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Varmer poolen op: åbner minPoolSize forbindelser parallelt og lægger de angivne sætninger i
+     * c3p0's statement-cache på hver af dem, så de første forespørgsler ikke venter på TLS-handshake
+     * og Neon cold start. Serveren beholder ingen forberedt plan - se openAndPrepare.
+     * Forbindelserne holdes åbne til alle er klar, så c3p0 faktisk åbner så mange særskilte forbindelser.
+     *
+     * @param statements SQL der lægges i statement-cachen på hver forbindelse
+     * @return Future der fuldføres med antal opvarmede forbindelser. Fejler kun hvis ingen kunne åbnes
+     */
+    CompletableFuture<Integer> warmUp(List<String> statements) {
+        int connections = Math.min(limiter.getLimit(), Math.max(1, dataSource.getMinPoolSize()));
+        List<CompletableFuture<Connection>> opened = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            opened.add(CompletableFuture.supplyAsync(() -> openAndPrepare(statements), acquireExecutor));
+        }
+
+        return CompletableFuture.allOf(opened.toArray(new CompletableFuture<?>[0])).handle((ignored, error) -> {
+            int warmed = 0;
+            Throwable lastError = null;
+            for (CompletableFuture<Connection> future : opened) {
+                try {
+                    Connection conn = future.join();
+                    warmed++;
+                    closeQuietly(conn);
+                } catch (CompletionException e) {
+                    lastError = e.getCause();
+                }
+            }
+            if (warmed == 0 && lastError != null) {
+                throw new CompletionException(lastError);
+            }
+            return warmed;
+        });
+    }
+
+    private Connection openAndPrepare(List<String> statements) {
+        Connection conn;
+        try {
+            conn = connectionSource.getConnection();
+        } catch (SQLException e) {
+            throw new CompletionException(e);
+        }
+
+        for (String sql : statements) {
+            // getParameterMetaData får sætningen beskrevet af serveren, så syntaksfejl og katalogopslag
+            // betales nu. pgjdbc bruger her et unavngivet statement; et navngivet server-side statement
+            // oprettes først efter prepareThreshold udførelser, så selve planlægningen sker stadig ved
+            // første rigtige kald. Det der genbruges er forbindelsen og c3p0's client-side statement-cache
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.getParameterMetaData();
+            } catch (SQLException e) {
+                // Fx hvis skemaet endnu ikke er migreret - forbindelsen er stadig varm
+                logger.log(Level.FINE, "Kunne ikke forberede sætning under opvarmning: " + sql, e);
+            }
+        }
+        return conn;
+    }
+
+    /**
+     * Henter en forbindelse uden at blokere den kaldende tråd.
+     * Fejlede forsøg gentages med eksponentiel backoff og jitter. Mens circuit breakeren er åben
+     * fejler kaldet med det samme i stedet for at vente på en database der er nede.
+     *
+     * @param caller          Kaldende metode, fundet på den kaldende tråd
+     * @param releaseListener Kaldes når forbindelsen lukkes, eller null
+     * @return Future der fuldføres med en forbindelse, eller med en SQLException.
+     *         null hvis poolen er trukket tilbage - kalderen skal så bruge den nye pool
+     */
+    CompletableFuture<Connection> acquireAsync(String caller, Runnable releaseListener) {
+        CompletableFuture<Connection> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(new SQLException("Connection pool '" + name + "' er lukket"));
+            return result;
+        }
+        if (!tryLease()) {
+            return null;
+        }
+
+        // Tråd og stack skal registreres på den kaldende tråd
+        LeakDetector.Borrow borrow = leakDetector.begin(name, caller);
+        long checkoutStart = System.nanoTime();
+        submitAttempt(result, borrow, releaseListener, 0, checkoutStart);
+        return result;
+    }
+
+    /**
+     * Lægger et forsøg på acquireExecutor. Er executoren fuld eller lukket, fejler hentningen med det samme.
+     */
+    private void submitAttempt(CompletableFuture<Connection> result, LeakDetector.Borrow borrow,
+                               Runnable releaseListener, int attempt, long checkoutStart) {
+        try {
+            acquireExecutor.execute(() -> attemptAcquire(result, borrow, releaseListener, attempt, checkoutStart));
+        } catch (RejectedExecutionException e) {
+            SQLException rejected = new SQLException("For mange ventende hentninger i pool '" + name + "' (" +
+                    acquireExecutor.getQueue().size() + " i kø)", "08004", e);
+            failAcquisition(result, checkoutStart, attempt, rejected);
+        }
+    }
+
+    /**
+     * Ét forsøg på at hente en forbindelse. Planlægger selv næste forsøg ved fejl.
+     */
+    private void attemptAcquire(CompletableFuture<Connection> result, LeakDetector.Borrow borrow,
+                                Runnable releaseListener, int attempt, long checkoutStart) {
+        if (result.isDone()) {
+            releaseLease();
+            return;
+        }
+
+        if (!circuitBreaker.allowRequest()) {
+            releaseLease();
+            metrics.recordFailedCheckout(System.nanoTime() - checkoutStart);
+            result.completeExceptionally(new SQLException(
+                    "Databasen er utilgængelig - circuit breaker '" + name + "' er åben (nyt forsøg om " +
+                            circuitBreaker.getRemainingOpenMillis() + " ms)", "08001"));
+            return;
+        }
+
+        // Vent på en plads under poolens aktuelle grænse før c3p0 spørges. c3p0's checkoutTimeout er fast
+        // for datakilden og kan ikke afkortes med ventetiden her, så de to ventetider lægges sammen
+        if (!limiter.acquire(checkoutTimeoutMillis)) {
+            failAcquisition(result, checkoutStart, attempt + 1, new SQLException(
+                    "Ingen ledig forbindelse i pool '" + name + "' inden for " + checkoutTimeoutMillis +
+                            " ms (grænse " + limiter.getLimit() + ")"));
+            return;
+        }
+
+        boolean permitHandedOver = false;
+        try {
+            Connection conn = connectionSource.getConnection();
+            circuitBreaker.recordSuccess();
+
+            // Log connection checkout
+            connectionCounter.incrementAndGet();
+            metrics.recordCheckout(System.nanoTime() - checkoutStart, attempt);
+            checkSaturation();
+
+            // Log forbindelseshentning på højt debug-niveau
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine("Database forbindelse hentet fra pool '" + name + "' (total: " +
+                        connectionCounter.get() + ")");
+            }
+
+            // Pladsen frigives først når forbindelsen returneres
+            leakDetector.track(borrow);
+            Connection metered = MeteredConnection.wrap(conn, borrow.getCaller(), metrics, () -> {
+                leakDetector.release(borrow);
+                limiter.release();
+                releaseLease();
+                if (releaseListener != null) {
+                    releaseListener.run();
+                }
+            }, PoolGroup.REPLICA_POOL.equals(name));
+            permitHandedOver = true;
+            if (!result.complete(metered)) {
+                // Kalderen har opgivet - giv forbindelsen tilbage til poolen
+                closeQuietly(metered);
+            }
+        } catch (SQLException e) {
+            circuitBreaker.recordFailure();
+            failedConnectionCounter.incrementAndGet();
+            if (isServerRejection(e)) {
+                serverRejections.incrementAndGet();
+            }
+
+            int attempts = attempt + 1;
+            logger.log(Level.WARNING, "Fejl ved hentning af database forbindelse fra pool '" + name +
+                    "' (forsøg " + attempts + "): " + e.getMessage(), e);
+
+            if (attempts < MAX_RETRY_ATTEMPTS && !result.isDone()) {
+                long delay = backoffDelayMillis(attempts);
+                scheduler.schedule(() -> submitAttempt(result, borrow, releaseListener, attempts, checkoutStart),
+                        delay, TimeUnit.MILLISECONDS);
+            } else {
+                failAcquisition(result, checkoutStart, attempts, e);
+            }
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure();
+            failAcquisition(result, checkoutStart, attempt + 1, new SQLException("Uventet fejl ved hentning af databaseforbindelse", e));
+        } finally {
+            if (!permitHandedOver) {
+                limiter.release();
+            }
+        }
+    }
+
+    /**
+     * Afgør om databasen selv afviste forbindelsen, fx fordi max_connections er nået.
+     * c3p0 pakker driverens fejl ind, så hele årsagskæden gennemgås.
+     */
+    private static boolean isServerRejection(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                String sqlState = ((SQLException) cause).getSQLState();
+                if (TOO_MANY_CONNECTIONS.equals(sqlState) || CANNOT_CONNECT_NOW.equals(sqlState)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Samler målingerne for én periode til AdaptivePoolController og nulstiller dem.
+     */
+    AdaptivePoolController.ControlSample drainControlSample() {
+        return new AdaptivePoolController.ControlSample(
+                metrics.drainControlWindow().getP95Millis(),
+                limiter.drainPeakInUse(),
+                limiter.getWaiting(),
+                serverRejections.getAndSet(0));
+    }
+
+    /**
+     * @return Aktuel grænse for samtidigt udlånte forbindelser
+     */
+    int getConnectionLimit() {
+        return limiter.getLimit();
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Fejl ved lukning af forbindelse der ikke blev brugt", e);
+        }
+    }
+
+    /**
+     * Afslutter en hentning der er opgivet.
+     *
+     * @param attempts Antal forsøg der faktisk er udført
+     */
+    private void failAcquisition(CompletableFuture<Connection> result, long checkoutStart, int attempts,
+                                 SQLException lastException) {
+        releaseLease();
+        metrics.recordFailedCheckout(System.nanoTime() - checkoutStart);
+        checkSaturation();
+
+        // Log pool-status ved fejl
+        logger.info(getStats());
+
+        String errorMsg = "Kunne ikke etablere databaseforbindelse til '" + name + "' efter " +
+                attempts + " forsøg";
+        log.error(errorMsg + ": " + lastException.getMessage());
+
+        // Post database error event
+        eventBus.post(new SystemEvents.DatabaseErrorEvent(
+                errorMsg,
+                lastException.getSQLState(),
+                lastException));
+
+        result.completeExceptionally(lastException);
+    }
+
+    /**
+     * Beregner ventetiden før næste forsøg: eksponentiel backoff med "equal jitter",
+     * dvs. halvdelen af intervallet fast og resten tilfældigt, så samtidige kaldere spredes.
+     *
+     * @param attempts Antal forsøg der allerede er mislykkedes (mindst 1)
+     * @return Ventetid i millisekunder
+     */
+    long backoffDelayMillis(int attempts) {
+        long exponential = backoffBaseMillis << Math.min(attempts - 1, 20);
+        long cap = Math.max(1, Math.min(backoffMaxMillis, exponential));
+        long half = cap / 2;
+        return half + ThreadLocalRandom.current().nextLong(cap - half + 1);
+    }
+
+    /**
+     * Vurderer om målevinduet er udløbet og sender DatabasePoolSaturatedEvent hvis poolen netop er blevet mættet.
+     */
+    private void checkSaturation() {
+        long p99Nanos = metrics.evaluateSaturation();
+        if (p99Nanos < 0) {
+            return;
+        }
+
+        PoolMetricsSnapshot snapshot = getMetricsSnapshot();
+        double p99Millis = p99Nanos / 1_000_000.0;
+        String message = String.format("Database forbindelsespool '%s' mættet: p99 ventetid %.0f ms (grænse %d ms), %d/%d forbindelser i brug",
+                name, p99Millis, metrics.getSaturationThresholdMillis(),
+                snapshot.getBusyConnections(), snapshot.getMaxPoolSize());
+        logger.warning(message);
+        log.warning(message);
+
+        eventBus.post(new SystemEvents.DatabasePoolSaturatedEvent(
+                name,
+                p99Millis,
+                metrics.getSaturationThresholdMillis(),
+                snapshot.getBusyConnections(),
+                snapshot.getMaxPoolSize()));
+    }
+
+    /**
+     * Tager et maskinlæsbart øjebliksbillede af poolens målinger.
+     *
+     * @return Snapshot med ventetid, genforsøg, holdetid pr. kalder og pool-tællere
+     */
+    PoolMetricsSnapshot getMetricsSnapshot() {
+        int busy = 0;
+        int idle = 0;
+        int total = 0;
+        int max = 0;
+        if (!closed) {
+            try {
+                busy = dataSource.getNumBusyConnections();
+                idle = dataSource.getNumIdleConnections();
+                total = dataSource.getNumConnections();
+                max = dataSource.getMaxPoolSize();
+            } catch (SQLException e) {
+                logger.log(Level.FINE, "Kunne ikke læse pool-tællere", e);
+            }
+        }
+        return new PoolMetricsSnapshot(
+                name,
+                metrics.getCheckoutWaitSnapshot(),
+                metrics.getRetryDistribution(),
+                metrics.getFailedCheckouts(),
+                metrics.getHoldTimeSnapshots(),
+                busy, idle, total, max,
+                metrics.isSaturated());
+    }
+
+    /**
+     * Henter statistik om poolens status som læsbar tekst.
+     *
+     * @return String med pool-statistik
+     */
+    String getStats() {
+        try {
+            StringBuilder stats = new StringBuilder();
+            stats.append("Database Connection Pool Status (").append(name).append("):\n");
+            stats.append("  Forbindelser i brug: ").append(dataSource.getNumBusyConnections()).append("\n");
+            stats.append("  Inaktive forbindelser: ").append(dataSource.getNumIdleConnections()).append("\n");
+            stats.append("  Total forbindelser: ").append(dataSource.getNumConnections()).append("\n");
+            stats.append("  Grænse: ").append(limiter.getLimit()).append(" af ")
+                    .append(dataSource.getMaxPoolSize()).append("\n");
+            stats.append("  Ventende tråde: ").append(dataSource.getThreadPoolNumActiveThreads()).append("\n");
+            stats.append("  Total oprettet: ").append(connectionCounter.get()).append("\n");
+            stats.append("  Total mislykkede forsøg: ").append(failedConnectionCounter.get()).append("\n");
+            stats.append("  Circuit breaker: ").append(circuitBreaker.getState()).append("\n");
+            stats.append("  Checkout ventetid: ").append(metrics.getCheckoutWaitSnapshot());
+            return stats.toString();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Fejl ved hentning af pool statistik", e);
+            return "Kunne ikke hente pool statistik for '" + name + "': " + e.getMessage();
+        }
+    }
+
+    int getConnectionCount() {
+        return connectionCounter.get();
+    }
+
+    int getFailedConnectionCount() {
+        return failedConnectionCounter.get();
+    }
+
+    CircuitBreakerStateEnum getCircuitBreakerState() {
+        return circuitBreaker.getState();
+    }
+
+    long getSaturationThresholdMillis() {
+        return metrics.getSaturationThresholdMillis();
+    }
+
+    void resetMetrics() {
+        metrics.reset();
+    }
+
+    private boolean tryLease() {
+        while (true) {
+            int current = leases.get();
+            if ((current & RETIRED) != 0) {
+                return false;
+            }
+            if (leases.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void releaseLease() {
+        if (leases.decrementAndGet() == RETIRED) {
+            closeRetired();
+        }
+    }
+
+    /**
+     * Trækker poolen tilbage efter en konfigurationsændring. Nye hentninger afvises, så kalderne går
+     * til den nye pool, mens igangværende hentninger og udlånte forbindelser får lov at blive færdige.
+     * Poolen lukkes når den sidste forbindelse er returneret, eller senest efter drainTimeoutMillis.
+     *
+     * @param drainTimeoutMillis Maksimal ventetid før poolen lukkes alligevel
+     * @param scheduler          Scheduler til den tvungne lukning
+     */
+    void retire(long drainTimeoutMillis, ScheduledExecutorService scheduler) {
+        if (adaptiveTask != null) {
+            adaptiveTask.cancel(false);
+        }
+        int outstanding = leases.getAndUpdate(current -> current | RETIRED);
+        if ((outstanding & RETIRED) != 0) {
+            return;
+        }
+        if (outstanding == 0) {
+            closeRetired();
+            return;
+        }
+
+        logger.info("Pool '" + name + "' trukket tilbage - venter på " + outstanding + " udlånte forbindelser");
+        forcedCloseTask = scheduler.schedule(() -> {
+            if (!closed) {
+                String message = "Pool '" + name + "' lukket efter " + drainTimeoutMillis + " ms med " +
+                        (leases.get() & ~RETIRED) + " forbindelser stadig udlånt";
+                logger.warning(message);
+                log.warning(message);
+                close();
+            }
+        }, drainTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void closeRetired() {
+        ScheduledFuture<?> task = forcedCloseTask;
+        if (task != null) {
+            task.cancel(false);
+        }
+        close();
+    }
+
+    /**
+     * Lukker poolen. Forbindelser der er i brug lukkes når de returneres.
+     */
+    synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (adaptiveTask != null) {
+            adaptiveTask.cancel(false);
+        }
+        // Forsøg der allerede er i kø kører færdigt; nye afvises
+        acquireExecutor.shutdown();
+        dataSource.close();
+
+        // Log endelige forbindelsesstatistikker
+        logger.info("Pool '" + name + "' lukket - forbindelser oprettet: " + connectionCounter.get() +
+                ", mislykkede forsøg: " + failedConnectionCounter.get());
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+}
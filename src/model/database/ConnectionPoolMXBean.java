@@ -0,0 +1,49 @@
+package model.database;
+
+import java.util.Map;
+
+/**
+ * JMX-interface for forbindelsespoolen.
+ * Registreres som "model.database:type=ConnectionPool" og kan læses med fx JConsole eller VisualVM.
+ */
+public interface ConnectionPoolMXBean {
+
+    long getCheckoutCount();
+
+    long getFailedCheckoutCount();
+
+    long getTotalRetries();
+
+    double getCheckoutWaitMeanMillis();
+
+    double getCheckoutWaitP50Millis();
+
+    double getCheckoutWaitP99Millis();
+
+    double getCheckoutWaitMaxMillis();
+
+    int getBusyConnections();
+
+    int getIdleConnections();
+
+    int getMaxPoolSize();
+
+    /**
+     * @return Aktuel grænse for samtidigt udlånte forbindelser (lig maxPoolSize uden adaptiv størrelse)
+     */
+    int getConnectionLimit();
+
+    boolean isSaturated();
+
+    long getSaturationThresholdMillis();
+
+    /**
+     * @return p99 holdetid i millisekunder pr. kaldende metode
+     */
+    Map<String, Double> getHoldTimeP99MillisByCaller();
+
+    /**
+     * Nulstiller alle målinger.
+     */
+    void resetMetrics();
+}
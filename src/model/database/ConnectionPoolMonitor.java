@@ -0,0 +1,105 @@
+package model.database;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * MXBean-implementation der læser målingerne fra én af DatabaseConnection's pools.
+ * Hver attribut tager et nyt snapshot, så værdierne altid er aktuelle - også efter at poolen er genoprettet.
+ */
+class ConnectionPoolMonitor implements ConnectionPoolMXBean {
+
+    static final String OBJECT_NAME_PATTERN = "model.database:type=ConnectionPool,name=%s";
+
+    private final Supplier<ConnectionPool> pool;
+
+    /**
+     * @param pool Leverer den aktuelle pool (kan skifte ved geninitialisering)
+     */
+    ConnectionPoolMonitor(Supplier<ConnectionPool> pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public long getCheckoutCount() {
+        PoolMetricsSnapshot snapshot = snapshot();
+        return snapshot.getCheckoutWait().getCount() - snapshot.getFailedCheckouts();
+    }
+
+    @Override
+    public long getFailedCheckoutCount() {
+        return snapshot().getFailedCheckouts();
+    }
+
+    @Override
+    public long getTotalRetries() {
+        return snapshot().getTotalRetries();
+    }
+
+    @Override
+    public double getCheckoutWaitMeanMillis() {
+        return snapshot().getCheckoutWait().getMeanMillis();
+    }
+
+    @Override
+    public double getCheckoutWaitP50Millis() {
+        return snapshot().getCheckoutWait().getP50Millis();
+    }
+
+    @Override
+    public double getCheckoutWaitP99Millis() {
+        return snapshot().getCheckoutWait().getP99Millis();
+    }
+
+    @Override
+    public double getCheckoutWaitMaxMillis() {
+        return snapshot().getCheckoutWait().getMaxMillis();
+    }
+
+    @Override
+    public int getBusyConnections() {
+        return snapshot().getBusyConnections();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return snapshot().getIdleConnections();
+    }
+
+    @Override
+    public int getMaxPoolSize() {
+        return snapshot().getMaxPoolSize();
+    }
+
+    @Override
+    public int getConnectionLimit() {
+        return pool.get().getConnectionLimit();
+    }
+
+    @Override
+    public boolean isSaturated() {
+        return snapshot().isSaturated();
+    }
+
+    @Override
+    public long getSaturationThresholdMillis() {
+        return pool.get().getSaturationThresholdMillis();
+    }
+
+    @Override
+    public Map<String, Double> getHoldTimeP99MillisByCaller() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        snapshot().getHoldTimeByCaller().forEach((caller, hold) -> result.put(caller, hold.getP99Millis()));
+        return result;
+    }
+
+    @Override
+    public void resetMetrics() {
+        pool.get().resetMetrics();
+    }
+
+    private PoolMetricsSnapshot snapshot() {
+        return pool.get().getMetricsSnapshot();
+    }
+}
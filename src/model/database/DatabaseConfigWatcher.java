@@ -0,0 +1,117 @@
+package model.database;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Overvåger database.properties med en WatchService og beder DatabaseConnection genindlæse
+ * konfigurationen når filen ændres. Editorer skriver ofte filen i flere omgange, så der ventes
+ * til filen har været uændret et øjeblik før genindlæsningen.
+ */
+class DatabaseConfigWatcher implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(DatabaseConfigWatcher.class.getName());
+
+    // Ventetid efter sidste ændring før filen genindlæses
+    private static final long DEBOUNCE_MILLIS = 500;
+
+    private final Path configFile;
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * Starter overvågningen på en baggrundstråd.
+     *
+     * @param configFile Filen der overvåges
+     * @param onChange   Kaldes på overvågningstråden når filen er ændret
+     * @throws IOException hvis mappen ikke kan overvåges
+     */
+    DatabaseConfigWatcher(Path configFile, Runnable onChange) throws IOException {
+        this.configFile = configFile.toAbsolutePath().normalize();
+        this.onChange = onChange;
+        this.watchService = FileSystems.getDefault().newWatchService();
+
+        // WatchService overvåger mapper - filtrér på filnavnet når der kommer events
+        this.configFile.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+
+        this.thread = new Thread(this::watch, "db-config-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        logger.info("Overvåger " + this.configFile + " for ændringer");
+    }
+
+    /**
+     * @param configFile Filen der skal overvåges
+     * @return true hvis filen findes som almindelig fil (og ikke kun i classpath)
+     */
+    static boolean canWatch(Path configFile) {
+        return Files.isRegularFile(configFile) && configFile.toAbsolutePath().getParent() != null;
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = containsConfigFile(key);
+                key.reset();
+                if (!changed) {
+                    continue;
+                }
+
+                // Saml efterfølgende events fra samme gemning
+                WatchKey next;
+                while ((next = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    next.pollEvents();
+                    next.reset();
+                }
+
+                try {
+                    onChange.run();
+                } catch (RuntimeException e) {
+                    logger.log(Level.WARNING, "Fejl ved genindlæsning af " + configFile, e);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Overvågningen er stoppet
+        }
+    }
+
+    private boolean containsConfigFile(WatchKey key) {
+        boolean found = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                return true;
+            }
+            Object context = event.context();
+            if (context instanceof Path && configFile.getFileName().equals(context)) {
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Stopper overvågningen.
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Fejl ved lukning af WatchService", e);
+        }
+        thread.interrupt();
+    }
+}
@@ -1,6 +1,7 @@
 package model.database;
 
-import com.mchange.v2.c3p0.ComboPooledDataSource;
+import model.enums.CircuitBreakerStateEnum;
+import model.enums.WorkloadEnum;
 import model.events.SystemEvents;
 import model.log.Log;
 import model.util.EventBus;
@@ -8,38 +9,95 @@ import model.util.EventBus;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /**
  * Singleton klasse til at håndtere database forbindelser med connection pool.
  * Opdateret til at arbejde med Neon PostgreSQL.
+ * Skrivninger går altid til den primære pool. Er en read replica konfigureret (db.replica.url),
+ * sendes læsninger fra getReadConnection() dertil - undtagen i et kort vindue efter en skrivning,
+ * så brugeren altid ser sine egne ændringer.
+ * Baggrunds- og rapporttrafik kan få sine egne pools (db.workload.&lt;type&gt;.*), valgt med
+ * WorkloadScope eller en eksplicit WorkloadEnum, så de ikke kan udsulte den interaktive trafik.
  */
 public class DatabaseConnection {
     private static final Logger logger = Logger.getLogger(DatabaseConnection.class.getName());
     private static final Log log = Log.getInstance();
     private static final EventBus eventBus = EventBus.getInstance();
 
-    // Connection pool
-    private static ComboPooledDataSource cpds;
-    private static boolean initialized = false;
-    private static boolean poolClosed = false;
+    // Connection pools - erstattes samlet ved (gen)indlæsning, så kaldere aldrig ser en halvt opbygget konfiguration
+    private static volatile PoolGroup pools;
+    private static volatile boolean initialized = false;
+    private static volatile boolean poolClosed = false;
+
+    // Finder forbindelser der holdes for længe og indlejrede hentninger
+    private static final LeakDetector leakDetector = LeakDetector.getInstance();
+    private static ScheduledFuture<?> leakScanTask;
+
+    // Latens, kald og rækker pr. SQL-skabelon samt N+1-detektion
+    private static final SqlProfiler sqlProfiler = SqlProfiler.getInstance();
+    private static final IdentityMap identityMap = IdentityMap.getInstance();
+
+    // Fuldføres når poolerne er varmet op efter (gen)initialisering
+    private static volatile CompletableFuture<Void> readiness = new CompletableFuture<>();
+
+    // Udskiftning af pools sker én ad gangen
+    private static final Object reloadLock = new Object();
+    private static DatabaseConfigWatcher configWatcher;
 
     // Sti til konfigurationsfilen
     private static final String CONFIG_FILE = "src/main/resources/config/database.properties";
 
-    // Forbindelsesstatistik
-    private static final AtomicInteger connectionCounter = new AtomicInteger(0);
-    private static final AtomicInteger failedConnectionCounter = new AtomicInteger(0);
+    // Præfiks for nøgler der kan overskrives med system properties, fx -Ddb.replica.url=...
+    private static final String OVERRIDE_PREFIX = "db.";
+
+    // Præfiks for tidsbudgetter pr. DataModel-operation, fx db.deadline.refreshCachesMs
+    private static final String DEADLINE_PREFIX = "db.deadline.";
 
     // Maksimalt antal genforsøg
-    private static final int MAX_RETRY_ATTEMPTS = 3;
+    private static final int MAX_RETRY_ATTEMPTS = ConnectionPool.MAX_RETRY_ATTEMPTS;
+
+    // Periodiske opgaver for poolerne, fx adaptiv størrelse og planlagte genforsøg
+    private static final ScheduledExecutorService poolScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "db-pool-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Read-your-writes: læsninger går til primæren så længe en skrivning er nyere end vinduet
+    private static final long NO_WRITE = Long.MIN_VALUE;
+    private static final AtomicLong lastWriteNanos = new AtomicLong(NO_WRITE);
 
     static {
+        registerMBean(PoolGroup.PRIMARY_POOL, () -> pools.getPrimary());
+
         try {
             // Initialiser connection pool
             initializeConnectionPool();
@@ -52,67 +110,34 @@ public class DatabaseConnection {
                     "Fejl ved initialisering af database forbindelsespool",
                     null,
                     e));
+            readiness.completeExceptionally(e);
         }
     }
 
     /**
-     * Initialiserer forbindelsespoolen med værdier fra properties-fil eller standardværdier.
+     * Initialiserer forbindelsespoolerne med værdier fra properties-fil eller standardværdier.
      */
     private static void initializeConnectionPool() {
         if (initialized && !poolClosed) {
             return;
         }
 
-        try {
-            // Opret en ny connection pool
-            cpds = new ComboPooledDataSource();
+        if (readiness.isDone()) {
+            readiness = new CompletableFuture<>();
+        }
 
+        try {
             // Indlæs konfiguration fra properties-fil
             Properties dbProps = loadDatabaseProperties();
 
-            // Sæt database driver
-            cpds.setDriverClass(dbProps.getProperty("db.driver"));
-
-            // Sæt database connection info
-            cpds.setJdbcUrl(dbProps.getProperty("db.url"));
-            cpds.setUser(dbProps.getProperty("db.user"));
-            cpds.setPassword(dbProps.getProperty("db.password"));
-
-            // Konfigurer pool-størrelse
-            cpds.setInitialPoolSize(3);  // Start med færre forbindelser for serverless
-            cpds.setMinPoolSize(1);      // Minimum kan være lavere for serverless
-            cpds.setMaxPoolSize(10);     // Begræns max forbindelser for serverless
-            cpds.setAcquireIncrement(1); // Forøg med 1 ad gangen
-
-            // Konfigurer statement caching
-            cpds.setMaxStatements(50);
-
-            // Konfigurer forbindelsestest - vigtigt for serverless
-            cpds.setIdleConnectionTestPeriod(60);  // Test inaktive forbindelser hvert minut
-            cpds.setTestConnectionOnCheckout(true); // Test ved hentning af forbindelse
-            cpds.setTestConnectionOnCheckin(true);  // Test ved returnering af forbindelse
+            // Indstillingerne læses før poolene oprettes, så en ugyldig værdi ikke efterlader åbne pools
+            PoolGroup.validate(dbProps);
+            applySettings(dbProps);
 
-            // Konfigurer timeouts - kortere for serverless
-            cpds.setCheckoutTimeout(20000);  // 20 sekunder timeout for forbindelseshentning
-            cpds.setMaxIdleTime(300);        // 5 minutter max inaktivitetstid
-            cpds.setMaxConnectionAge(1800);  // 30 minutter max forbindelsesalder
-
-            // Konfigurer automatisk forbindelsestest
-            cpds.setPreferredTestQuery("SELECT 1");
-
-            // Konfigurer retry-indstillinger
-            cpds.setAcquireRetryAttempts(5);    // Flere forsøg for serverless
-            cpds.setAcquireRetryDelay(500);     // Et halvt sekund mellem forsøg
-
-            // Aktivér forbindelses-reset ved lukning
-            cpds.setAutoCommitOnClose(true);
-
-            // Tilføj forbindelsesegenskaber specifikt for Neon
-            // I initializeConnectionPool-metoden
-            Properties properties = new Properties();
-            properties.setProperty("user", dbProps.getProperty("db.user"));
-            properties.setProperty("password", dbProps.getProperty("db.password"));
-            cpds.setProperties(properties);
+            // Opret den primære pool, evt. read replica og evt. pools pr. trafiktype
+            PoolGroup group = PoolGroup.create(dbProps, poolScheduler);
+            registerMBeans(group);
+            pools = group;
 
             initialized = true;
             poolClosed = false;
@@ -120,9 +145,13 @@ public class DatabaseConnection {
             logger.info("Database forbindelsespool initialiseret med Neon PostgreSQL");
             log.info("Database forbindelsespool initialiseret med Neon PostgreSQL");
 
-            // Nulstil tællere
-            connectionCounter.set(0);
-            failedConnectionCounter.set(0);
+            // Opret/opdater skemaet før DAO'erne tager forbindelser i brug
+            if (Boolean.parseBoolean(dbProps.getProperty("db.migration.enabled", "true"))) {
+                runMigrations(group);
+            }
+
+            startWarmUp(group, dbProps);
+            startConfigWatcher(dbProps);
 
         } catch (Exception e) {
             logger.log(Level.SEVERE, "Fejl ved konfiguration af database forbindelsespool", e);
@@ -138,12 +167,185 @@ public class DatabaseConnection {
         }
     }
 
+    /**
+     * Konfigurerer lækdetektoren og starter den periodiske gennemgang af udlånte forbindelser.
+     */
+    private static synchronized void configureLeakDetector(Properties dbProps) {
+        long holdThresholdMillis = Long.parseLong(dbProps.getProperty("db.leak.holdThresholdMs", "10000").trim());
+        leakDetector.configure(
+                Boolean.parseBoolean(dbProps.getProperty("db.leak.enabled", "true").trim()),
+                holdThresholdMillis,
+                Double.parseDouble(dbProps.getProperty("db.leak.sampleRate", "0.05").trim()));
+
+        if (leakScanTask != null) {
+            leakScanTask.cancel(false);
+        }
+        // Gennemgå to gange pr. grænse, så en forbindelse rapporteres senest 1,5 x grænsen efter hentning
+        long scanIntervalMillis = Math.max(100, holdThresholdMillis / 2);
+        leakScanTask = poolScheduler.scheduleWithFixedDelay(leakDetector::scan,
+                scanIntervalMillis, scanIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static void configureSqlProfiler(Properties dbProps) {
+        sqlProfiler.configure(
+                Boolean.parseBoolean(dbProps.getProperty("db.profiler.enabled", "true").trim()),
+                Integer.parseInt(dbProps.getProperty("db.profiler.nPlusOneThreshold", "10").trim()),
+                Long.parseLong(dbProps.getProperty("db.profiler.operationGapMs", "50").trim()));
+    }
+
+    /**
+     * Læser tidsbudgetter for DataModel-operationer: db.deadline.defaultMs og db.deadline.&lt;operation&gt;Ms.
+     */
+    private static void configureDeadlines(Properties dbProps) {
+        Map<String, Long> budgets = new HashMap<>();
+        for (String key : dbProps.stringPropertyNames()) {
+            if (key.startsWith(DEADLINE_PREFIX) && key.endsWith("Ms") && !key.equals(DEADLINE_PREFIX + "defaultMs")) {
+                String operation = key.substring(DEADLINE_PREFIX.length(), key.length() - "Ms".length());
+                budgets.put(operation, Long.parseLong(dbProps.getProperty(key).trim()));
+            }
+        }
+        Deadline.configure(Long.parseLong(dbProps.getProperty(DEADLINE_PREFIX + "defaultMs", "5000").trim()), budgets);
+    }
+
+    /**
+     * Henter antal operationer der har overskredet deres tidsbudget.
+     *
+     * @return Antal pr. DataModel-operation, fx "getAllLaptops"
+     */
+    public static Map<String, Long> getTimeoutCounts() {
+        return Deadline.getTimeoutCounts();
+    }
+
+    /**
+     * Henter identity map'ets hits og misses siden start eller seneste resetMetrics.
+     *
+     * @return Antal hits, misses og entiteter i hukommelsen
+     */
+    public static String getIdentityMapStats() {
+        return identityMap.toString();
+    }
+
+    /**
+     * Henter de SQL-skabeloner der har brugt mest tid i alt.
+     *
+     * @param limit Maksimalt antal skabeloner
+     * @return Skabelonerne med latens, kald, rækker og N+1-fund, størst samlet tid først
+     */
+    public static List<SqlStatementSnapshot> getSqlProfile(int limit) {
+        return sqlProfiler.getTopStatements(limit);
+    }
+
+    /**
+     * Skriver top-N SQL-profilen til loggen.
+     *
+     * @param limit Maksimalt antal skabeloner
+     */
+    public static void logSqlProfile(int limit) {
+        String report = sqlProfiler.getReport(limit);
+        logger.info(report);
+        log.info(report);
+    }
+
+    /**
+     * Henter en oversigt over udlånte forbindelser, forbindelser holdt over grænsen og indlejrede hentninger.
+     *
+     * @return Læsbar rapport
+     */
+    public static String getLeakReport() {
+        return leakDetector.getReport();
+    }
+
+    /**
+     * Varmer poolerne op i baggrunden og melder klar når det er sket.
+     * Fejler opvarmningen, meldes der alligevel klar - forespørgslerne åbner så selv forbindelserne.
+     */
+    private static void startWarmUp(PoolGroup group, Properties dbProps) {
+        CompletableFuture<Void> ready = readiness;
+        if (!Boolean.parseBoolean(dbProps.getProperty("db.warmup.enabled", "true"))) {
+            ready.complete(null);
+            return;
+        }
+
+        long start = System.nanoTime();
+        warmUp(group).whenComplete((warmed, e) -> {
+            long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            String message = "Database klar - " + warmed + " forbindelser varmet op på " + durationMillis + " ms";
+            logger.info(message);
+            log.info(message);
+
+            eventBus.post(new SystemEvents.DatabaseReadyEvent(warmed, durationMillis));
+            ready.complete(null);
+        });
+    }
+
+    /**
+     * Varmer alle gruppens pools op parallelt.
+     *
+     * @return Future med det samlede antal opvarmede forbindelser - fejler aldrig
+     */
+    private static CompletableFuture<Integer> warmUp(PoolGroup group) {
+        List<String> statements = new ArrayList<>();
+        statements.addAll(LaptopDAO.hotStatements());
+        statements.addAll(StudentDAO.hotStatements());
+        statements.addAll(ReservationDAO.hotStatements());
+        statements.addAll(QueueDAO.hotStatements());
+
+        CompletableFuture<Integer> total = CompletableFuture.completedFuture(0);
+        for (ConnectionPool pool : group.getAll()) {
+            CompletableFuture<Integer> warmed = pool.warmUp(statements).exceptionally(e -> {
+                logger.log(Level.WARNING, "Opvarmning af pool '" + pool.getName() + "' mislykkedes", e);
+                log.warning("Opvarmning af pool '" + pool.getName() + "' mislykkedes: " + e.getMessage());
+                return 0;
+            });
+            total = total.thenCombine(warmed, Integer::sum);
+        }
+        return total;
+    }
+
+    /**
+     * @return true når poolerne er varmet op og klar til trafik
+     */
+    public static boolean isReady() {
+        CompletableFuture<Void> ready = readiness;
+        return ready.isDone() && !ready.isCompletedExceptionally();
+    }
+
+    /**
+     * Giver besked når poolerne er varmet op, fx så en brugerflade kan vente med de første forespørgsler.
+     *
+     * @return Future der fuldføres når databasen er klar, eller fejler hvis initialiseringen fejlede
+     */
+    public static CompletableFuture<Void> whenReady() {
+        return readiness.copy();
+    }
+
+    /**
+     * Kører versionerede skema-migreringer med en forbindelse direkte fra den primære pool.
+     * En fejlet migrering lukker ikke poolen - systemet kan stadig køre mod det eksisterende skema.
+     */
+    private static void runMigrations(PoolGroup group) {
+        try (Connection conn = group.getPrimary().getDataSource().getConnection()) {
+            new SchemaMigrator().migrate(conn);
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Fejl ved migrering af databaseskema", e);
+            log.critical("Fejl ved migrering af databaseskema: " + e.getMessage());
+
+            // Post database error event
+            eventBus.post(new SystemEvents.DatabaseErrorEvent(
+                    "Fejl ved migrering af databaseskema",
+                    e.getSQLState(),
+                    e));
+        }
+    }
+
     /**
      * Indlæser database-egenskaber fra konfigurationsfilen.
+     * System properties der starter med "db." overskriver filens værdier, så fx en test kan pege
+     * primær og replica på lokale databaser.
      *
      * @return Properties-objekt med databasekonfiguration
      */
-    private static Properties loadDatabaseProperties() {
+    static Properties loadDatabaseProperties() {
         Properties properties = new Properties();
         try {
             // Først forsøg med ClassLoader for at finde filen i classpath
@@ -161,6 +363,13 @@ public class DatabaseConnection {
             logger.warning("Kunne ikke indlæse database.properties: " + e.getMessage());
             // Fortsæt uden konfiguration - vil fejle senere med bedre fejlbesked
         }
+
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(OVERRIDE_PREFIX)) {
+                properties.setProperty(name, System.getProperty(name));
+                logger.fine("Databasekonfiguration overskrevet af system property: " + name);
+            }
+        }
         return properties;
     }
 
@@ -172,94 +381,284 @@ public class DatabaseConnection {
     }
 
     /**
-     * Henter en forbindelse fra poolen med retry-mekanisme.
+     * Henter en forbindelse fra den primære pool med retry-mekanisme.
+     * Bruges til skrivninger og til læsninger der skal se seneste commit.
+     * Venter på getConnectionAsync(), så genforsøg og circuit breaker er de samme for begge API'er.
      *
      * @return Database forbindelse
      * @throws SQLException hvis der er problemer med at etablere forbindelsen
      */
     public static Connection getConnection() throws SQLException {
-        if (poolClosed) {
-            throw new SQLException("Connection pool er lukket");
+        return await(getConnectionAsync(WorkloadScope.current()));
+    }
+
+    /**
+     * Henter en forbindelse til skrivning fra poolen for en bestemt trafiktype.
+     *
+     * @param workload Trafiktypen kaldet tilhører
+     * @return Database forbindelse
+     * @throws SQLException hvis der er problemer med at etablere forbindelsen
+     */
+    public static Connection getConnection(WorkloadEnum workload) throws SQLException {
+        return await(getConnectionAsync(workload));
+    }
+
+    /**
+     * Henter en forbindelse fra den primære pool uden at blokere den kaldende tråd.
+     * Fejlede forsøg gentages med eksponentiel backoff og jitter. Mens circuit breakeren er åben
+     * fejler kaldet med det samme i stedet for at vente på en database der er nede.
+     *
+     * @return Future der fuldføres med en forbindelse, eller med en SQLException
+     */
+    public static CompletableFuture<Connection> getConnectionAsync() {
+        return getConnectionAsync(WorkloadScope.current());
+    }
+
+    /**
+     * Henter en forbindelse til skrivning for en bestemt trafiktype uden at blokere den kaldende tråd.
+     *
+     * @param workload Trafiktypen kaldet tilhører
+     * @return Future der fuldføres med en forbindelse, eller med en SQLException
+     */
+    public static CompletableFuture<Connection> getConnectionAsync(WorkloadEnum workload) {
+        CompletableFuture<Connection> failed = ensureInitialized();
+        if (failed != null) {
+            return failed;
         }
 
-        if (!initialized) {
-            initializeConnectionPool();
+        // Kalderen skal findes på den kaldende tråd - forsøgene kører på poolens acquire-executor
+        String caller = ConnectionMetrics.resolveCaller();
+        Supplier<CompletableFuture<Connection>> acquisition =
+                () -> acquire(group -> poolFor(group, workload), caller, DatabaseConnection::markWrite);
+
+        // Inden for en unit of work deler alle DAO-kald én forbindelse
+        CompletableFuture<Connection> joined = UnitOfWork.joinCurrent(acquisition);
+        return joined != null ? joined : acquisition.get();
+    }
+
+    /**
+     * Henter en forbindelse til en læseoperation.
+     * Går til read replicaen hvis den er konfigureret og der ikke netop er skrevet til primæren;
+     * ellers til primæren. Fejler replicaen, bruges primæren i stedet.
+     *
+     * @return Database forbindelse der kun må bruges til læsning
+     * @throws SQLException hvis der er problemer med at etablere forbindelsen
+     */
+    public static Connection getReadConnection() throws SQLException {
+        return await(getReadConnectionAsync(WorkloadScope.current()));
+    }
+
+    /**
+     * Henter en forbindelse til en læseoperation for en bestemt trafiktype.
+     * Har trafiktypen sin egen pool, bruges den; ellers routes som getReadConnection().
+     *
+     * @param workload Trafiktypen kaldet tilhører
+     * @return Database forbindelse der kun må bruges til læsning
+     * @throws SQLException hvis der er problemer med at etablere forbindelsen
+     */
+    public static Connection getReadConnection(WorkloadEnum workload) throws SQLException {
+        return await(getReadConnectionAsync(workload));
+    }
+
+    /**
+     * Henter en forbindelse til en læseoperation uden at blokere den kaldende tråd.
+     *
+     * @return Future der fuldføres med en forbindelse, eller med en SQLException
+     * @see #getReadConnection()
+     */
+    public static CompletableFuture<Connection> getReadConnectionAsync() {
+        return getReadConnectionAsync(WorkloadScope.current());
+    }
+
+    /**
+     * Henter en forbindelse til en læseoperation for en bestemt trafiktype uden at blokere den kaldende tråd.
+     *
+     * @param workload Trafiktypen kaldet tilhører
+     * @return Future der fuldføres med en forbindelse, eller med en SQLException
+     * @see #getReadConnection(WorkloadEnum)
+     */
+    public static CompletableFuture<Connection> getReadConnectionAsync(WorkloadEnum workload) {
+        CompletableFuture<Connection> failed = ensureInitialized();
+        if (failed != null) {
+            return failed;
         }
 
-        int attempts = 0;
-        SQLException lastException = null;
+        String caller = ConnectionMetrics.resolveCaller();
 
-        while (attempts < MAX_RETRY_ATTEMPTS) {
-            try {
-                Connection conn = cpds.getConnection();
+        // Inden for en unit of work læses på transaktionens forbindelse, så egne skrivninger ses
+        CompletableFuture<Connection> joined = UnitOfWork.joinCurrent(
+                () -> acquire(group -> poolFor(group, workload), caller, DatabaseConnection::markWrite));
+        if (joined != null) {
+            return joined;
+        }
 
-                // Log connection checkout
-                connectionCounter.incrementAndGet();
+        while (true) {
+            PoolGroup group = pools;
+            ConnectionPool readPool = readPoolFor(group, workload);
+            CompletableFuture<Connection> future = readPool.acquireAsync(caller, null);
+            if (future == null) {
+                // Poolen blev netop udskiftet - vælg igen i den nye konfiguration
+                continue;
+            }
+            if (readPool != group.getReplica()) {
+                return future;
+            }
+            return future.exceptionallyCompose(e -> {
+                logger.log(Level.FINE, "Read replica utilgængelig - læser fra primæren", e);
+                return acquire(PoolGroup::getPrimary, caller, null);
+            });
+        }
+    }
 
-                // Log forbindelseshentning på højt debug-niveau
-                if (logger.isLoggable(Level.FINE)) {
-                    logger.fine("Database forbindelse hentet fra pool (total: " +
-                            connectionCounter.get() + ")");
-                }
+    /**
+     * @return true hvis der er konfigureret en read replica
+     */
+    public static boolean hasReadReplica() {
+        PoolGroup group = pools;
+        return group != null && group.getReplica() != null && !group.getReplica().isClosed();
+    }
 
-                return conn;
-            } catch (SQLException e) {
-                attempts++;
-                lastException = e;
-
-                failedConnectionCounter.incrementAndGet();
-                logger.log(Level.WARNING, "Fejl ved hentning af database forbindelse (forsøg " +
-                        attempts + "): " + e.getMessage(), e);
-
-                if (attempts < MAX_RETRY_ATTEMPTS) {
-                    try {
-                        // Vent før næste forsøg - længere for serverless pga. potentielle cold starts
-                        Thread.sleep(1000 * attempts); // Stigende forsinkelse mellem forsøg
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                }
+    /**
+     * Henter en forbindelse fra den pool selector vælger i den aktuelle konfiguration.
+     * Er poolen trukket tilbage af en genindlæsning mellem valget og hentningen, vælges igen
+     * i den nye konfiguration, så ingen kaldere fejler under et skift.
+     */
+    private static CompletableFuture<Connection> acquire(Function<PoolGroup, ConnectionPool> selector,
+                                                         String caller, Runnable releaseListener) {
+        while (true) {
+            CompletableFuture<Connection> future = selector.apply(pools).acquireAsync(caller, releaseListener);
+            if (future != null) {
+                return future;
             }
         }
+    }
 
-        // Log pool-status ved fejl
-        logPoolStatus();
+    /**
+     * @param workload Trafiktypen
+     * @return Poolen trafiktypen skriver gennem - den primære hvis typen ikke har sin egen
+     */
+    private static ConnectionPool poolFor(PoolGroup group, WorkloadEnum workload) {
+        ConnectionPool pool = group.getWorkloadPool(workload);
+        return pool != null ? pool : group.getPrimary();
+    }
 
-        // Hvis vi når hertil, er alle forsøg mislykkedes
-        String errorMsg = "Kunne ikke etablere databaseforbindelse efter " +
-                MAX_RETRY_ATTEMPTS + " forsøg";
+    /**
+     * Vælger poolen til en læsning. En trafiktype med egen pool læser altid derfra - poolens url
+     * kan selv pege på replicaen. Ellers bruges replicaen, undtagen lige efter en skrivning.
+     */
+    private static ConnectionPool readPoolFor(PoolGroup group, WorkloadEnum workload) {
+        ConnectionPool workloadPool = group.getWorkloadPool(workload);
+        if (workloadPool != null) {
+            return workloadPool;
+        }
+
+        ConnectionPool readPool = group.getReplica();
+        if (readPool == null || readPool.isClosed() || isWithinStickyWindow(group)) {
+            return group.getPrimary();
+        }
+        return readPool;
+    }
 
-        log.error(errorMsg + ": " +
-                (lastException != null ? lastException.getMessage() : "Ukendt fejl"));
+    /**
+     * @return Alle aktive pools: primær, evt. replica og evt. pools pr. trafiktype
+     */
+    private static List<ConnectionPool> allPools() {
+        PoolGroup group = pools;
+        return group != null ? group.getAll() : new ArrayList<>();
+    }
 
-        // Post database error event
-        eventBus.post(new SystemEvents.DatabaseErrorEvent(
-                errorMsg,
-                lastException != null ? lastException.getSQLState() : null,
-                lastException));
+    /**
+     * Registrerer at en forbindelse der kan have skrevet er lukket.
+     */
+    private static void markWrite() {
+        lastWriteNanos.set(System.nanoTime());
+    }
 
-        throw lastException != null ? lastException :
-                new SQLException(errorMsg);
+    private static boolean isWithinStickyWindow(PoolGroup group) {
+        long lastWrite = lastWriteNanos.get();
+        return lastWrite != NO_WRITE && System.nanoTime() - lastWrite < group.getStickyWindowNanos();
     }
 
     /**
-     * Lukker forbindelsespoolen - kald denne ved programafslutning.
+     * Sikrer at poolerne er klar.
+     *
+     * @return En fejlet future hvis poolen ikke kan bruges, ellers null
      */
-    public static void closePool() {
-        if (cpds != null && !poolClosed) {
-            logger.info("Lukker database forbindelsespool");
-            log.info("Lukker database forbindelsespool");
+    private static CompletableFuture<Connection> ensureInitialized() {
+        if (poolClosed) {
+            return CompletableFuture.failedFuture(new SQLException("Connection pool er lukket"));
+        }
 
-            // Luk poolen
-            cpds.close();
+        if (!initialized) {
+            try {
+                initializeConnectionPool();
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(
+                        new SQLException("Kunne ikke initialisere database forbindelsespool", e));
+            }
+        }
+        return null;
+    }
 
-            poolClosed = true;
-            initialized = false;
+    /**
+     * Venter på en asynkron hentning og omsætter fejl til SQLException.
+     */
+    private static Connection await(CompletableFuture<Connection> future) throws SQLException {
+        // Inden for en Deadline ventes højst den resterende tid
+        Deadline deadline = Deadline.current();
+        try {
+            if (deadline == null) {
+                return future.get();
+            }
+            long remainingMillis = deadline.remainingMillis();
+            if (remainingMillis <= 0) {
+                future.cancel(false);
+                throw deadline.timeout("getConnection", "deadline overskredet før hentning af forbindelse");
+            }
+            return future.get(remainingMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw deadline.timeout("getConnection", "ingen ledig forbindelse inden for budgettet");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // En forbindelse der når frem efter annulleringen lukkes af poolen
+            future.cancel(false);
+            throw new SQLException("Afbrudt under hentning af databaseforbindelse", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException("Fejl ved hentning af databaseforbindelse", cause);
+        }
+    }
 
-            // Log endelige forbindelsesstatistikker
-            logger.info("Total antal forbindelser oprettet: " + connectionCounter.get());
-            logger.info("Total antal mislykkede forbindelsesforsøg: " + failedConnectionCounter.get());
+    /**
+     * @return Circuit breakerens aktuelle tilstand for den primære pool
+     */
+    public static CircuitBreakerStateEnum getCircuitBreakerState() {
+        return pools.getPrimary().getCircuitBreakerState();
+    }
+
+    /**
+     * Lukker forbindelsespoolerne - kald denne ved programafslutning.
+     */
+    public static void closePool() {
+        synchronized (reloadLock) {
+            if (pools != null && !poolClosed) {
+                logger.info("Lukker database forbindelsespool");
+                log.info("Lukker database forbindelsespool");
+
+                // Stop overvågningen af konfigurationen og luk poolerne
+                if (configWatcher != null) {
+                    configWatcher.close();
+                    configWatcher = null;
+                }
+                pools.close();
+
+                poolClosed = true;
+                initialized = false;
+            }
         }
     }
 
@@ -284,19 +683,103 @@ public class DatabaseConnection {
      * @return String med pool-statistik
      */
     public static String getPoolStats() {
+        if (pools == null) {
+            return "Database forbindelsespool er ikke initialiseret";
+        }
+        StringBuilder stats = new StringBuilder();
+        for (ConnectionPool pool : allPools()) {
+            if (stats.length() > 0) {
+                stats.append("\n");
+            }
+            stats.append(pool.getStats());
+        }
+        return stats.toString();
+    }
+
+    /**
+     * Returnerer antal forbindelser hentet fra poolerne siden initialisering.
+     * Da hver DAO-forespørgsel henter sin egen forbindelse, svarer tallet til antal round trips.
+     *
+     * @return Antal hentede forbindelser
+     */
+    public static int getConnectionCount() {
+        int count = 0;
+        for (ConnectionPool pool : allPools()) {
+            count += pool.getConnectionCount();
+        }
+        return count;
+    }
+
+    /**
+     * Tager et maskinlæsbart øjebliksbillede af den primære pools målinger.
+     *
+     * @return Snapshot med ventetid, genforsøg, holdetid pr. kalder og pool-tællere
+     */
+    public static PoolMetricsSnapshot getMetricsSnapshot() {
+        return pools.getPrimary().getMetricsSnapshot();
+    }
+
+    /**
+     * Tager et øjebliksbillede af alle pools målinger.
+     *
+     * @return Snapshot for den primære pool, evt. read replicaen og evt. pools pr. trafiktype
+     */
+    public static List<PoolMetricsSnapshot> getAllMetricsSnapshots() {
+        List<PoolMetricsSnapshot> snapshots = new ArrayList<>();
+        for (ConnectionPool pool : allPools()) {
+            snapshots.add(pool.getMetricsSnapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * Nulstiller ventetids-, genforsøgs- og holdetidsmålingerne for alle pools samt tællingen af
+     * overskredne tidsbudgetter og identity map'ets hits og misses.
+     */
+    public static void resetMetrics() {
+        for (ConnectionPool pool : allPools()) {
+            pool.resetMetrics();
+        }
+        leakDetector.reset();
+        sqlProfiler.reset();
+        Deadline.resetTimeoutCounts();
+        identityMap.resetCounts();
+    }
+
+    /**
+     * @return p99 ventetid i millisekunder hvorover den primære pool regnes for mættet
+     */
+    public static long getSaturationThresholdMillis() {
+        return pools.getPrimary().getSaturationThresholdMillis();
+    }
+
+    /**
+     * Registrerer MXBeans for gruppens øvrige pools. Beans slår poolen op ved hvert kald,
+     * så de følger med når konfigurationen genindlæses.
+     */
+    private static void registerMBeans(PoolGroup group) {
+        if (group.getReplica() != null) {
+            registerMBean(PoolGroup.REPLICA_POOL, () -> pools.getReplica());
+        }
+        for (WorkloadEnum workload : WorkloadEnum.values()) {
+            if (group.getWorkloadPool(workload) != null) {
+                registerMBean(workload.getConfigKey(), () -> pools.getWorkloadPool(workload));
+            }
+        }
+    }
+
+    /**
+     * Registrerer en pools MXBean, så målingerne kan læses over JMX.
+     */
+    private static void registerMBean(String poolName, Supplier<ConnectionPool> pool) {
         try {
-            StringBuilder stats = new StringBuilder();
-            stats.append("Database Connection Pool Status:\n");
-            stats.append("  Forbindelser i brug: ").append(cpds.getNumBusyConnections()).append("\n");
-            stats.append("  Inaktive forbindelser: ").append(cpds.getNumIdleConnections()).append("\n");
-            stats.append("  Total forbindelser: ").append(cpds.getNumConnections()).append("\n");
-            stats.append("  Ventende tråde: ").append(cpds.getThreadPoolNumActiveThreads()).append("\n");
-            stats.append("  Total oprettet: ").append(connectionCounter.get()).append("\n");
-            stats.append("  Total mislykkede forsøg: ").append(failedConnectionCounter.get());
-            return stats.toString();
-        } catch (SQLException e) {
-            logger.log(Level.WARNING, "Fejl ved hentning af pool statistik", e);
-            return "Kunne ikke hente pool statistik: " + e.getMessage();
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(String.format(ConnectionPoolMonitor.OBJECT_NAME_PATTERN, poolName));
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new ConnectionPoolMonitor(pool), name);
+            }
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "Kunne ikke registrere forbindelsespoolens MBean", e);
         }
     }
 
@@ -314,24 +797,20 @@ public class DatabaseConnection {
 
     /**
      * Forsøger at geninitialisere connection pool ved alvorlige problemer.
+     * De gamle pools lukkes først når deres udlånte forbindelser er returneret,
+     * så igangværende forespørgsler ikke afbrydes.
      */
     public static void reinitializePool() {
         logger.warning("Geninitialiserer database forbindelsespool");
         log.warning("Geninitialiserer database forbindelsespool");
 
         try {
-            // Luk den nuværende pool
-            if (cpds != null && !poolClosed) {
-                cpds.close();
-                poolClosed = true;
+            if (!initialized || poolClosed) {
+                initializeConnectionPool();
+            } else {
+                swapPools(loadDatabaseProperties());
             }
 
-            // Nulstil for ny initialisering
-            initialized = false;
-
-            // Opret en ny pool
-            initializeConnectionPool();
-
             logger.info("Database forbindelsespool geninitialiseret succesfuldt");
             log.info("Database forbindelsespool geninitialiseret succesfuldt");
         } catch (Exception e) {
@@ -347,4 +826,163 @@ public class DatabaseConnection {
             throw new RuntimeException("Kunne ikke geninitialisere database forbindelsespool", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Genindlæser database.properties og skifter til nye pools hvis konfigurationen er ændret.
+     * Kaldes af DatabaseConfigWatcher. En ugyldig konfiguration, eller en der ikke kan forbinde,
+     * afvises, og de nuværende pools bruges fortsat.
+     */
+    static void reloadConfiguration() {
+        Properties dbProps = loadDatabaseProperties();
+        PoolGroup current = pools;
+        if (current == null || poolClosed) {
+            return;
+        }
+        if (dbProps.equals(current.getProperties())) {
+            logger.fine("Databasekonfigurationen er uændret - ingen genindlæsning");
+            return;
+        }
+
+        Set<String> changedKeys = changedKeys(current.getProperties(), dbProps);
+        try {
+            swapPools(dbProps);
+
+            String message = "Databasekonfiguration genindlæst - ændrede nøgler: " + changedKeys;
+            logger.info(message);
+            log.info(message);
+            eventBus.post(new SystemEvents.DatabaseConfigReloadedEvent(changedKeys));
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Ny databasekonfiguration afvist - den hidtidige bruges fortsat", e);
+            log.warning("Ny databasekonfiguration afvist - den hidtidige bruges fortsat: " + e.getMessage());
+
+            // Post database error event
+            eventBus.post(new SystemEvents.DatabaseErrorEvent(
+                    "Ny databasekonfiguration afvist",
+                    null,
+                    e));
+        }
+    }
+
+    /**
+     * Skifter til en konfiguration givet i koden i stedet for fra filen, fx fejlinjektionsprofiler
+     * i FaultInjectionBenchmark. Initialiserer poolerne først hvis det ikke allerede er sket.
+     *
+     * @param dbProps Den nye konfiguration
+     * @throws RuntimeException hvis konfigurationen er ugyldig eller ikke kan forbinde
+     */
+    static void applyConfiguration(Properties dbProps) {
+        if (!initialized || poolClosed) {
+            initializeConnectionPool();
+        }
+        swapPools(dbProps);
+    }
+
+    /**
+     * Bygger nye pools ud fra en konfiguration og skifter til dem.
+     * Den nye primære pool skal kunne levere en forbindelse før skiftet. Derefter udskiftes
+     * referencen, og de gamle pools trækkes tilbage: nye hentninger går til de nye pools,
+     * mens forbindelser der allerede er udlånt bruges færdigt.
+     *
+     * @param dbProps Den nye konfiguration
+     * @throws RuntimeException hvis konfigurationen er ugyldig eller ikke kan forbinde
+     */
+    private static void swapPools(Properties dbProps) {
+        synchronized (reloadLock) {
+            if (poolClosed) {
+                throw new IllegalStateException("Connection pool er lukket");
+            }
+
+            // Påkrævede nøgler og talværdier kontrolleres før der bygges noget
+            PoolGroup.validate(dbProps);
+
+            PoolGroup old = pools;
+            PoolGroup group = PoolGroup.create(dbProps, poolScheduler);
+            try {
+                try (Connection conn = group.getPrimary().getDataSource().getConnection()) {
+                    logger.fine("Ny konfiguration verificeret mod " + conn.getMetaData().getURL());
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Ny konfiguration kan ikke forbinde til databasen: " +
+                            e.getMessage(), e);
+                }
+
+                // De nye pools varmes op før de overtager trafikken
+                if (Boolean.parseBoolean(dbProps.getProperty("db.warmup.enabled", "true"))) {
+                    warmUp(group).join();
+                }
+
+                // Peger den nye konfiguration på en anden database, skal dens skema også være opdateret
+                boolean urlChanged = old == null ||
+                        !Objects.equals(dbProps.getProperty("db.url"), old.getProperties().getProperty("db.url"));
+                if (urlChanged && Boolean.parseBoolean(dbProps.getProperty("db.migration.enabled", "true"))) {
+                    runMigrations(group);
+                }
+            } catch (RuntimeException e) {
+                group.close();
+                throw e;
+            }
+
+            // Alle indstillinger læses før skiftet, så en fejl afviser konfigurationen i stedet for
+            // at efterlade de nye pools i brug og de gamle uden at blive trukket tilbage
+            long drainTimeoutMillis;
+            try {
+                applySettings(dbProps);
+                drainTimeoutMillis = Long.parseLong(dbProps.getProperty("db.reload.drainTimeoutMs", "60000").trim());
+            } catch (RuntimeException e) {
+                group.close();
+                if (old != null) {
+                    applySettings(old.getProperties());
+                }
+                throw new IllegalArgumentException("Ugyldig indstilling i ny konfiguration: " + e.getMessage(), e);
+            }
+
+            registerMBeans(group);
+            pools = group;
+
+            if (old != null) {
+                old.retire(drainTimeoutMillis, poolScheduler);
+            }
+        }
+    }
+
+    /**
+     * Konfigurerer lækdetektor, SQL-profiler, tidsbudgetter og identity map.
+     *
+     * @throws RuntimeException hvis en indstilling ikke kan læses
+     */
+    private static void applySettings(Properties dbProps) {
+        configureLeakDetector(dbProps);
+        configureSqlProfiler(dbProps);
+        configureDeadlines(dbProps);
+        identityMap.configure(Boolean.parseBoolean(dbProps.getProperty("db.identityMap.enabled", "true").trim()));
+    }
+
+    /**
+     * @return Nøgler der er tilføjet, fjernet eller ændret - uden værdier, da de kan indeholde adgangskoder
+     */
+    private static Set<String> changedKeys(Properties before, Properties after) {
+        Set<String> keys = new TreeSet<>(before.stringPropertyNames());
+        keys.addAll(after.stringPropertyNames());
+        keys.removeIf(key -> Objects.equals(before.getProperty(key), after.getProperty(key)));
+        return keys;
+    }
+
+    /**
+     * Starter overvågning af konfigurationsfilen, hvis den er slået til og filen ligger på disken.
+     */
+    private static void startConfigWatcher(Properties dbProps) {
+        if (configWatcher != null || !Boolean.parseBoolean(dbProps.getProperty("db.reload.enabled", "true"))) {
+            return;
+        }
+
+        Path configFile = Paths.get(CONFIG_FILE);
+        if (!DatabaseConfigWatcher.canWatch(configFile)) {
+            logger.fine("Konfigurationsfilen findes ikke på disken - genindlæsning er ikke mulig");
+            return;
+        }
+        try {
+            configWatcher = new DatabaseConfigWatcher(configFile, DatabaseConnection::reloadConfiguration);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Kunne ikke overvåge " + CONFIG_FILE + " for ændringer", e);
+        }
+    }
+}
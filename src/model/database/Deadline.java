@@ -0,0 +1,176 @@
+package model.database;
+
+import model.events.SystemEvents;
+import model.log.Log;
+import model.util.EventBus;
+
+import java.sql.SQLTimeoutException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Tidsbudget for en logisk operation, fx et kald til DataModel. Alle databasekald på tråden
+ * inden for scopet deler budgettet: ventetid på en forbindelse begrænses af den resterende tid,
+ * og hver forespørgsel får resten som query timeout. Bruges med try-with-resources:
+ * <pre>
+ * try (Deadline deadline = Deadline.start("getAllLaptops")) {
+ *     laptopDAO.getAll();
+ * }
+ * </pre>
+ * Et indlejret scope kan ikke forlænge det ydre - den tidligste deadline og det ydre
+ * operationsnavn gælder. Uden et scope er der ingen deadline.
+ */
+public final class Deadline implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(Deadline.class.getName());
+    private static final Log log = Log.getInstance();
+    private static final EventBus eventBus = EventBus.getInstance();
+
+    // SQLState for query_canceled - samme som PostgreSQL bruger når statement_timeout rammer
+    static final String QUERY_CANCELED = "57014";
+
+    private static final ThreadLocal<Deadline> current = new ThreadLocal<>();
+    private static final Map<String, LongAdder> timeoutsByOperation = new ConcurrentHashMap<>();
+
+    private static volatile long defaultBudgetMillis = 5000;
+    private static volatile Map<String, Long> budgetByOperation = Collections.emptyMap();
+
+    private final String operation;
+    private final long budgetMillis;
+    private final long deadlineNanos;
+    private final Deadline previous;
+    private boolean closed;
+
+    private Deadline(String operation, long budgetMillis, long deadlineNanos, Deadline previous) {
+        this.operation = operation;
+        this.budgetMillis = budgetMillis;
+        this.deadlineNanos = deadlineNanos;
+        this.previous = previous;
+    }
+
+    /**
+     * Starter en operation med budgettet fra db.deadline.&lt;operation&gt;Ms, ellers db.deadline.defaultMs.
+     *
+     * @param operation Navn på operationen, fx "getAllLaptops"
+     * @return Scope der skal lukkes når operationen er færdig
+     */
+    public static Deadline start(String operation) {
+        Long budget = budgetByOperation.get(operation);
+        return start(operation, budget != null ? budget : defaultBudgetMillis);
+    }
+
+    /**
+     * Starter en operation med et eksplicit budget.
+     *
+     * @param operation    Navn på operationen
+     * @param budgetMillis Tidsbudget i millisekunder. 0 betyder ingen grænse
+     * @return Scope der skal lukkes når operationen er færdig
+     */
+    public static Deadline start(String operation, long budgetMillis) {
+        Deadline outer = current.get();
+        Deadline deadline;
+        if (budgetMillis <= 0) {
+            deadline = outer != null
+                    ? new Deadline(outer.operation, outer.budgetMillis, outer.deadlineNanos, outer)
+                    : new Deadline(operation, 0, 0, null);
+        } else {
+            long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+            if (outer != null && outer.isBounded() && outer.deadlineNanos - deadlineNanos <= 0) {
+                deadline = new Deadline(outer.operation, outer.budgetMillis, outer.deadlineNanos, outer);
+            } else {
+                deadline = new Deadline(outer != null ? outer.operation : operation, budgetMillis, deadlineNanos, outer);
+            }
+        }
+        current.set(deadline);
+        return deadline;
+    }
+
+    /**
+     * @return Deadline for den aktuelle tråd, eller null hvis der ikke er en grænse
+     */
+    static Deadline current() {
+        Deadline deadline = current.get();
+        return deadline != null && deadline.isBounded() ? deadline : null;
+    }
+
+    /**
+     * @param defaultMillis      Budget for operationer uden eget budget, 0 for ingen grænse
+     * @param budgetsByOperation Budget pr. operationsnavn
+     */
+    static void configure(long defaultMillis, Map<String, Long> budgetsByOperation) {
+        defaultBudgetMillis = defaultMillis;
+        budgetByOperation = Collections.unmodifiableMap(budgetsByOperation);
+    }
+
+    String getOperation() {
+        return operation;
+    }
+
+    long getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    private boolean isBounded() {
+        return budgetMillis > 0;
+    }
+
+    /**
+     * @return Resterende tid i millisekunder, 0 eller negativ hvis deadline er overskredet
+     */
+    long remainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Registrerer at operationen har overskredet sit budget og bygger fejlen der kastes til kalderen.
+     *
+     * @param caller Kaldende metode eller skridt, fx "LaptopDAO.getAll"
+     * @param detail Hvad der ventede, fx SQL-skabelonen
+     * @return Fejl med SQLState 57014
+     */
+    SQLTimeoutException timeout(String caller, String detail) {
+        timeoutsByOperation.computeIfAbsent(operation, key -> new LongAdder()).increment();
+
+        String message = "Operationen '" + operation + "' overskred sit budget på " + budgetMillis +
+                " ms i " + caller + ": " + detail;
+        logger.warning(message);
+        log.warning(message);
+        eventBus.post(new SystemEvents.QueryTimeoutEvent(operation, caller, budgetMillis));
+
+        return new SQLTimeoutException(message, QUERY_CANCELED);
+    }
+
+    /**
+     * @return Antal overskredne budgetter pr. operation siden start eller seneste nulstilling
+     */
+    static Map<String, Long> getTimeoutCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        timeoutsByOperation.forEach((operation, count) -> counts.put(operation, count.sum()));
+        return counts;
+    }
+
+    static void resetTimeoutCounts() {
+        timeoutsByOperation.clear();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (previous != null) {
+            current.set(previous);
+        } else {
+            current.remove();
+        }
+    }
+}
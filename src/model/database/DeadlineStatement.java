@@ -0,0 +1,99 @@
+package model.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Proxy omkring et statement der giver hver udførelse den resterende tid af trådens Deadline
+ * som query timeout. Driveren annullerer forespørgslen på serveren når tiden er gået, så
+ * forbindelsen frigives i stedet for at vente på en langsom forespørgsel.
+ * setQueryTimeout tager hele sekunder, så resten rundes op; er deadline allerede overskredet,
+ * udføres forespørgslen slet ikke.
+ */
+final class DeadlineStatement implements InvocationHandler {
+    private static final SqlProfiler profiler = SqlProfiler.getInstance();
+
+    private final Statement delegate;
+    private final Deadline deadline;
+    private final String caller;
+    private final String preparedSql;
+
+    private DeadlineStatement(Statement delegate, Deadline deadline, String caller, String preparedSql) {
+        this.delegate = delegate;
+        this.deadline = deadline;
+        this.caller = caller;
+        this.preparedSql = preparedSql;
+    }
+
+    /**
+     * @param delegate    Statement fra driveren
+     * @param type        Interfacet proxyen skal implementere
+     * @param deadline    Deadline for operationen statementet oprettes i
+     * @param caller      Kaldende metode, fx "LaptopDAO.getAll"
+     * @param preparedSql SQL statementet er forberedt med, eller null for et almindeligt Statement
+     * @return Statement der opfører sig som delegate
+     */
+    static Statement wrap(Statement delegate, Class<?> type, Deadline deadline, String caller, String preparedSql) {
+        return (Statement) Proxy.newProxyInstance(
+                DeadlineStatement.class.getClassLoader(),
+                new Class<?>[]{type},
+                new DeadlineStatement(delegate, deadline, caller, preparedSql));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if ("equals".equals(name) && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if ("hashCode".equals(name) && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        if (!name.startsWith("execute")) {
+            return invokeDelegate(method, args);
+        }
+
+        long remainingMillis = deadline.remainingMillis();
+        if (remainingMillis <= 0) {
+            throw deadline.timeout(caller, "deadline overskredet før udførelse af " + template(args));
+        }
+
+        // Statements genbruges fra c3p0's cache, så den oprindelige timeout gendannes bagefter
+        int previousTimeout = delegate.getQueryTimeout();
+        delegate.setQueryTimeout((int) Math.max(1, (remainingMillis + 999) / 1000));
+        try {
+            return invokeDelegate(method, args);
+        } catch (SQLException e) {
+            if (Deadline.QUERY_CANCELED.equals(e.getSQLState()) && deadline.isExpired()) {
+                SQLException timeout = deadline.timeout(caller, "forespørgslen blev annulleret: " + template(args));
+                timeout.initCause(e);
+                throw timeout;
+            }
+            throw e;
+        } finally {
+            delegate.setQueryTimeout(previousTimeout);
+        }
+    }
+
+    private Object invokeDelegate(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private String template(Object[] args) {
+        if (preparedSql != null) {
+            return profiler.templateOf(preparedSql);
+        }
+        if (args != null && args.length > 0 && args[0] instanceof String) {
+            return profiler.templateOf((String) args[0]);
+        }
+        return "<batch>";
+    }
+}
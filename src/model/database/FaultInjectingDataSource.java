@@ -0,0 +1,200 @@
+package model.database;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * DataSource der lægger sig foran poolen og efterligner Neon lokalt, så genforsøg, timeouts og
+ * poolstørrelse kan afprøves uden en rigtig serverless database:
+ * - cold start: første hentning efter en periode uden trafik venter coldStartMs
+ * - afviste forbindelser: en andel af hentningerne fejler med SQLState 08001
+ * - forsinkelse og fejl pr. SQL-skabelon: hver udførelse forsinkes og kan fejle, som standard med 08006
+ * Slås til med db.fault.enabled=true og må kun bruges til test og benchmarks.
+ */
+final class FaultInjectingDataSource implements DataSource {
+    private static final Logger logger = Logger.getLogger(FaultInjectingDataSource.class.getName());
+    private static final SqlProfiler profiler = SqlProfiler.getInstance();
+
+    private final DataSource delegate;
+    private final FaultProfile profile;
+    private final AtomicLong lastCheckoutNanos = new AtomicLong(System.nanoTime());
+
+    FaultInjectingDataSource(DataSource delegate, FaultProfile profile) {
+        this.delegate = delegate;
+        this.profile = profile;
+        logger.warning("Fejlinjektion slået til: " + profile);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        simulateColdStart();
+        if (profile.shouldFailConnect()) {
+            throw new SQLException("Injiceret fejl: forbindelsen blev afvist", "08001");
+        }
+        return wrap(delegate.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        simulateColdStart();
+        if (profile.shouldFailConnect()) {
+            throw new SQLException("Injiceret fejl: forbindelsen blev afvist", "08001");
+        }
+        return wrap(delegate.getConnection(username, password));
+    }
+
+    /**
+     * Venter coldStartMs hvis der ikke er hentet forbindelser i coldStartIdleMs - som når Neon
+     * har suspenderet compute og skal starte den igen.
+     */
+    private void simulateColdStart() {
+        long now = System.nanoTime();
+        long idleNanos = now - lastCheckoutNanos.getAndSet(now);
+        if (profile.getColdStartMillis() > 0 &&
+                idleNanos >= TimeUnit.MILLISECONDS.toNanos(profile.getColdStartIdleMillis())) {
+            sleep(profile.getColdStartMillis());
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                FaultInjectingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new FaultyConnection(connection));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return delegate.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        delegate.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        delegate.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return delegate.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return delegate.isWrapperFor(iface);
+    }
+
+    /**
+     * Proxy omkring en forbindelse der pakker dens statements ind.
+     */
+    private final class FaultyConnection implements InvocationHandler {
+        private final Connection connection;
+
+        FaultyConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            }
+
+            Object result;
+            try {
+                result = method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            if (result instanceof Statement) {
+                String preparedSql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                return Proxy.newProxyInstance(
+                        FaultInjectingDataSource.class.getClassLoader(),
+                        new Class<?>[]{method.getReturnType()},
+                        new FaultyStatement((Statement) result, preparedSql));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Proxy omkring et statement der forsinker og evt. fejler hver udførelse efter profilens regler.
+     */
+    private final class FaultyStatement implements InvocationHandler {
+        private final Statement statement;
+        private final String preparedSql;
+
+        FaultyStatement(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("equals".equals(name) && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name) && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            }
+
+            if (name.startsWith("execute")) {
+                String sql = preparedSql != null ? preparedSql
+                        : (args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : "");
+                FaultProfile.Rule rule = profile.ruleFor(profiler.templateOf(sql));
+
+                long latencyMillis = rule.sampleLatencyMillis();
+                if (latencyMillis > 0) {
+                    sleep(latencyMillis);
+                }
+                if (rule.shouldFail()) {
+                    throw new SQLException("Injiceret fejl under udførelse af: " + sql, rule.getErrorSqlState());
+                }
+            }
+
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package model.database;
+
+import model.enums.PerformanceTypeEnum;
+import model.models.Laptop;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark af DAO-laget under fejlinjektion.
+ * Kører samme blanding af læsninger mod poolen med hver fejlprofil i Scenario og viser hvordan
+ * genforsøg i getConnection(), circuit breakeren og DAO'erne opfører sig: latens pr. operation,
+ * fejlrate fordelt på SQLState, genforsøg og de langsomste SQL-skabeloner.
+ * Trafikken kører i bølger med pauser imellem, så cold start rammer første hentning i hver bølge.
+ */
+public class FaultInjectionBenchmark {
+
+    private static final int THREADS = 8;
+    private static final int BURSTS = 5;
+    private static final int OPERATIONS_PER_THREAD = 25;
+    // Længere end coldStartIdleMs i profilerne, så hver bølge starter koldt
+    private static final long PAUSE_BETWEEN_BURSTS_MILLIS = 1500;
+
+    public static void main(String[] args) throws Exception {
+        Properties baseProps = DatabaseConnection.loadDatabaseProperties();
+        // Opvarmning og genindlæsning fra filen ville skjule eller overskrive profilerne
+        baseProps.setProperty("db.warmup.enabled", "false");
+        baseProps.setProperty("db.reload.enabled", "false");
+
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Laptop> laptops = new LaptopDAO().getAll();
+            System.out.println("Laptops i benchmark: " + laptops.size());
+            if (laptops.isEmpty()) {
+                System.out.println("Ingen laptops i databasen - intet at måle");
+                return;
+            }
+
+            for (Scenario scenario : Scenario.values()) {
+                Properties props = (Properties) baseProps.clone();
+                scenario.configure(props);
+                DatabaseConnection.applyConfiguration(props);
+                DatabaseConnection.resetMetrics();
+
+                run(scenario, workers, laptops);
+            }
+        } finally {
+            workers.shutdownNow();
+            DatabaseConnection.closePool();
+        }
+    }
+
+    private static void run(Scenario scenario, ExecutorService workers, List<Laptop> laptops) throws Exception {
+        LatencyHistogram operationLatency = new LatencyHistogram();
+        Map<String, Integer> failuresBySqlState = new TreeMap<>();
+        int succeeded = 0;
+        int failed = 0;
+
+        long start = System.nanoTime();
+        for (int burst = 0; burst < BURSTS; burst++) {
+            if (burst > 0) {
+                TimeUnit.MILLISECONDS.sleep(PAUSE_BETWEEN_BURSTS_MILLIS);
+            }
+
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(workers.submit(() -> runOperations(laptops, operationLatency)));
+            }
+            for (Future<List<String>> result : results) {
+                List<String> failures = result.get();
+                failed += failures.size();
+                succeeded += OPERATIONS_PER_THREAD - failures.size();
+                for (String sqlState : failures) {
+                    failuresBySqlState.merge(sqlState, 1, Integer::sum);
+                }
+            }
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        PoolMetricsSnapshot pool = DatabaseConnection.getMetricsSnapshot();
+        int total = succeeded + failed;
+        System.out.println();
+        System.out.println("=== " + scenario.getDisplayName() + " ===");
+        System.out.printf("Operationer: %d lykkedes, %d fejlede (%.1f %%) på %d ms%n",
+                succeeded, failed, total == 0 ? 0 : 100.0 * failed / total, elapsedMillis);
+        System.out.println("Latens pr. operation: " + operationLatency.snapshot());
+        System.out.println("Fejl pr. SQLState: " + failuresBySqlState);
+        System.out.println("Ventetid på forbindelse: " + pool.getCheckoutWait());
+        System.out.println("Genforsøg: " + pool.getTotalRetries() + ", mislykkede hentninger: " +
+                pool.getFailedCheckouts() + ", circuit breaker: " + DatabaseConnection.getCircuitBreakerState());
+        System.out.println("Langsomste SQL-skabeloner:");
+        for (SqlStatementSnapshot statement : DatabaseConnection.getSqlProfile(5)) {
+            System.out.println("  " + statement);
+        }
+    }
+
+    /**
+     * Én tråds andel af en bølge: en blanding af opslag på id, søgning på ydelsestype og optælling.
+     *
+     * @return SQLState for hver fejlet operation
+     */
+    private static List<String> runOperations(List<Laptop> laptops, LatencyHistogram operationLatency) {
+        LaptopDAO laptopDAO = new LaptopDAO();
+        PerformanceTypeEnum[] performanceTypes = PerformanceTypeEnum.values();
+        List<String> failures = new ArrayList<>();
+
+        for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long start = System.nanoTime();
+            try {
+                int operation = random.nextInt(10);
+                if (operation < 6) {
+                    laptopDAO.getById(laptops.get(random.nextInt(laptops.size())).getId());
+                } else if (operation < 9) {
+                    laptopDAO.getAvailableLaptopsByPerformance(performanceTypes[random.nextInt(performanceTypes.length)]);
+                } else {
+                    laptopDAO.countAvailable();
+                }
+                operationLatency.record(System.nanoTime() - start);
+            } catch (SQLException e) {
+                failures.add(e.getSQLState() != null ? e.getSQLState() : "ukendt");
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Fejlprofilerne der sammenlignes. Hver profil sætter db.fault.* oven på database.properties.
+     */
+    private enum Scenario {
+        BASELINE("Uden fejl") {
+            @Override
+            void configure(Properties props) {
+                props.setProperty("db.fault.enabled", "false");
+            }
+        },
+        NEON_COLD_START("Neon cold start (200 ms efter 1 s uden trafik)") {
+            @Override
+            void configure(Properties props) {
+                enable(props);
+                props.setProperty("db.fault.coldStartMs", "200");
+                props.setProperty("db.fault.coldStartIdleMs", "1000");
+            }
+        },
+        FLAKY_NETWORK("Ustabilt netværk (5 % afviste forbindelser, 2 % tabte under udførelse)") {
+            @Override
+            void configure(Properties props) {
+                enable(props);
+                props.setProperty("db.fault.connectFailureRate", "0.05");
+                props.setProperty("db.fault.latencyMs", "5");
+                props.setProperty("db.fault.latencyJitterMs", "10");
+                props.setProperty("db.fault.errorRate", "0.02");
+                props.setProperty("db.fault.errorSqlState", "08006");
+            }
+        },
+        SLOW_QUERIES("Langsomme søgninger (50 ms + exp(100 ms) på SELECT ... WHERE state)") {
+            @Override
+            void configure(Properties props) {
+                enable(props);
+                props.setProperty("db.fault.rule.slowSearch.pattern", "WHERE .*state");
+                props.setProperty("db.fault.rule.slowSearch.latencyMs", "50");
+                props.setProperty("db.fault.rule.slowSearch.latencyJitterMs", "100");
+                props.setProperty("db.fault.latencyMs", "2");
+            }
+        };
+
+        private final String displayName;
+
+        Scenario(String displayName) {
+            this.displayName = displayName;
+        }
+
+        String getDisplayName() {
+            return displayName;
+        }
+
+        abstract void configure(Properties props);
+
+        /**
+         * Slår fejlinjektion til uden cold start, så profilerne kun måler det de selv sætter.
+         */
+        private static void enable(Properties props) {
+            props.setProperty("db.fault.enabled", "true");
+            props.setProperty("db.fault.coldStartMs", "0");
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package model.database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Beskriver hvilke fejl FaultInjectingDataSource skal efterligne: Neon cold start, afviste og
+ * tabte forbindelser samt forsinkelser og fejlrater pr. SQL-skabelon.
+ * Læses fra db.fault.*; regler pr. skabelon angives som db.fault.rule.&lt;navn&gt;.* og gælder
+ * i navnerækkefølge før standardreglen.
+ */
+final class FaultProfile {
+    private static final String FAULT_KEY = "fault.";
+    private static final String RULE_PREFIX = "db.fault.rule.";
+
+    private final boolean enabled;
+    private final long coldStartMillis;
+    private final long coldStartIdleMillis;
+    private final double connectFailureRate;
+    private final List<Rule> rules;
+    private final Rule defaultRule;
+
+    private FaultProfile(boolean enabled, long coldStartMillis, long coldStartIdleMillis, double connectFailureRate,
+                         List<Rule> rules, Rule defaultRule) {
+        this.enabled = enabled;
+        this.coldStartMillis = coldStartMillis;
+        this.coldStartIdleMillis = coldStartIdleMillis;
+        this.connectFailureRate = connectFailureRate;
+        this.rules = Collections.unmodifiableList(rules);
+        this.defaultRule = defaultRule;
+    }
+
+    /**
+     * Læser profilen for en pool. Poolen arver primærens db.fault.* hvis den ikke har sine egne.
+     *
+     * @param dbProps Indlæst database.properties
+     * @param prefix  Poolens præfiks, fx "db." eller "db.replica."
+     * @return Profilen
+     */
+    static FaultProfile fromProperties(Properties dbProps, String prefix) {
+        boolean enabled = Boolean.parseBoolean(ConnectionPool.setting(dbProps, prefix, FAULT_KEY + "enabled", "false"));
+        long coldStartMillis = Long.parseLong(ConnectionPool.setting(dbProps, prefix, FAULT_KEY + "coldStartMs", "0"));
+        long coldStartIdleMillis = Long.parseLong(
+                ConnectionPool.setting(dbProps, prefix, FAULT_KEY + "coldStartIdleMs", "300000"));
+        double connectFailureRate = Double.parseDouble(
+                ConnectionPool.setting(dbProps, prefix, FAULT_KEY + "connectFailureRate", "0"));
+
+        Rule defaultRule = new Rule(null,
+                Long.parseLong(ConnectionPool.setting(dbProps, prefix, FAULT_KEY + "latencyMs", "0")),
+                Long.parseLong(ConnectionPool.setting(dbProps, prefix, FAULT_KEY + "latencyJitterMs", "0")),
+                Double.parseDouble(ConnectionPool.setting(dbProps, prefix, FAULT_KEY + "errorRate", "0")),
+                ConnectionPool.setting(dbProps, prefix, FAULT_KEY + "errorSqlState", "08006"));
+
+        // Regelnavne findes ud fra deres pattern-nøgle
+        TreeSet<String> ruleNames = new TreeSet<>();
+        for (String key : dbProps.stringPropertyNames()) {
+            if (key.startsWith(RULE_PREFIX) && key.endsWith(".pattern")) {
+                ruleNames.add(key.substring(RULE_PREFIX.length(), key.length() - ".pattern".length()));
+            }
+        }
+        List<Rule> rules = new ArrayList<>();
+        for (String name : ruleNames) {
+            String rulePrefix = RULE_PREFIX + name + ".";
+            rules.add(new Rule(
+                    Pattern.compile(dbProps.getProperty(rulePrefix + "pattern"), Pattern.CASE_INSENSITIVE),
+                    Long.parseLong(dbProps.getProperty(rulePrefix + "latencyMs", "0")),
+                    Long.parseLong(dbProps.getProperty(rulePrefix + "latencyJitterMs", "0")),
+                    Double.parseDouble(dbProps.getProperty(rulePrefix + "errorRate", "0")),
+                    dbProps.getProperty(rulePrefix + "errorSqlState", defaultRule.errorSqlState)));
+        }
+
+        return new FaultProfile(enabled, coldStartMillis, coldStartIdleMillis, connectFailureRate, rules, defaultRule);
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    long getColdStartMillis() {
+        return coldStartMillis;
+    }
+
+    long getColdStartIdleMillis() {
+        return coldStartIdleMillis;
+    }
+
+    /**
+     * @return true hvis et forsøg på at hente en forbindelse skal afvises
+     */
+    boolean shouldFailConnect() {
+        return connectFailureRate > 0 && ThreadLocalRandom.current().nextDouble() < connectFailureRate;
+    }
+
+    /**
+     * @param template SQL-skabelon
+     * @return Første regel hvis mønster matcher skabelonen, ellers standardreglen
+     */
+    Rule ruleFor(String template) {
+        for (Rule rule : rules) {
+            if (rule.pattern.matcher(template).find()) {
+                return rule;
+            }
+        }
+        return defaultRule;
+    }
+
+    @Override
+    public String toString() {
+        return "FaultProfile[coldStart=" + coldStartMillis + "ms efter " + coldStartIdleMillis + "ms inaktivitet" +
+                ", connectFailureRate=" + connectFailureRate + ", standard=" + defaultRule +
+                ", regler=" + rules + "]";
+    }
+
+    /**
+     * Forsinkelse og fejlrate for de skabeloner en regel gælder for.
+     * Forsinkelsen er et fast tillæg plus et eksponentielt fordelt tillæg med den angivne middelværdi,
+     * så der kommer en hale af langsomme kald som i virkeligheden.
+     */
+    static final class Rule {
+        private final Pattern pattern;
+        private final long latencyMillis;
+        private final long latencyJitterMillis;
+        private final double errorRate;
+        private final String errorSqlState;
+
+        Rule(Pattern pattern, long latencyMillis, long latencyJitterMillis, double errorRate, String errorSqlState) {
+            this.pattern = pattern;
+            this.latencyMillis = latencyMillis;
+            this.latencyJitterMillis = latencyJitterMillis;
+            this.errorRate = errorRate;
+            this.errorSqlState = errorSqlState;
+        }
+
+        /**
+         * @return Forsinkelse i millisekunder for ét kald
+         */
+        long sampleLatencyMillis() {
+            if (latencyJitterMillis <= 0) {
+                return latencyMillis;
+            }
+            double uniform = 1.0 - ThreadLocalRandom.current().nextDouble();
+            return latencyMillis + Math.round(-latencyJitterMillis * Math.log(uniform));
+        }
+
+        boolean shouldFail() {
+            return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+        }
+
+        String getErrorSqlState() {
+            return errorSqlState;
+        }
+
+        @Override
+        public String toString() {
+            return (pattern != null ? "/" + pattern.pattern() + "/ " : "") + latencyMillis + "ms+exp(" +
+                    latencyJitterMillis + "ms), fejlrate " + errorRate + " (" + errorSqlState + ")";
+        }
+    }
+}
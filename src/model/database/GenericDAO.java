@@ -1,9 +1,12 @@
 package model.database;
 
+import model.enums.SortOrderEnum;
 import model.exceptions.DatabaseException;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Generisk interface til Data Access Objects.
@@ -22,6 +25,31 @@ public interface GenericDAO<T, ID> {
      */
     List<T> getAll() throws SQLException;
 
+    /**
+     * Streamer alle entiteter af denne type via en server-side cursor.
+     * Rækkerne hentes i blokke af fetchSize, så hukommelsesforbruget er konstant uanset tabelstørrelse.
+     * Streamen holder en databaseforbindelse og skal lukkes, fx med try-with-resources.
+     * Fejl under læsning kastes som UncheckedSQLException.
+     *
+     * @param fetchSize Antal rækker der hentes pr. round trip
+     * @return Stream af entiteter
+     * @throws SQLException Hvis forespørgslen ikke kan startes
+     */
+    Stream<T> streamAll(int fetchSize) throws SQLException;
+
+    /**
+     * Henter én side af entiteter med keyset (seek) pagination.
+     * Siden starter lige efter den angivne entitets sorteringsnøgle, så databasen kan
+     * gå direkte til positionen via indekset i stedet for at scanne forbi et OFFSET.
+     *
+     * @param after     Sidste entitet fra forrige side, eller null for første side
+     * @param limit     Maksimalt antal entiteter på siden
+     * @param sortOrder Sorteringsretning
+     * @return Entiteterne på siden - færre end limit betyder at der ikke er flere
+     * @throws SQLException Hvis der opstår en database fejl
+     */
+    List<T> page(T after, int limit, SortOrderEnum sortOrder) throws SQLException;
+
     /**
      * Henter en specifik entitet baseret på ID.
      *
@@ -49,6 +77,48 @@ public interface GenericDAO<T, ID> {
      */
     boolean update(T entity) throws SQLException;
 
+    /**
+     * Indsætter flere entiteter med JDBC batching i én transaktion.
+     * Events for entiteterne sendes først efter commit.
+     *
+     * @param entities Entiteterne der skal indsættes
+     * @return Antal indsatte rækker
+     * @throws SQLException Hvis der opstår en database fejl - ingen rækker er da indsat
+     */
+    int insertAll(Collection<T> entities) throws SQLException;
+
+    /**
+     * Opdaterer flere entiteter med JDBC batching i én transaktion.
+     * Events for entiteterne sendes først efter commit.
+     *
+     * @param entities Entiteterne der skal opdateres
+     * @return Antal opdaterede rækker
+     * @throws SQLException Hvis der opstår en database fejl - ingen rækker er da opdateret
+     */
+    int updateAll(Collection<T> entities) throws SQLException;
+
+    /**
+     * Indsætter entiteten, eller opdaterer den hvis den allerede findes, i ét round trip.
+     * Erstatter exists-then-insert og get-then-update, som koster to round trips og ikke er
+     * sikre når andre skriver samtidigt.
+     *
+     * @param entity Entiteten der skal skrives
+     * @return Om entiteten blev indsat eller opdateret
+     * @throws SQLException Hvis der opstår en database fejl
+     */
+    UpsertResult<T> upsert(T entity) throws SQLException;
+
+    /**
+     * Indsætter eller opdaterer flere entiteter, op til 500 pr. round trip, i én transaktion.
+     * Events for entiteterne sendes først efter commit.
+     *
+     * @param entities Entiteterne der skal skrives
+     * @return De indsatte og de opdaterede entiteter
+     * @throws SQLException Hvis der opstår en database fejl - ingen rækker er da skrevet
+     * @throws NullPointerException Hvis entities eller en af entiteterne er null
+     */
+    UpsertResult<T> upsertAll(Collection<T> entities) throws SQLException;
+
     /**
      * Sletter en entitet fra databasen baseret på ID.
      *
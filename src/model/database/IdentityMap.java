@@ -0,0 +1,213 @@
+package model.database;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+
+/**
+ * Sørger for at hver række svarer til ét objekt i hukommelsen: samme via_id giver samme Student
+ * og samme laptop_uuid samme Laptop, uanset om de er hentet via reservationer, køer eller cachen.
+ * Row mapperne slår op her; findes objektet allerede, kopieres rækkens værdier over i det uden at
+ * fyre events, så indlæsning ikke kalder lyttere mens ResultSet og forbindelse er åbne.
+ * Kun committede læsninger fra primæren opdaterer et kendt objekt: en læsning fra read replicaen
+ * kan være forældet og springes over, og en læsning inden for en unit of work opdaterer først
+ * objektet når den er committet.
+ * Objekterne holdes med svage referencer, så mappet ikke holder entiteter i live som resten af
+ * programmet har sluppet.
+ */
+public final class IdentityMap {
+    private static final Logger logger = Logger.getLogger(IdentityMap.class.getName());
+
+    private static final IdentityMap instance = new IdentityMap();
+
+    private final Map<Key, EntityReference> entities = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private volatile boolean enabled = true;
+
+    private IdentityMap() {
+    }
+
+    public static IdentityMap getInstance() {
+        return instance;
+    }
+
+    void configure(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            entities.clear();
+        }
+    }
+
+    /**
+     * Giver det kanoniske objekt for en entitet.
+     *
+     * @param type    Entitetens klasse
+     * @param id      Entitetens id
+     * @param loaded  Objektet netop bygget fra rækken
+     * @param refresh Kopierer værdierne fra loaded over i det kanoniske objekt (kanonisk, loaded) -
+     *                udføres efter commit, og ikke for læsninger fra read replicaen
+     * @param <T>     Entitetstypen
+     * @return Det kanoniske objekt - loaded hvis entiteten ikke var kendt
+     */
+    <T> T canonical(Class<T> type, Object id, T loaded, BiConsumer<T, T> refresh) {
+        if (!enabled || id == null) {
+            return loaded;
+        }
+        T entity = resolve(type, id, loaded);
+        if (entity == loaded) {
+            misses.increment();
+        } else {
+            hits.increment();
+            if (!MeteredConnection.isReadingFromReplica()) {
+                UnitOfWork.afterCommit(() -> refresh.accept(entity, loaded));
+            }
+        }
+        return entity;
+    }
+
+    /**
+     * Registrerer en entitet der netop er skrevet til databasen, fx ved insert eller upsert.
+     * Kendes entiteten ikke, bliver den skrevne instans kanonisk; ellers opdateres den kendte
+     * instans med de skrevne værdier. Tæller hverken som hit eller miss.
+     *
+     * @param type    Entitetens klasse
+     * @param id      Entitetens id
+     * @param written Instansen der er skrevet
+     * @param refresh Kopierer værdierne fra written over i det kanoniske objekt (kanonisk, written)
+     * @param <T>     Entitetstypen
+     * @return Det kanoniske objekt
+     */
+    <T> T register(Class<T> type, Object id, T written, BiConsumer<T, T> refresh) {
+        if (!enabled || id == null) {
+            return written;
+        }
+        T entity = resolve(type, id, written);
+        if (entity != written) {
+            refresh.accept(entity, written);
+        }
+        return entity;
+    }
+
+    /**
+     * Finder den kendte instans, eller gør candidate kanonisk hvis entiteten ikke er kendt.
+     */
+    private <T> T resolve(Class<T> type, Object id, T candidate) {
+        expungeCollected();
+
+        EntityReference reference = entities.compute(new Key(type, id), (k, existing) ->
+                existing != null && existing.get() != null ? existing : new EntityReference(k, candidate, collected));
+
+        Object canonical = reference.get();
+        if (canonical == candidate || canonical == null) {
+            return candidate;
+        }
+        return type.cast(canonical);
+    }
+
+    /**
+     * Fjerner en entitet, fx når den er slettet.
+     */
+    void evict(Class<?> type, Object id) {
+        entities.remove(new Key(type, id));
+    }
+
+    private void expungeCollected() {
+        EntityReference reference;
+        while ((reference = (EntityReference) collected.poll()) != null) {
+            entities.remove(reference.key, reference);
+        }
+    }
+
+    /**
+     * @return Antal opslag hvor entiteten allerede fandtes i hukommelsen
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Antal opslag der gav et nyt objekt
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Andel af opslag der ramte et eksisterende objekt
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * @return Antal entiteter i mappet, inkl. nogle der netop er frigivet
+     */
+    public int size() {
+        expungeCollected();
+        return entities.size();
+    }
+
+    /**
+     * Nulstiller hit- og miss-tællerne. Entiteterne bevares.
+     */
+    void resetCounts() {
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * Glemmer alle entiteter, så næste indlæsning bygger nye objekter.
+     */
+    public void clear() {
+        entities.clear();
+        logger.fine("Identity map tømt");
+    }
+
+    @Override
+    public String toString() {
+        return String.format("IdentityMap[%d entiteter, %d hits, %d misses, hitrate %.1f %%]",
+                size(), getHitCount(), getMissCount(), getHitRatio() * 100);
+    }
+
+    private static final class Key {
+        private final Class<?> type;
+        private final Object id;
+
+        Key(Class<?> type, Object id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return type == key.type && id.equals(key.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, id);
+        }
+    }
+
+    private static final class EntityReference extends WeakReference<Object> {
+        private final Key key;
+
+        EntityReference(Key key, Object entity, ReferenceQueue<Object> queue) {
+            super(entity, queue);
+            this.key = key;
+        }
+    }
+}
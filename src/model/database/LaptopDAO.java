@@ -1,19 +1,20 @@
 package model.database;
 
 import model.enums.PerformanceTypeEnum;
+import model.enums.SortOrderEnum;
 import model.events.SystemEvents;
 import model.log.Log;
-import model.models.AvailableState;
 import model.models.Laptop;
-import model.models.LoanedState;
 import model.util.EventBus;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object for Laptop entiteter med forbedret implementering.
@@ -23,6 +24,24 @@ public class LaptopDAO implements GenericDAO<Laptop, UUID> {
     private static final Logger logger = Logger.getLogger(LaptopDAO.class.getName());
     private static final Log log = Log.getInstance();
     private static final EventBus eventBus = EventBus.getInstance();
+    private static final IdentityMap identityMap = IdentityMap.getInstance();
+
+    private static final String SELECT_SQL = "SELECT laptop_uuid, brand, model, gigabyte, ram, performance_type, state FROM Laptop";
+    private static final String INSERT_SQL = "INSERT INTO Laptop (laptop_uuid, brand, model, gigabyte, ram, performance_type, state) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE Laptop SET brand = ?, model = ?, gigabyte = ?, ram = ?, performance_type = ?, state = ? " +
+            "WHERE laptop_uuid = ?";
+    private static final String SELECT_BY_ID_SQL = SELECT_SQL + " WHERE laptop_uuid = ?";
+    private static final String SELECT_AVAILABLE_BY_PERFORMANCE_SQL = SELECT_SQL +
+            " WHERE performance_type = ? AND state = 'AvailableState'";
+    private static final String UPDATE_STATE_SQL = "UPDATE Laptop SET state = ? WHERE laptop_uuid = ?";
+    // Én række pr. array-element; xmax er 0 for rækker indsat af statementet og sat for opdaterede
+    private static final String UPSERT_SQL = "INSERT INTO Laptop (laptop_uuid, brand, model, gigabyte, ram, performance_type, state) " +
+            "SELECT * FROM unnest(?::uuid[], ?::varchar[], ?::varchar[], ?::integer[], ?::integer[], ?::varchar[], ?::varchar[]) " +
+            "ON CONFLICT (laptop_uuid) DO UPDATE SET brand = EXCLUDED.brand, model = EXCLUDED.model, " +
+            "gigabyte = EXCLUDED.gigabyte, ram = EXCLUDED.ram, performance_type = EXCLUDED.performance_type, " +
+            "state = EXCLUDED.state " +
+            "RETURNING laptop_uuid, (xmax = 0) AS inserted";
 
     /**
      * Henter alle laptops fra databasen.
@@ -35,12 +54,13 @@ public class LaptopDAO implements GenericDAO<Laptop, UUID> {
         List<Laptop> laptops = new ArrayList<>();
         String sql = "SELECT laptop_uuid, brand, model, gigabyte, ram, performance_type, state FROM Laptop";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
+            LaptopRowMapper mapper = new LaptopRowMapper();
             while (rs.next()) {
-                Laptop laptop = mapResultSetToLaptop(rs);
+                Laptop laptop = mapper.map(rs);
                 laptops.add(laptop);
             }
         } catch (SQLException e) {
@@ -50,6 +70,83 @@ public class LaptopDAO implements GenericDAO<Laptop, UUID> {
         return laptops;
     }
 
+    /**
+     * Streamer alle laptops via en server-side cursor.
+     *
+     * @param fetchSize Antal rækker der hentes pr. round trip
+     * @return Stream af laptops - skal lukkes efter brug
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    @Override
+    public Stream<Laptop> streamAll(int fetchSize) throws SQLException {
+        try {
+            return StreamingQuery.stream(SELECT_SQL, fetchSize, stmt -> { }, new LaptopRowMapper());
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved streaming af laptops", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Streamer laptops med en bestemt ydelsestype via en server-side cursor.
+     *
+     * @param performanceType Ydelsestypen der filtreres på
+     * @param fetchSize       Antal rækker der hentes pr. round trip
+     * @return Stream af laptops - skal lukkes efter brug
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    public Stream<Laptop> streamByPerformanceType(PerformanceTypeEnum performanceType, int fetchSize) throws SQLException {
+        try {
+            return StreamingQuery.stream(SELECT_SQL + " WHERE performance_type = ?", fetchSize,
+                    stmt -> stmt.setString(1, performanceType.name()), new LaptopRowMapper());
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved streaming af laptops med performance type " + performanceType, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Henter én side af laptops sorteret efter laptop_uuid med keyset pagination.
+     *
+     * @param after     Sidste laptop fra forrige side, eller null for første side
+     * @param limit     Maksimalt antal laptops på siden
+     * @param sortOrder Sorteringsretning
+     * @return Laptops på siden
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    @Override
+    public List<Laptop> page(Laptop after, int limit, SortOrderEnum sortOrder) throws SQLException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Sidestørrelse skal være positiv: " + limit);
+        }
+
+        List<Laptop> laptops = new ArrayList<>();
+        String sql = SELECT_SQL +
+                (after != null ? " WHERE laptop_uuid " + sortOrder.getSeekOperator() + " ?" : "") +
+                " ORDER BY laptop_uuid " + sortOrder.getSqlKeyword() + " LIMIT ?";
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            if (after != null) {
+                stmt.setObject(index++, after.getId());
+            }
+            stmt.setInt(index, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                LaptopRowMapper mapper = new LaptopRowMapper();
+                while (rs.next()) {
+                    laptops.add(mapper.map(rs));
+                }
+            }
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved sidevis hentning af laptops", e);
+            throw e;
+        }
+        return laptops;
+    }
+
     /**
      * Henter laptop baseret på UUID.
      *
@@ -59,16 +156,15 @@ public class LaptopDAO implements GenericDAO<Laptop, UUID> {
      */
     @Override
     public Laptop getById(UUID id) throws SQLException {
-        String sql = "SELECT laptop_uuid, brand, model, gigabyte, ram, performance_type, state FROM Laptop WHERE laptop_uuid = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
 
-            stmt.setString(1, id.toString());
+            stmt.setObject(1, id);
 
             try (ResultSet rs = stmt.executeQuery()) {
+                LaptopRowMapper mapper = new LaptopRowMapper();
                 if (rs.next()) {
-                    return mapResultSetToLaptop(rs);
+                    return mapper.map(rs);
                 }
             }
         } catch (SQLException e) {
@@ -87,19 +183,10 @@ public class LaptopDAO implements GenericDAO<Laptop, UUID> {
      */
     @Override
     public boolean insert(Laptop laptop) throws SQLException {
-        String sql = "INSERT INTO Laptop (laptop_uuid, brand, model, gigabyte, ram, performance_type, state) " +
-                "VALUES (CAST(? AS UUID), ?, ?, ?, ?, ?, ?)";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
 
-            stmt.setString(1, laptop.getId().toString());
-            stmt.setString(2, laptop.getBrand());
-            stmt.setString(3, laptop.getModel());
-            stmt.setInt(4, laptop.getGigabyte());
-            stmt.setInt(5, laptop.getRam());
-            stmt.setString(6, laptop.getPerformanceType().name());
-            stmt.setString(7, laptop.getStateClassName());
+            bindInsert(stmt, laptop);
 
             int affectedRows = stmt.executeUpdate();
 
@@ -109,7 +196,7 @@ public class LaptopDAO implements GenericDAO<Laptop, UUID> {
                         ", ID: " + laptop.getId() + "] oprettet i database");
 
                 // Post event
-                eventBus.post(new SystemEvents.LaptopCreatedEvent(laptop));
+                publishWritten(laptop, true);
             } else {
                 log.warning("Kunne ikke oprette laptop i database: " + laptop.getId());
             }
@@ -130,19 +217,10 @@ public class LaptopDAO implements GenericDAO<Laptop, UUID> {
      */
     @Override
     public boolean update(Laptop laptop) throws SQLException {
-        String sql = "UPDATE Laptop SET brand = ?, model = ?, gigabyte = ?, ram = ?, performance_type = ?, state = ? " +
-                "WHERE laptop_uuid = ?";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
 
-            stmt.setString(1, laptop.getBrand());
-            stmt.setString(2, laptop.getModel());
-            stmt.setInt(3, laptop.getGigabyte());
-            stmt.setInt(4, laptop.getRam());
-            stmt.setString(5, laptop.getPerformanceType().name());
-            stmt.setString(6, laptop.getStateClassName());
-            stmt.setString(7, laptop.getId().toString());
+            bindUpdate(stmt, laptop);
 
             int affectedRows = stmt.executeUpdate();
 
@@ -152,7 +230,7 @@ public class LaptopDAO implements GenericDAO<Laptop, UUID> {
                         ", ID: " + laptop.getId() + "] opdateret i database");
 
                 // Post event
-                eventBus.post(new SystemEvents.LaptopUpdatedEvent(laptop));
+                publishWritten(laptop, false);
             } else {
                 log.warning("Kunne ikke opdatere laptop i database: " + laptop.getId());
             }
@@ -164,6 +242,104 @@ public class LaptopDAO implements GenericDAO<Laptop, UUID> {
         }
     }
 
+    /**
+     * Indsætter flere laptops med JDBC batching i én transaktion.
+     *
+     * @param laptops Laptops der skal indsættes
+     * @return Antal indsatte rækker
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    @Override
+    public int insertAll(Collection<Laptop> laptops) throws SQLException {
+        try {
+            int affectedRows = BatchExecutor.executeBatch(INSERT_SQL, laptops, this::bindInsert);
+
+            log.info(affectedRows + " laptops oprettet i database med batch-indsættelse");
+
+            // Post events efter commit
+            for (Laptop laptop : laptops) {
+                publishWritten(laptop, true);
+            }
+
+            return affectedRows;
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved batch-indsættelse af " + laptops.size() + " laptops", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Opdaterer flere laptops med JDBC batching i én transaktion.
+     *
+     * @param laptops Laptops med opdaterede oplysninger
+     * @return Antal opdaterede rækker
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    @Override
+    public int updateAll(Collection<Laptop> laptops) throws SQLException {
+        try {
+            List<Laptop> updated = BatchExecutor.executeBatchMatched(UPDATE_SQL, laptops, this::bindUpdate);
+
+            log.info(updated.size() + " laptops opdateret i database med batch-opdatering");
+            if (updated.size() < laptops.size()) {
+                log.warning((laptops.size() - updated.size()) + " laptops fandtes ikke og blev ikke opdateret");
+            }
+
+            // Post events efter commit - kun for laptops hvis række blev opdateret
+            for (Laptop laptop : updated) {
+                publishWritten(laptop, false);
+            }
+
+            return updated.size();
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved batch-opdatering af " + laptops.size() + " laptops", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Indsætter laptoppen, eller opdaterer den hvis laptop_uuid allerede findes, i ét round trip.
+     *
+     * @param laptop Laptop objekt
+     * @return Om laptoppen blev indsat eller opdateret
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    @Override
+    public UpsertResult<Laptop> upsert(Laptop laptop) throws SQLException {
+        return upsertAll(List.of(laptop));
+    }
+
+    /**
+     * Indsætter eller opdaterer flere laptops med INSERT ... ON CONFLICT DO UPDATE.
+     * Nye laptops giver LaptopCreatedEvent, eksisterende LaptopUpdatedEvent.
+     *
+     * @param laptops Laptops der skal skrives
+     * @return De indsatte og de opdaterede laptops
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    @Override
+    public UpsertResult<Laptop> upsertAll(Collection<Laptop> laptops) throws SQLException {
+        try {
+            UpsertResult<Laptop> result = BatchExecutor.executeUpsert(UPSERT_SQL, laptops, Laptop::getId, this::bindUpsert);
+
+            log.info(result.getInsertedCount() + " laptops oprettet og " + result.getUpdatedCount() +
+                    " opdateret i database med upsert");
+
+            // Post events efter commit
+            for (Laptop laptop : result.getInserted()) {
+                publishWritten(laptop, true);
+            }
+            for (Laptop laptop : result.getUpdated()) {
+                publishWritten(laptop, false);
+            }
+
+            return result;
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved upsert af " + laptops.size() + " laptops", e);
+            throw e;
+        }
+    }
+
     /**
      * Opdaterer kun en laptops tilstand i databasen.
      *
@@ -172,13 +348,11 @@ public class LaptopDAO implements GenericDAO<Laptop, UUID> {
      * @throws SQLException hvis der er problemer med databasen
      */
     public boolean updateState(Laptop laptop) throws SQLException {
-        String sql = "UPDATE Laptop SET state = ? WHERE laptop_uuid = ?";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_STATE_SQL)) {
 
             stmt.setString(1, laptop.getStateClassName());
-            stmt.setString(2, laptop.getId().toString());
+            stmt.setObject(2, laptop.getId());
 
             int affectedRows = stmt.executeUpdate();
 
@@ -189,7 +363,7 @@ public class LaptopDAO implements GenericDAO<Laptop, UUID> {
 
                 // Post event om tilstandsændring
                 boolean isNowAvailable = laptop.isAvailable();
-                eventBus.post(new SystemEvents.LaptopStateChangedEvent(
+                UnitOfWork.publish(new SystemEvents.LaptopStateChangedEvent(
                         laptop,
                         isNowAvailable ? "LoanedState" : "AvailableState",
                         laptop.getStateClassName(),
@@ -225,7 +399,7 @@ public class LaptopDAO implements GenericDAO<Laptop, UUID> {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, id.toString());
+            stmt.setObject(1, id);
 
             int affectedRows = stmt.executeUpdate();
 
@@ -234,7 +408,8 @@ public class LaptopDAO implements GenericDAO<Laptop, UUID> {
                 log.info("Laptop [ID: " + id + "] slettet fra database");
 
                 // Post event
-                eventBus.post(new SystemEvents.LaptopDeletedEvent(laptop));
+                UnitOfWork.publish(new SystemEvents.LaptopDeletedEvent(laptop));
+                UnitOfWork.afterCommit(() -> identityMap.evict(Laptop.class, id));
             } else {
                 log.warning("Kunne ikke slette laptop fra database: " + id);
             }
@@ -255,17 +430,15 @@ public class LaptopDAO implements GenericDAO<Laptop, UUID> {
      */
     public List<Laptop> getAvailableLaptopsByPerformance(PerformanceTypeEnum performanceType) throws SQLException {
         List<Laptop> laptops = new ArrayList<>();
-        String sql = "SELECT laptop_uuid, brand, model, gigabyte, ram, performance_type, state FROM Laptop " +
-                "WHERE performance_type = ? AND state = 'AvailableState'";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_AVAILABLE_BY_PERFORMANCE_SQL)) {
 
             stmt.setString(1, performanceType.name());
 
             try (ResultSet rs = stmt.executeQuery()) {
+                LaptopRowMapper mapper = new LaptopRowMapper();
                 while (rs.next()) {
-                    Laptop laptop = mapResultSetToLaptop(rs);
+                    Laptop laptop = mapper.map(rs);
                     laptops.add(laptop);
                 }
             }
@@ -286,7 +459,7 @@ public class LaptopDAO implements GenericDAO<Laptop, UUID> {
     public int count() throws SQLException {
         String sql = "SELECT COUNT(*) FROM Laptop";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -314,7 +487,7 @@ public class LaptopDAO implements GenericDAO<Laptop, UUID> {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, id.toString());
+            stmt.setObject(1, id);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 return rs.next();
@@ -335,7 +508,7 @@ public class LaptopDAO implements GenericDAO<Laptop, UUID> {
     public int countByState(String state) throws SQLException {
         String sql = "SELECT COUNT(*) FROM Laptop WHERE state = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, state);
@@ -373,30 +546,77 @@ public class LaptopDAO implements GenericDAO<Laptop, UUID> {
     }
 
     /**
-     * Konverterer ResultSet til Laptop objekt.
-     *
-     * @param rs ResultSet at konvertere
-     * @return Laptop objektet
-     * @throws SQLException hvis der er problemer med databasen
+     * Binder en laptops værdier til INSERT_SQL.
+     */
+    private void bindInsert(PreparedStatement stmt, Laptop laptop) throws SQLException {
+        stmt.setObject(1, laptop.getId());
+        stmt.setString(2, laptop.getBrand());
+        stmt.setString(3, laptop.getModel());
+        stmt.setInt(4, laptop.getGigabyte());
+        stmt.setInt(5, laptop.getRam());
+        stmt.setString(6, laptop.getPerformanceType().name());
+        stmt.setString(7, laptop.getStateClassName());
+    }
+
+    /**
+     * Binder en laptops værdier til UPDATE_SQL.
+     */
+    private void bindUpdate(PreparedStatement stmt, Laptop laptop) throws SQLException {
+        stmt.setString(1, laptop.getBrand());
+        stmt.setString(2, laptop.getModel());
+        stmt.setInt(3, laptop.getGigabyte());
+        stmt.setInt(4, laptop.getRam());
+        stmt.setString(5, laptop.getPerformanceType().name());
+        stmt.setString(6, laptop.getStateClassName());
+        stmt.setObject(7, laptop.getId());
+    }
+
+    /**
+     * Binder laptops til UPSERT_SQL som ét array pr. kolonne.
      */
-    private Laptop mapResultSetToLaptop(ResultSet rs) throws SQLException {
-        UUID laptopId = UUID.fromString(rs.getString("laptop_uuid"));
-        String brand = rs.getString("brand");
-        String model = rs.getString("model");
-        int gigabyte = rs.getInt("gigabyte");
-        int ram = rs.getInt("ram");
-        PerformanceTypeEnum performanceType = PerformanceTypeEnum.valueOf(rs.getString("performance_type"));
-
-        // Opret laptop uden at binde til ReservationManager - dette bør gøres af datamanageren
-        Laptop laptop = new Laptop(laptopId, brand, model, gigabyte, ram, performanceType);
-
-        // Sæt tilstanden baseret på databaseværdien
-        String stateName = rs.getString("state");
-        if (stateName != null) {
-            laptop.setStateFromDatabase(stateName);
+    private void bindUpsert(PreparedStatement stmt, Connection conn, List<Laptop> laptops) throws SQLException {
+        int size = laptops.size();
+        UUID[] ids = new UUID[size];
+        String[] brands = new String[size];
+        String[] models = new String[size];
+        Integer[] gigabytes = new Integer[size];
+        Integer[] rams = new Integer[size];
+        String[] performanceTypes = new String[size];
+        String[] states = new String[size];
+        for (int i = 0; i < size; i++) {
+            Laptop laptop = laptops.get(i);
+            ids[i] = laptop.getId();
+            brands[i] = laptop.getBrand();
+            models[i] = laptop.getModel();
+            gigabytes[i] = laptop.getGigabyte();
+            rams[i] = laptop.getRam();
+            performanceTypes[i] = laptop.getPerformanceType().name();
+            states[i] = laptop.getStateClassName();
         }
+        stmt.setArray(1, conn.createArrayOf("uuid", ids));
+        stmt.setArray(2, conn.createArrayOf("varchar", brands));
+        stmt.setArray(3, conn.createArrayOf("varchar", models));
+        stmt.setArray(4, conn.createArrayOf("integer", gigabytes));
+        stmt.setArray(5, conn.createArrayOf("integer", rams));
+        stmt.setArray(6, conn.createArrayOf("varchar", performanceTypes));
+        stmt.setArray(7, conn.createArrayOf("varchar", states));
+    }
 
-        return laptop;
+    /**
+     * Registrerer en skrevet laptop i identity map efter commit og poster eventet med den kanoniske instans,
+     * så caches og senere indlæsninger deler samme objekt.
+     *
+     * @param created true for LaptopCreatedEvent, false for LaptopUpdatedEvent
+     */
+    private void publishWritten(Laptop laptop, boolean created) {
+        UnitOfWork.afterCommit(() -> {
+            Laptop canonical = identityMap.register(Laptop.class, laptop.getId(), laptop, LaptopRowMapper::refresh);
+            if (created) {
+                eventBus.post(new SystemEvents.LaptopCreatedEvent(canonical));
+            } else {
+                eventBus.post(new SystemEvents.LaptopUpdatedEvent(canonical));
+            }
+        });
     }
 
     /**
@@ -412,4 +632,15 @@ public class LaptopDAO implements GenericDAO<Laptop, UUID> {
         // Post database error event
         eventBus.post(new SystemEvents.DatabaseErrorEvent(message, e.getSQLState(), e));
     }
-}
\ No newline at end of file
+
+    /**
+     * SQL for de hyppigste forespørgsler. Lægges i c3p0's statement-cache på nye forbindelser ved opstart.
+     * Skal være præcis samme tekst som metoderne bruger, ellers rammes cachen ikke.
+     *
+     * @return SQL-sætningerne
+     */
+    static List<String> hotStatements() {
+        return List.of(SELECT_BY_ID_SQL, SELECT_AVAILABLE_BY_PERFORMANCE_SQL, INSERT_SQL, UPDATE_SQL, UPDATE_STATE_SQL,
+                UPSERT_SQL);
+    }
+}
@@ -0,0 +1,73 @@
+package model.database;
+
+import model.enums.PerformanceTypeEnum;
+import model.models.AvailableState;
+import model.models.Laptop;
+import model.models.LaptopState;
+import model.models.LoanedState;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Row mapper for Laptop-rækker.
+ * Tilstanden sættes direkte i konstruktøren, så der ikke fyres property-change events under indlæsning.
+ * Er laptoppen allerede i hukommelsen, returneres den kendte instans via IdentityMap, opdateret med
+ * rækkens værdier uden at fyre events. Læsninger fra read replicaen og inden for en unit of work
+ * opdaterer ikke den kendte instans med det samme - se IdentityMap.
+ */
+public class LaptopRowMapper extends ColumnIndexRowMapper<Laptop> {
+    private static final IdentityMap identityMap = IdentityMap.getInstance();
+
+    private static final int ID = 0;
+    private static final int BRAND = 1;
+    private static final int MODEL = 2;
+    private static final int GIGABYTE = 3;
+    private static final int RAM = 4;
+    private static final int PERFORMANCE_TYPE = 5;
+    private static final int STATE = 6;
+
+    /**
+     * Opretter en mapper for Laptop's egne kolonnenavne.
+     */
+    public LaptopRowMapper() {
+        this("");
+    }
+
+    /**
+     * Opretter en mapper for en projektion hvor kolonnerne har et fælles præfiks.
+     *
+     * @param columnPrefix Præfiks foran kolonnenavnene
+     */
+    public LaptopRowMapper(String columnPrefix) {
+        super(columnPrefix, "laptop_uuid", "brand", "model", "gigabyte", "ram", "performance_type", "state");
+    }
+
+    @Override
+    protected Laptop mapRow(ResultSet rs, int[] indexes) throws SQLException {
+        Laptop laptop = new Laptop(
+                rs.getObject(indexes[ID], UUID.class),
+                rs.getString(indexes[BRAND]),
+                rs.getString(indexes[MODEL]),
+                rs.getInt(indexes[GIGABYTE]),
+                rs.getInt(indexes[RAM]),
+                PerformanceTypeEnum.valueOf(rs.getString(indexes[PERFORMANCE_TYPE])),
+                stateFromDatabase(rs.getString(indexes[STATE])));
+        return identityMap.canonical(Laptop.class, laptop.getId(), laptop, LaptopRowMapper::refresh);
+    }
+
+    /**
+     * Overfører værdierne fra en netop indlæst eller skrevet række til den kendte instans uden events.
+     */
+    static void refresh(Laptop known, Laptop loaded) {
+        known.refreshFromDatabase(loaded);
+    }
+
+    /**
+     * Oversætter tilstandsnavnet fra databasen til en LaptopState.
+     */
+    private static LaptopState stateFromDatabase(String stateName) {
+        return "LoanedState".equals(stateName) ? LoanedState.INSTANCE : AvailableState.INSTANCE;
+    }
+}
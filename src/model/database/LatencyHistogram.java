@@ -0,0 +1,178 @@
+package model.database;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Låsefrit histogram over varigheder.
+ * Værdierne fordeles i buckets med dobbelt bredde (1 µs, 2 µs, 4 µs, ...), så percentiler
+ * kan beregnes billigt uden at gemme de enkelte målinger. Percentilerne interpoleres lineært
+ * inden for en bucket og er dermed tilnærmede.
+ */
+public class LatencyHistogram {
+    // 2^36 µs ~ 19 timer - alt derover havner i sidste bucket
+    private static final int BUCKETS = 37;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Registrerer én måling.
+     *
+     * @param nanos Varighed i nanosekunder
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketFor(value));
+        count.increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    /**
+     * @return Antal målinger
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Beregner en tilnærmet percentil.
+     *
+     * @param percentile Percentil mellem 0 og 100
+     * @return Varighed i nanosekunder, eller 0 hvis der ikke er målinger
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+        rank = Math.max(1, rank);
+
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            if (seen + counts[i] >= rank) {
+                long lower = lowerBoundNanos(i);
+                long upper = Math.min(upperBoundNanos(i), maxNanos.get());
+                double fraction = (double) (rank - seen) / counts[i];
+                return lower + (long) ((Math.max(upper, lower) - lower) * fraction);
+            }
+            seen += counts[i];
+        }
+        return maxNanos.get();
+    }
+
+    /**
+     * Tager et øjebliksbillede af histogrammet.
+     *
+     * @return Uforanderligt snapshot med de vigtigste nøgletal
+     */
+    public Snapshot snapshot() {
+        long n = count.sum();
+        double mean = n == 0 ? 0 : totalNanos.sum() / (double) n;
+        return new Snapshot(n,
+                toMillis(mean),
+                toMillis(getPercentileNanos(50)),
+                toMillis(getPercentileNanos(95)),
+                toMillis(getPercentileNanos(99)),
+                toMillis(maxNanos.get()));
+    }
+
+    /**
+     * Nulstiller alle målinger. Målinger der registreres samtidig kan gå tabt.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    private static int bucketFor(long nanos) {
+        long micros = nanos / 1000;
+        if (micros <= 1) {
+            return 0;
+        }
+        int bucket = 64 - Long.numberOfLeadingZeros(micros - 1);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    private static long lowerBoundNanos(int bucket) {
+        return bucket == 0 ? 0 : (1L << (bucket - 1)) * 1000;
+    }
+
+    private static long upperBoundNanos(int bucket) {
+        return (1L << bucket) * 1000;
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Uforanderligt øjebliksbillede af et histogram. Alle tider er i millisekunder.
+     */
+    public static final class Snapshot {
+        private final long count;
+        private final double meanMillis;
+        private final double p50Millis;
+        private final double p95Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+
+        public Snapshot(long count, double meanMillis, double p50Millis, double p95Millis,
+                        double p99Millis, double maxMillis) {
+            this.count = count;
+            this.meanMillis = meanMillis;
+            this.p50Millis = p50Millis;
+            this.p95Millis = p95Millis;
+            this.p99Millis = p99Millis;
+            this.maxMillis = maxMillis;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanMillis() {
+            return meanMillis;
+        }
+
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        public double getP95Millis() {
+            return p95Millis;
+        }
+
+        public double getP99Millis() {
+            return p99Millis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("n=%d mean=%.2fms p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms",
+                    count, meanMillis, p50Millis, p95Millis, p99Millis, maxMillis);
+        }
+    }
+}
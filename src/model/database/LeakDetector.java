@@ -0,0 +1,235 @@
+package model.database;
+
+import model.events.SystemEvents;
+import model.log.Log;
+import model.util.EventBus;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Finder forbindelser der holdes for længe (mulige læk) og indlejrede hentninger, hvor en tråd
+ * henter en ny forbindelse mens den allerede holder en. Indlejrede hentninger kan låse poolen fast
+ * under belastning: alle tråde holder én forbindelse og venter på den næste.
+ * For at holde omkostningen nede gemmes stacken kun for en stikprøve af hentningerne - kaldende
+ * metode kendes altid.
+ */
+final class LeakDetector {
+    private static final Logger logger = Logger.getLogger(LeakDetector.class.getName());
+    private static final Log log = Log.getInstance();
+    private static final EventBus eventBus = EventBus.getInstance();
+
+    private static final LeakDetector instance = new LeakDetector();
+
+    // Udlånte forbindelser
+    private final Set<Borrow> active = ConcurrentHashMap.newKeySet();
+    // Indlejringer der allerede er rapporteret (ydre -> indre kalder), så loggen ikke oversvømmes
+    private final Set<String> reportedNestings = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder overHoldCount = new LongAdder();
+    private final LongAdder nestedCheckoutCount = new LongAdder();
+
+    private volatile boolean enabled = true;
+    private volatile long holdThresholdNanos = TimeUnit.SECONDS.toNanos(10);
+    private volatile double sampleRate = 0.05;
+
+    private LeakDetector() {
+    }
+
+    static LeakDetector getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param enabled             Om detektoren er slået til
+     * @param holdThresholdMillis Holdetid hvorefter en forbindelse rapporteres
+     * @param sampleRate          Andel af hentninger (0-1) hvor stacken gemmes
+     */
+    void configure(boolean enabled, long holdThresholdMillis, double sampleRate) {
+        this.enabled = enabled;
+        this.holdThresholdNanos = TimeUnit.MILLISECONDS.toNanos(holdThresholdMillis);
+        this.sampleRate = Math.max(0.0, Math.min(1.0, sampleRate));
+    }
+
+    /**
+     * Registrerer en hentning. Skal kaldes på den kaldende tråd, så tråd og stack er kalderens.
+     * Holder tråden allerede en forbindelse, rapporteres hentningen som indlejret.
+     *
+     * @param poolName Poolen der hentes fra
+     * @param caller   Kaldende metode
+     * @return Hentningen, som gives til track() og release()
+     */
+    Borrow begin(String poolName, String caller) {
+        Thread borrower = Thread.currentThread();
+        if (!enabled) {
+            return new Borrow(poolName, caller, borrower, null, false);
+        }
+
+        for (Borrow held : active) {
+            if (held.borrower == borrower) {
+                reportNested(held, poolName, caller, borrower);
+                break;
+            }
+        }
+
+        Throwable stack = ThreadLocalRandom.current().nextDouble() < sampleRate
+                ? new Throwable("Forbindelse hentet af " + caller)
+                : null;
+        return new Borrow(poolName, caller, borrower, stack, true);
+    }
+
+    private void reportNested(Borrow held, String poolName, String caller, Thread borrower) {
+        nestedCheckoutCount.increment();
+        if (!reportedNestings.add(held.caller + " -> " + caller)) {
+            return;
+        }
+
+        String message = "Indlejret hentning af databaseforbindelse: " + caller + " henter fra pool '" + poolName +
+                "' mens tråden '" + borrower.getName() + "' holder en forbindelse fra " + held.caller +
+                " (pool '" + held.poolName + "')";
+        logger.log(Level.WARNING, message, new Throwable("Indlejret hentning"));
+        log.warning(message);
+
+        eventBus.post(new SystemEvents.NestedCheckoutDetectedEvent(
+                poolName, held.caller, caller, borrower.getName()));
+    }
+
+    /**
+     * Markerer at forbindelsen er udleveret. Holdetiden måles herfra.
+     *
+     * @param borrow Hentningen fra begin()
+     */
+    void track(Borrow borrow) {
+        if (borrow.tracked) {
+            borrow.handedOutNanos = System.nanoTime();
+            active.add(borrow);
+        }
+    }
+
+    /**
+     * Markerer at forbindelsen er returneret.
+     *
+     * @param borrow Hentningen fra begin()
+     */
+    void release(Borrow borrow) {
+        if (active.remove(borrow) && borrow.reported) {
+            long heldMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - borrow.handedOutNanos);
+            logger.info("Forbindelse fra " + borrow.caller + " returneret efter " + heldMillis + " ms");
+        }
+    }
+
+    /**
+     * Gennemgår de udlånte forbindelser og rapporterer dem der er holdt længere end grænsen.
+     * Hver forbindelse rapporteres højst én gang. Køres periodisk.
+     */
+    void scan() {
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        for (Borrow borrow : active) {
+            long heldNanos = now - borrow.handedOutNanos;
+            if (borrow.reported || heldNanos < holdThresholdNanos) {
+                continue;
+            }
+            borrow.reported = true;
+            overHoldCount.increment();
+
+            long heldMillis = TimeUnit.NANOSECONDS.toMillis(heldNanos);
+            String message = "Mulig forbindelseslæk: " + borrow.caller + " har holdt en forbindelse fra pool '" +
+                    borrow.poolName + "' i " + heldMillis + " ms (tråd '" + borrow.borrower.getName() + "')";
+            if (borrow.stack != null) {
+                logger.log(Level.WARNING, message, borrow.stack);
+            } else {
+                logger.warning(message + " - stack ikke gemt for denne hentning");
+            }
+            log.warning(message);
+
+            eventBus.post(new SystemEvents.ConnectionLeakSuspectedEvent(
+                    borrow.poolName, borrow.caller, borrow.borrower.getName(), heldMillis,
+                    borrow.stack != null ? stackTraceOf(borrow.stack) : null));
+        }
+    }
+
+    private static String stackTraceOf(Throwable stack) {
+        StringWriter writer = new StringWriter();
+        stack.printStackTrace(new PrintWriter(writer));
+        return writer.toString();
+    }
+
+    int getActiveCount() {
+        return active.size();
+    }
+
+    long getOverHoldCount() {
+        return overHoldCount.sum();
+    }
+
+    long getNestedCheckoutCount() {
+        return nestedCheckoutCount.sum();
+    }
+
+    /**
+     * @return Læsbar oversigt over udlånte forbindelser og fundne problemer
+     */
+    String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("Forbindelseslæk:\n");
+        report.append("  Udlånte forbindelser: ").append(active.size()).append("\n");
+        report.append("  Holdt for længe: ").append(overHoldCount.sum()).append("\n");
+        report.append("  Indlejrede hentninger: ").append(nestedCheckoutCount.sum());
+
+        long now = System.nanoTime();
+        for (Borrow borrow : active) {
+            long heldNanos = now - borrow.handedOutNanos;
+            if (heldNanos >= holdThresholdNanos) {
+                report.append("\n  ").append(borrow.caller).append(" (pool '").append(borrow.poolName)
+                        .append("', tråd '").append(borrow.borrower.getName()).append("'): ")
+                        .append(TimeUnit.NANOSECONDS.toMillis(heldNanos)).append(" ms");
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * Nulstiller tællerne og de rapporterede indlejringer.
+     */
+    void reset() {
+        overHoldCount.reset();
+        nestedCheckoutCount.reset();
+        reportedNestings.clear();
+    }
+
+    /**
+     * Én hentning af en forbindelse: hvem, hvorfra og evt. stacken.
+     */
+    static final class Borrow {
+        private final String poolName;
+        private final String caller;
+        private final Thread borrower;
+        private final Throwable stack;
+        private final boolean tracked;
+        private volatile long handedOutNanos;
+        private volatile boolean reported;
+
+        private Borrow(String poolName, String caller, Thread borrower, Throwable stack, boolean tracked) {
+            this.poolName = poolName;
+            this.caller = caller;
+            this.borrower = borrower;
+            this.stack = stack;
+            this.tracked = tracked;
+        }
+
+        String getCaller() {
+            return caller;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package model.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Proxy omkring en pool-forbindelse der måler hvor længe kalderen holder på den.
+ * Holdetiden registreres ved første close(). Statements pakkes ind i DeadlineStatement når
+ * tråden har en Deadline, og i ProfiledStatement når SQL-profilering er slået til; alle andre
+ * kald sendes uændret videre.
+ * For en forbindelse til read replicaen registreres det på tråden der bruger den, så IdentityMap
+ * kan undlade at opdatere kendte objekter med en muligvis forældet læsning.
+ */
+final class MeteredConnection implements InvocationHandler {
+    private static final SqlProfiler profiler = SqlProfiler.getInstance();
+
+    // Antal åbne replica-forbindelser pr. tråd
+    private static final ThreadLocal<AtomicInteger> replicaReads = ThreadLocal.withInitial(AtomicInteger::new);
+
+    private final Connection delegate;
+    private final String caller;
+    private final ConnectionMetrics metrics;
+    private final Runnable releaseListener;
+    private final boolean replica;
+    private final long checkoutNanos;
+    private AtomicInteger replicaReadCount;
+    private boolean closed;
+
+    private MeteredConnection(Connection delegate, String caller, ConnectionMetrics metrics,
+                              Runnable releaseListener, boolean replica) {
+        this.delegate = delegate;
+        this.caller = caller;
+        this.metrics = metrics;
+        this.releaseListener = releaseListener;
+        this.replica = replica;
+        this.checkoutNanos = System.nanoTime();
+    }
+
+    /**
+     * Pakker en forbindelse ind så holdetiden registreres når den lukkes.
+     *
+     * @param delegate        Forbindelsen fra poolen
+     * @param caller          Kaldende metode, fx "LaptopDAO.getAll"
+     * @param metrics         Målingerne holdetiden registreres i
+     * @param releaseListener Kaldes når forbindelsen lukkes, eller null
+     * @param replica         Om forbindelsen går til read replicaen
+     * @return Forbindelse der opfører sig som delegate
+     */
+    static Connection wrap(Connection delegate, String caller, ConnectionMetrics metrics,
+                           Runnable releaseListener, boolean replica) {
+        return (Connection) Proxy.newProxyInstance(
+                MeteredConnection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new MeteredConnection(delegate, caller, metrics, releaseListener, replica));
+    }
+
+    /**
+     * @return true hvis den aktuelle tråd bruger en åben forbindelse til read replicaen
+     */
+    static boolean isReadingFromReplica() {
+        return replicaReads.get().get() > 0;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+            if (!closed) {
+                closed = true;
+                if (replicaReadCount != null) {
+                    replicaReadCount.decrementAndGet();
+                }
+                metrics.recordHold(caller, System.nanoTime() - checkoutNanos);
+                if (releaseListener != null) {
+                    releaseListener.run();
+                }
+            }
+        } else if (replica && !closed && replicaReadCount == null) {
+            // Forbindelsen hentes på en anden tråd - registrér den på tråden der først bruger den
+            replicaReadCount = replicaReads.get();
+            replicaReadCount.incrementAndGet();
+        }
+
+        Object result;
+        try {
+            result = method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+
+        // prepareStatement/prepareCall får SQL'en med, createStatement får den ved hver udførelse
+        if (result instanceof Statement) {
+            String preparedSql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+            Statement statement = (Statement) result;
+            Deadline deadline = Deadline.current();
+            if (deadline != null) {
+                statement = DeadlineStatement.wrap(statement, method.getReturnType(), deadline, caller, preparedSql);
+            }
+            if (profiler.isEnabled()) {
+                statement = ProfiledStatement.wrap(statement, method.getReturnType(), preparedSql);
+            }
+            return statement;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,268 @@
+package model.database;
+
+import model.enums.WorkloadEnum;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * De pools der er bygget ud fra én udgave af database.properties: primær, evt. read replica
+ * og evt. pools pr. trafiktype. Gruppen ændres ikke efter oprettelse, så DatabaseConnection kan
+ * skifte hele konfigurationen på én gang ved at udskifte én reference.
+ */
+final class PoolGroup {
+    private static final Logger logger = Logger.getLogger(PoolGroup.class.getName());
+
+    static final String PRIMARY_POOL = "primary";
+    static final String REPLICA_POOL = "replica";
+
+    // Nøgler (efter pool-præfikset) der skal være ikke-negative heltal
+    private static final String[] NUMERIC_KEYS = {
+            "pool.initialSize", "pool.minSize", "pool.maxSize", "pool.acquireIncrement",
+            "pool.checkoutTimeoutMs", "pool.maxIdleExcessSeconds",
+            "pool.maxStatements", "pool.maxStatementsPerConnection",
+            "test.idleTime", "timeout.checkout", "timeout.idle", "timeout.maxAge",
+            "retry.attempts", "retry.delay",
+            "pool.adaptive.intervalMs", "pool.adaptive.growWaitMs", "pool.adaptive.shrinkIdleIntervals",
+            "acquire.backoffBaseMs", "acquire.backoffMaxMs", "acquire.queueSize",
+            "circuit.failureThreshold", "circuit.openMs",
+            "metrics.saturationThresholdMs", "metrics.saturationWindowMs",
+            "stickyWindowMs", "reload.drainTimeoutMs", "leak.holdThresholdMs",
+            "profiler.nPlusOneThreshold", "profiler.operationGapMs",
+            "fault.coldStartMs", "fault.coldStartIdleMs", "latencyMs", "latencyJitterMs"
+    };
+
+    // Andele mellem 0 og 1, fx db.leak.sampleRate og db.fault.errorRate - også for fejlinjektionsregler
+    private static final String RATE_SUFFIX = "Rate";
+
+    private final Properties properties;
+    private final ConnectionPool primary;
+    private final ConnectionPool replica;
+    private final Map<WorkloadEnum, ConnectionPool> workloadPools;
+    private final long stickyWindowNanos;
+
+    private PoolGroup(Properties properties, ConnectionPool primary, ConnectionPool replica,
+                      Map<WorkloadEnum, ConnectionPool> workloadPools, long stickyWindowNanos) {
+        this.properties = properties;
+        this.primary = primary;
+        this.replica = replica;
+        this.workloadPools = workloadPools;
+        this.stickyWindowNanos = stickyWindowNanos;
+    }
+
+    /**
+     * Validerer og opretter alle pools for en konfiguration.
+     * Fejler oprettelsen af én pool, lukkes de allerede oprettede igen.
+     *
+     * @param dbProps         Indlæst database.properties
+     * @param scheduler       Scheduler til periodiske opgaver
+     * @return Den nye gruppe
+     * @throws IllegalArgumentException hvis konfigurationen er ugyldig
+     */
+    static PoolGroup create(Properties dbProps, ScheduledExecutorService scheduler) {
+        validate(dbProps);
+
+        // Arbejd på en kopi, så standardværdier ikke optræder som ændringer ved næste genindlæsning
+        Properties props = new Properties();
+        props.putAll(dbProps);
+
+        List<ConnectionPool> created = new ArrayList<>();
+        try {
+            ConnectionPool primary = new ConnectionPool(PRIMARY_POOL, props, "db.", scheduler);
+            created.add(primary);
+
+            // Opret read replica-poolen hvis den er konfigureret
+            ConnectionPool replica = null;
+            String replicaUrl = props.getProperty("db.replica.url", "").trim();
+            if (!replicaUrl.isEmpty()) {
+                // Replica-forbindelser åbnes read-only, så en fejlrouting ikke kan skrive
+                if (props.getProperty("db.replica.pgProperty.readOnly") == null) {
+                    props.setProperty("db.replica.pgProperty.readOnly", "true");
+                }
+                replica = new ConnectionPool(REPLICA_POOL, props, "db.replica.", scheduler);
+                created.add(replica);
+                logger.info("Read replica konfigureret - læsninger routes til " + replicaUrl);
+            }
+
+            // Opret pools for de trafiktyper der har en størrelse konfigureret - resten deler den primære
+            Map<WorkloadEnum, ConnectionPool> workloadPools = new EnumMap<>(WorkloadEnum.class);
+            for (WorkloadEnum workload : WorkloadEnum.values()) {
+                String prefix = workloadPrefix(workload);
+                if (workload != WorkloadEnum.INTERACTIVE && props.getProperty(prefix + "pool.maxSize") != null) {
+                    ConnectionPool pool = new ConnectionPool(workload.getConfigKey(), props, prefix, scheduler);
+                    created.add(pool);
+                    workloadPools.put(workload, pool);
+                    logger.info("Separat forbindelsespool oprettet for " + workload.getConfigKey() + "-trafik");
+                }
+            }
+
+            long stickyWindowNanos = TimeUnit.MILLISECONDS.toNanos(
+                    Long.parseLong(props.getProperty("db.replica.stickyWindowMs", "2000")));
+            return new PoolGroup(dbProps, primary, replica, Collections.unmodifiableMap(workloadPools),
+                    stickyWindowNanos);
+        } catch (RuntimeException e) {
+            for (ConnectionPool pool : created) {
+                pool.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Kontrollerer en konfiguration før der oprettes pools ud fra den.
+     *
+     * @param dbProps Konfigurationen
+     * @throws IllegalArgumentException med en beskrivelse af første fejl
+     */
+    static void validate(Properties dbProps) {
+        for (String key : new String[]{"db.driver", "db.url", "db.user", "db.password"}) {
+            String value = dbProps.getProperty(key);
+            if (value == null || value.trim().isEmpty()) {
+                throw new IllegalArgumentException("Manglende værdi for " + key);
+            }
+        }
+
+        for (String key : dbProps.stringPropertyNames()) {
+            if (!key.startsWith("db.") || key.contains(".pgProperty.")) {
+                continue;
+            }
+            for (String numericKey : NUMERIC_KEYS) {
+                if (key.endsWith("." + numericKey)) {
+                    requireNonNegative(dbProps, key);
+                }
+            }
+            // Tidsbudgetter pr. operation har frie navne
+            if (key.startsWith("db.deadline.")) {
+                requireNonNegative(dbProps, key);
+            }
+            if (key.endsWith(RATE_SUFFIX)) {
+                requireRate(dbProps, key);
+            }
+        }
+
+        // Poolstørrelser skal hænge sammen for hver pool
+        List<String> prefixes = new ArrayList<>();
+        prefixes.add("db.");
+        prefixes.add("db.replica.");
+        for (WorkloadEnum workload : WorkloadEnum.values()) {
+            prefixes.add(workloadPrefix(workload));
+        }
+        for (String prefix : prefixes) {
+            String minSize = dbProps.getProperty(prefix + "pool.minSize", dbProps.getProperty("db.pool.minSize", "1"));
+            String maxSize = dbProps.getProperty(prefix + "pool.maxSize", dbProps.getProperty("db.pool.maxSize", "10"));
+            if (Long.parseLong(maxSize.trim()) < 1) {
+                throw new IllegalArgumentException(prefix + "pool.maxSize skal være mindst 1");
+            }
+            if (Long.parseLong(minSize.trim()) > Long.parseLong(maxSize.trim())) {
+                throw new IllegalArgumentException(prefix + "pool.minSize (" + minSize + ") er større end " +
+                        prefix + "pool.maxSize (" + maxSize + ")");
+            }
+        }
+
+        String driver = dbProps.getProperty("db.driver").trim();
+        try {
+            Class.forName(driver);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Ukendt database driver: " + driver, e);
+        }
+    }
+
+    private static void requireNonNegative(Properties dbProps, String key) {
+        String value = dbProps.getProperty(key).trim();
+        try {
+            if (Long.parseLong(value) < 0) {
+                throw new IllegalArgumentException(key + " må ikke være negativ: " + value);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " er ikke et tal: " + value, e);
+        }
+    }
+
+    private static void requireRate(Properties dbProps, String key) {
+        String value = dbProps.getProperty(key).trim();
+        double rate;
+        try {
+            rate = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " er ikke et tal: " + value, e);
+        }
+        if (!(rate >= 0 && rate <= 1)) {
+            throw new IllegalArgumentException(key + " skal være mellem 0 og 1: " + value);
+        }
+    }
+
+    static String workloadPrefix(WorkloadEnum workload) {
+        return "db.workload." + workload.getConfigKey() + ".";
+    }
+
+    /**
+     * @return Konfigurationen gruppen er bygget af
+     */
+    Properties getProperties() {
+        return properties;
+    }
+
+    ConnectionPool getPrimary() {
+        return primary;
+    }
+
+    /**
+     * @return Read replica-poolen, eller null hvis der ikke er konfigureret en
+     */
+    ConnectionPool getReplica() {
+        return replica;
+    }
+
+    /**
+     * @param workload Trafiktypen
+     * @return Trafiktypens egen pool, eller null hvis den deler den primære
+     */
+    ConnectionPool getWorkloadPool(WorkloadEnum workload) {
+        return workloadPools.get(workload);
+    }
+
+    long getStickyWindowNanos() {
+        return stickyWindowNanos;
+    }
+
+    /**
+     * @return Alle pools i gruppen: primær, evt. replica og evt. pools pr. trafiktype
+     */
+    List<ConnectionPool> getAll() {
+        List<ConnectionPool> pools = new ArrayList<>();
+        pools.add(primary);
+        if (replica != null) {
+            pools.add(replica);
+        }
+        pools.addAll(workloadPools.values());
+        return pools;
+    }
+
+    /**
+     * Trækker alle pools tilbage, så de lukker når deres udlånte forbindelser er returneret.
+     *
+     * @param drainTimeoutMillis Maksimal ventetid før en pool lukkes alligevel
+     * @param scheduler          Scheduler til den tvungne lukning
+     */
+    void retire(long drainTimeoutMillis, ScheduledExecutorService scheduler) {
+        for (ConnectionPool pool : getAll()) {
+            pool.retire(drainTimeoutMillis, scheduler);
+        }
+    }
+
+    /**
+     * Lukker alle pools med det samme.
+     */
+    void close() {
+        for (ConnectionPool pool : getAll()) {
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package model.database;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Uforanderligt øjebliksbillede af forbindelsespoolens målinger.
+ * Tiderne er i millisekunder, så de kan eksporteres direkte til dashboards og logs.
+ */
+public final class PoolMetricsSnapshot {
+    private final String poolName;
+    private final long timestamp;
+    private final LatencyHistogram.Snapshot checkoutWait;
+    private final long[] retryDistribution;
+    private final long failedCheckouts;
+    private final Map<String, LatencyHistogram.Snapshot> holdTimeByCaller;
+    private final int busyConnections;
+    private final int idleConnections;
+    private final int totalConnections;
+    private final int maxPoolSize;
+    private final boolean saturated;
+
+    PoolMetricsSnapshot(String poolName, LatencyHistogram.Snapshot checkoutWait, long[] retryDistribution,
+                        long failedCheckouts, Map<String, LatencyHistogram.Snapshot> holdTimeByCaller, int busyConnections,
+                        int idleConnections, int totalConnections, int maxPoolSize, boolean saturated) {
+        this.poolName = poolName;
+        this.timestamp = System.currentTimeMillis();
+        this.checkoutWait = checkoutWait;
+        this.retryDistribution = retryDistribution.clone();
+        this.failedCheckouts = failedCheckouts;
+        this.holdTimeByCaller = Collections.unmodifiableMap(new LinkedHashMap<>(holdTimeByCaller));
+        this.busyConnections = busyConnections;
+        this.idleConnections = idleConnections;
+        this.totalConnections = totalConnections;
+        this.maxPoolSize = maxPoolSize;
+        this.saturated = saturated;
+    }
+
+    /**
+     * @return Navnet på poolen, fx "primary" eller "replica"
+     */
+    public String getPoolName() {
+        return poolName;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return Ventetid ved checkout inkl. genforsøg, for både lykkede og fejlede checkouts
+     */
+    public LatencyHistogram.Snapshot getCheckoutWait() {
+        return checkoutWait;
+    }
+
+    /**
+     * @return Element i er antal checkouts der lykkedes efter i genforsøg
+     */
+    public long[] getRetryDistribution() {
+        return retryDistribution.clone();
+    }
+
+    /**
+     * @return Samlet antal genforsøg på tværs af alle lykkede checkouts
+     */
+    public long getTotalRetries() {
+        long total = 0;
+        for (int i = 1; i < retryDistribution.length; i++) {
+            total += i * retryDistribution[i];
+        }
+        return total;
+    }
+
+    public long getFailedCheckouts() {
+        return failedCheckouts;
+    }
+
+    /**
+     * @return Holdetid pr. kaldende metode, fx "ReservationDAO.getAll"
+     */
+    public Map<String, LatencyHistogram.Snapshot> getHoldTimeByCaller() {
+        return holdTimeByCaller;
+    }
+
+    public int getBusyConnections() {
+        return busyConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * @return true hvis p99 ventetid i seneste vindue lå over mætningsgrænsen
+     */
+    public boolean isSaturated() {
+        return saturated;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Pool: ").append(poolName).append("\n");
+        sb.append("Checkout ventetid: ").append(checkoutWait).append("\n");
+        sb.append("Genforsøg: ").append(getTotalRetries())
+                .append(", mislykkede checkouts: ").append(failedCheckouts).append("\n");
+        sb.append("Forbindelser: ").append(busyConnections).append(" i brug / ")
+                .append(idleConnections).append(" inaktive / ")
+                .append(maxPoolSize).append(" max")
+                .append(saturated ? " (MÆTTET)" : "").append("\n");
+        holdTimeByCaller.forEach((caller, hold) ->
+                sb.append("  ").append(caller).append(": ").append(hold).append("\n"));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,169 @@
+package model.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Proxy omkring Statement, PreparedStatement og CallableStatement der måler hver udførelse
+ * i SqlProfiler. ResultSets pakkes ind, så læste rækker tælles med på skabelonen.
+ */
+final class ProfiledStatement implements InvocationHandler {
+    private static final SqlProfiler profiler = SqlProfiler.getInstance();
+
+    private final Statement delegate;
+    // Skabelonen for PreparedStatement - null for Statement, hvor SQL gives ved hver udførelse
+    private final String preparedTemplate;
+
+    private ProfiledStatement(Statement delegate, String preparedTemplate) {
+        this.delegate = delegate;
+        this.preparedTemplate = preparedTemplate;
+    }
+
+    /**
+     * Pakker et statement ind.
+     *
+     * @param delegate    Statement fra driveren
+     * @param type        Interfacet proxyen skal implementere (Statement, PreparedStatement eller CallableStatement)
+     * @param preparedSql SQL statementet er forberedt med, eller null for et almindeligt Statement
+     * @return Statement der opfører sig som delegate
+     */
+    static Statement wrap(Statement delegate, Class<?> type, String preparedSql) {
+        String template = preparedSql != null ? profiler.templateOf(preparedSql) : null;
+        return (Statement) Proxy.newProxyInstance(
+                ProfiledStatement.class.getClassLoader(),
+                new Class<?>[]{type},
+                new ProfiledStatement(delegate, template));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if ("equals".equals(name) && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if ("hashCode".equals(name) && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        if (!name.startsWith("execute")) {
+            Object result = invokeDelegate(method, args);
+            if (result instanceof ResultSet && "getResultSet".equals(name)) {
+                return RowCountingResultSet.wrap((ResultSet) result, currentTemplate(null));
+            }
+            return result;
+        }
+
+        String template = currentTemplate(args);
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invokeDelegate(method, args);
+        } catch (Throwable e) {
+            profiler.recordExecution(template, System.nanoTime() - start, 0, true);
+            throw e;
+        }
+        profiler.recordExecution(template, System.nanoTime() - start, affectedRows(result), false);
+
+        if (result instanceof ResultSet) {
+            return RowCountingResultSet.wrap((ResultSet) result, template);
+        }
+        return result;
+    }
+
+    private Object invokeDelegate(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private String currentTemplate(Object[] args) {
+        if (preparedTemplate != null) {
+            return preparedTemplate;
+        }
+        if (args != null && args.length > 0 && args[0] instanceof String) {
+            return profiler.templateOf((String) args[0]);
+        }
+        return "<batch>";
+    }
+
+    /**
+     * Påvirkede rækker for opdateringer. Forespørgslers rækker tælles af RowCountingResultSet.
+     */
+    private static long affectedRows(Object result) {
+        if (result instanceof Integer) {
+            return Math.max(0, (Integer) result);
+        }
+        if (result instanceof Long) {
+            return Math.max(0, (Long) result);
+        }
+        if (result instanceof int[]) {
+            long rows = 0;
+            for (int count : (int[]) result) {
+                // SUCCESS_NO_INFO (-2) fra reWriteBatchedInserts tælles som én række
+                rows += count >= 0 ? count : (count == Statement.SUCCESS_NO_INFO ? 1 : 0);
+            }
+            return rows;
+        }
+        if (result instanceof long[]) {
+            long rows = 0;
+            for (long count : (long[]) result) {
+                rows += count >= 0 ? count : (count == Statement.SUCCESS_NO_INFO ? 1 : 0);
+            }
+            return rows;
+        }
+        return 0;
+    }
+
+    /**
+     * Proxy omkring ResultSet der tæller rækker på skabelonen når resultatet lukkes.
+     */
+    private static final class RowCountingResultSet implements InvocationHandler {
+        private final ResultSet delegate;
+        private final String template;
+        private long rows;
+        private boolean counted;
+
+        private RowCountingResultSet(ResultSet delegate, String template) {
+            this.delegate = delegate;
+            this.template = template;
+        }
+
+        static ResultSet wrap(ResultSet delegate, String template) {
+            return (ResultSet) Proxy.newProxyInstance(
+                    ProfiledStatement.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class},
+                    new RowCountingResultSet(delegate, template));
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("equals".equals(name) && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name) && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            }
+
+            Object result;
+            try {
+                result = method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            if ("next".equals(name) && Boolean.TRUE.equals(result)) {
+                rows++;
+            } else if ("close".equals(name) && !counted) {
+                counted = true;
+                profiler.countRows(template, rows);
+            }
+            return result;
+        }
+    }
+}
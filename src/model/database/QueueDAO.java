@@ -8,7 +8,9 @@ import model.util.EventBus;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,6 +23,17 @@ public class QueueDAO {
     private static final Log log = Log.getInstance();
     private static final EventBus eventBus = EventBus.getInstance();
 
+    // Fælles SELECT der henter køens studerende med fulde Student-kolonner i ét round trip
+    private static final String SELECT_QUEUED_STUDENTS =
+            "SELECT q.performance_type AS queue_type, s.via_id, s.name, s.degree_end_date, s.degree_title, " +
+            "s.email, s.phone_number, s.performance_needed, s.has_laptop " +
+            "FROM QueueEntry q JOIN Student s ON s.via_id = q.student_via_id";
+    private static final String SELECT_QUEUE_SQL = SELECT_QUEUED_STUDENTS +
+            " WHERE q.performance_type = ? ORDER BY q.entry_date ASC, q.entry_id ASC";
+    private static final String COUNT_QUEUE_SQL = "SELECT COUNT(*) FROM QueueEntry WHERE performance_type = ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO QueueEntry (student_via_id, performance_type, entry_date) VALUES (?, ?, CURRENT_TIMESTAMP)";
+
     private final StudentDAO studentDAO;
 
     /**
@@ -39,7 +52,7 @@ public class QueueDAO {
      * @throws SQLException hvis der er problemer med databasen
      */
     public boolean addToQueue(Student student, PerformanceTypeEnum performanceType) throws SQLException {
-        String sql = "INSERT INTO QueueEntry (student_via_id, performance_type, entry_date) VALUES (?, ?, CURRENT_TIMESTAMP)";
+        String sql = INSERT_SQL;
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -54,9 +67,9 @@ public class QueueDAO {
                 log.info("Student [" + student.getName() + ", VIA ID: " + student.getViaId() +
                         "] tilføjet til " + performanceType.getClass().getSimpleName() + "-ydelses kø");
 
-                // Post event
-                int newQueueSize = getQueueSize(performanceType);
-                eventBus.post(new SystemEvents.StudentAddedToQueueEvent(student, performanceType, newQueueSize));
+                // Post event - tælles på skriveforbindelsen, så tallet omfatter denne skrivning
+                int newQueueSize = countQueue(conn, performanceType);
+                UnitOfWork.publish(new SystemEvents.StudentAddedToQueueEvent(student, performanceType, newQueueSize));
             } else {
                 log.warning("Kunne ikke tilføje student til kø i databasen: VIA ID " + student.getViaId());
             }
@@ -77,20 +90,17 @@ public class QueueDAO {
      */
     public List<Student> getStudentsInQueue(PerformanceTypeEnum performanceType) throws SQLException {
         List<Student> studentsInQueue = new ArrayList<>();
-        String sql = "SELECT student_via_id FROM QueueEntry WHERE performance_type = ? ORDER BY entry_date ASC";
+        String sql = SELECT_QUEUE_SQL;
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, performanceType.name());
 
             try (ResultSet rs = stmt.executeQuery()) {
+                StudentRowMapper mapper = new StudentRowMapper();
                 while (rs.next()) {
-                    int studentViaId = rs.getInt("student_via_id");
-                    Student student = studentDAO.getById(studentViaId);
-                    if (student != null) {
-                        studentsInQueue.add(student);
-                    }
+                    studentsInQueue.add(mapper.map(rs));
                 }
             }
         } catch (SQLException e) {
@@ -100,6 +110,36 @@ public class QueueDAO {
         return studentsInQueue;
     }
 
+    /**
+     * Henter studerende i alle køer med én forespørgsel, sorteret efter indgangsdato inden for hver kø.
+     *
+     * @return Map fra ydelsestype til liste af studerende i den kø (tom liste for tomme køer)
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    public Map<PerformanceTypeEnum, List<Student>> getStudentsInAllQueues() throws SQLException {
+        Map<PerformanceTypeEnum, List<Student>> queues = new EnumMap<>(PerformanceTypeEnum.class);
+        for (PerformanceTypeEnum performanceType : PerformanceTypeEnum.values()) {
+            queues.put(performanceType, new ArrayList<>());
+        }
+
+        String sql = SELECT_QUEUED_STUDENTS + " ORDER BY q.performance_type, q.entry_date ASC, q.entry_id ASC";
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            StudentRowMapper mapper = new StudentRowMapper();
+            while (rs.next()) {
+                PerformanceTypeEnum queueType = PerformanceTypeEnum.valueOf(rs.getString("queue_type"));
+                queues.get(queueType).add(mapper.map(rs));
+            }
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved hentning af studerende i alle køer", e);
+            throw e;
+        }
+        return queues;
+    }
+
     /**
      * Fjern en student fra køen.
      *
@@ -131,8 +171,8 @@ public class QueueDAO {
                         "] fjernet fra " + performanceType.getClass().getSimpleName() + "-ydelses kø");
 
                 // Post event - vi antager ikke laptop tildeling her, det håndteres separat
-                int newQueueSize = getQueueSize(performanceType);
-                eventBus.post(new SystemEvents.StudentRemovedFromQueueEvent(
+                int newQueueSize = countQueue(conn, performanceType);
+                UnitOfWork.publish(new SystemEvents.StudentRemovedFromQueueEvent(
                         student, performanceType, newQueueSize, false));
             } else {
                 log.warning("Kunne ikke fjerne student fra kø: VIA ID " + studentViaId);
@@ -177,15 +217,15 @@ public class QueueDAO {
                 log.info("Student [" + student.getName() + ", VIA ID: " + studentViaId +
                         "] fjernet fra alle køer");
 
-                // Post events for hver kø studenten var i
+                // Post events for hver kø studenten var i - størrelserne tælles på skriveforbindelsen
                 if (inHighQueue) {
-                    int newHighQueueSize = getQueueSize(PerformanceTypeEnum.HIGH);
-                    eventBus.post(new SystemEvents.StudentRemovedFromQueueEvent(
+                    int newHighQueueSize = countQueue(conn, PerformanceTypeEnum.HIGH);
+                    UnitOfWork.publish(new SystemEvents.StudentRemovedFromQueueEvent(
                             student, PerformanceTypeEnum.HIGH, newHighQueueSize, false));
                 }
                 if (inLowQueue) {
-                    int newLowQueueSize = getQueueSize(PerformanceTypeEnum.LOW);
-                    eventBus.post(new SystemEvents.StudentRemovedFromQueueEvent(
+                    int newLowQueueSize = countQueue(conn, PerformanceTypeEnum.LOW);
+                    UnitOfWork.publish(new SystemEvents.StudentRemovedFromQueueEvent(
                             student, PerformanceTypeEnum.LOW, newLowQueueSize, false));
                 }
             } else {
@@ -200,75 +240,81 @@ public class QueueDAO {
     }
 
     /**
-     * Henter den næste student i kø for en ydelsestype og fjerner dem med transaktionssikkerhed.
+     * Henter den næste student i kø for en ydelsestype og fjerner dem atomisk.
+     * Sikker at kalde fra flere instanser samtidigt - se {@link #dequeueBatch(PerformanceTypeEnum, int)}.
      *
      * @param performanceType Ydelsestypen at hente fra
      * @return Studenten eller null hvis køen er tom
      * @throws SQLException hvis der er problemer med databasen
      */
     public Student getAndRemoveNextInQueue(PerformanceTypeEnum performanceType) throws SQLException {
-        Connection conn = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-
-            // Få den næste student i kø
-            String selectSql = "SELECT student_via_id, entry_id FROM QueueEntry WHERE performance_type = ? ORDER BY entry_date ASC LIMIT 1";
-            Student student = null;
-            int entryId = -1;
-
-            try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
-                stmt.setString(1, performanceType.name());
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        int studentViaId = rs.getInt("student_via_id");
-                        entryId = rs.getInt("entry_id");
-                        student = studentDAO.getById(studentViaId);
-                    }
-                }
-            }
-
-            // Fjern fra kø hvis fundet
-            if (student != null && entryId > 0) {
-                String deleteSql = "DELETE FROM QueueEntry WHERE entry_id = ?";
-                try (PreparedStatement deleteStmt = conn.prepareStatement(deleteSql)) {
-                    deleteStmt.setInt(1, entryId);
-                    deleteStmt.executeUpdate();
-                }
+        List<Student> dequeued = dequeueBatch(performanceType, 1);
+        return dequeued.isEmpty() ? null : dequeued.get(0);
+    }
 
-                log.info("Student [" + student.getName() + ", VIA ID: " + student.getViaId() +
-                        "] hentet og fjernet fra " + performanceType.getClass().getSimpleName() + "-ydelses kø");
+    /**
+     * Henter og fjerner op til n studerende fra toppen af en kø i ét round trip.
+     * Køens hoved låses med FOR UPDATE SKIP LOCKED og slettes med DELETE ... RETURNING i samme
+     * statement, så flere front-desk instanser kan tage fra køen parallelt uden at få den samme student.
+     * Rækker der allerede er låst af en anden instans springes over i stedet for at blokere.
+     *
+     * @param performanceType Ydelsestypen at hente fra
+     * @param n               Maksimalt antal studerende der skal hentes
+     * @return Liste af studerende i kø-rækkefølge (tom hvis køen er tom)
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    public List<Student> dequeueBatch(PerformanceTypeEnum performanceType, int n) throws SQLException {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Antal studerende skal være positivt: " + n);
+        }
 
-                // Event for fjernelse - laptop tildeling vil ske separat
-                int newQueueSize = getQueueSize(performanceType);
-                eventBus.post(new SystemEvents.StudentRemovedFromQueueEvent(
-                        student, performanceType, newQueueSize, true));
-            }
+        List<Student> dequeued = new ArrayList<>();
+        String sql = "WITH head AS (" +
+                "SELECT entry_id FROM QueueEntry WHERE performance_type = ? " +
+                "ORDER BY entry_date ASC, entry_id ASC LIMIT ? FOR UPDATE SKIP LOCKED), " +
+                "claimed AS (" +
+                "DELETE FROM QueueEntry q USING head WHERE q.entry_id = head.entry_id " +
+                "RETURNING q.student_via_id, q.entry_date, q.entry_id) " +
+                "SELECT s.via_id, s.name, s.degree_end_date, s.degree_title, s.email, s.phone_number, " +
+                "s.performance_needed, s.has_laptop, " +
+                // Sub-selecten ser køen som før sletningen, så størrelsen kræver ikke et ekstra round trip
+                "(SELECT COUNT(*) FROM QueueEntry WHERE performance_type = ?) AS queue_size_before " +
+                "FROM claimed c JOIN Student s ON s.via_id = c.student_via_id " +
+                "ORDER BY c.entry_date ASC, c.entry_id ASC";
+
+        int queueSizeBefore = 0;
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            conn.commit();
-            return student;
+            stmt.setString(1, performanceType.name());
+            stmt.setInt(2, n);
+            stmt.setString(3, performanceType.name());
 
-        } catch (SQLException e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                    log.warning("Transaktion rullet tilbage: " + e.getMessage());
-                } catch (SQLException ex) {
-                    log.error("Fejl under rollback: " + ex.getMessage());
+            try (ResultSet rs = stmt.executeQuery()) {
+                StudentRowMapper mapper = new StudentRowMapper();
+                while (rs.next()) {
+                    dequeued.add(mapper.map(rs));
+                    queueSizeBefore = rs.getInt("queue_size_before");
                 }
             }
-            handleSQLException("Fejl ved hentning og fjernelse af studerende fra kø", e);
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved hentning og fjernelse af studerende fra " + performanceType + " kø", e);
             throw e;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    log.warning("Fejl ved nulstilling af forbindelse: " + e.getMessage());
-                }
-            }
         }
+
+        // Events sendes efter statementet er committet
+        int remaining = queueSizeBefore;
+        for (Student student : dequeued) {
+            remaining = Math.max(0, remaining - 1);
+            log.info("Student [" + student.getName() + ", VIA ID: " + student.getViaId() +
+                    "] hentet og fjernet fra " + performanceType + "-ydelses kø");
+
+            // Event for fjernelse - laptop tildeling vil ske separat
+            UnitOfWork.publish(new SystemEvents.StudentRemovedFromQueueEvent(
+                    student, performanceType, remaining, true));
+        }
+
+        return dequeued;
     }
 
     /**
@@ -335,23 +381,26 @@ public class QueueDAO {
      * @throws SQLException hvis der er problemer med databasen
      */
     public int getQueueSize(PerformanceTypeEnum performanceType) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM QueueEntry WHERE performance_type = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            return countQueue(conn, performanceType);
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved hentning af kø-størrelse for " + performanceType, e);
+            throw e;
+        }
+    }
 
+    /**
+     * Tæller en kø på den givne forbindelse. Efter en skrivning bruges skriveforbindelsen selv,
+     * så tallet ikke læses fra en replica der endnu ikke har skrivningen, og uden en ekstra hentning.
+     */
+    private static int countQueue(Connection conn, PerformanceTypeEnum performanceType) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(COUNT_QUEUE_SQL)) {
             stmt.setString(1, performanceType.name());
 
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1);
-                }
+                return rs.next() ? rs.getInt(1) : 0;
             }
-        } catch (SQLException e) {
-            handleSQLException("Fejl ved hentning af kø-størrelse for " + performanceType, e);
-            throw e;
         }
-        return 0;
     }
 
     /**
@@ -363,7 +412,7 @@ public class QueueDAO {
     public int getTotalQueueSize() throws SQLException {
         String sql = "SELECT COUNT(*) FROM QueueEntry";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -403,7 +452,7 @@ public class QueueDAO {
 
                 // Post events for hver student
                 for (Student student : studentsInQueue) {
-                    eventBus.post(new SystemEvents.StudentRemovedFromQueueEvent(
+                    UnitOfWork.publish(new SystemEvents.StudentRemovedFromQueueEvent(
                             student, performanceType, 0, false));
                 }
             }
@@ -423,8 +472,9 @@ public class QueueDAO {
      */
     public int clearAllQueues() throws SQLException {
         // Først hent studerende i køerne så vi kan sende events
-        List<Student> highQueueStudents = getStudentsInQueue(PerformanceTypeEnum.HIGH);
-        List<Student> lowQueueStudents = getStudentsInQueue(PerformanceTypeEnum.LOW);
+        Map<PerformanceTypeEnum, List<Student>> queues = getStudentsInAllQueues();
+        List<Student> highQueueStudents = queues.get(PerformanceTypeEnum.HIGH);
+        List<Student> lowQueueStudents = queues.get(PerformanceTypeEnum.LOW);
 
         String sql = "DELETE FROM QueueEntry";
 
@@ -438,13 +488,13 @@ public class QueueDAO {
 
                 // Post events for hver student i HIGH køen
                 for (Student student : highQueueStudents) {
-                    eventBus.post(new SystemEvents.StudentRemovedFromQueueEvent(
+                    UnitOfWork.publish(new SystemEvents.StudentRemovedFromQueueEvent(
                             student, PerformanceTypeEnum.HIGH, 0, false));
                 }
 
                 // Post events for hver student i LOW køen
                 for (Student student : lowQueueStudents) {
-                    eventBus.post(new SystemEvents.StudentRemovedFromQueueEvent(
+                    UnitOfWork.publish(new SystemEvents.StudentRemovedFromQueueEvent(
                             student, PerformanceTypeEnum.LOW, 0, false));
                 }
             }
@@ -469,4 +519,14 @@ public class QueueDAO {
         // Post database error event
         eventBus.post(new SystemEvents.DatabaseErrorEvent(message, e.getSQLState(), e));
     }
-}
\ No newline at end of file
+
+    /**
+     * SQL for de hyppigste forespørgsler. Lægges i c3p0's statement-cache på nye forbindelser ved opstart.
+     * Skal være præcis samme tekst som metoderne bruger, ellers rammes cachen ikke.
+     *
+     * @return SQL-sætningerne
+     */
+    static List<String> hotStatements() {
+        return List.of(SELECT_QUEUE_SQL, INSERT_SQL);
+    }
+}
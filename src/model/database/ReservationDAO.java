@@ -1,20 +1,21 @@
 package model.database;
 
 import model.enums.ReservationStatusEnum;
+import model.enums.SortOrderEnum;
 import model.events.SystemEvents;
 import model.log.Log;
-import model.models.Laptop;
 import model.models.Reservation;
-import model.models.Student;
 import model.util.EventBus;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object for Reservation entiteter med forbedret implementering.
@@ -26,17 +27,73 @@ public class ReservationDAO implements GenericDAO<Reservation, UUID> {
     private static final Log log = Log.getInstance();
     private static final EventBus eventBus = EventBus.getInstance();
 
-    // DAO dependencies
-    private final LaptopDAO laptopDAO;
-    private final StudentDAO studentDAO;
-
-    /**
-     * Konstruktør der initialiserer DAO dependencies.
-     */
-    public ReservationDAO() {
-        this.laptopDAO = new LaptopDAO();
-        this.studentDAO = new StudentDAO();
-    }
+    // Fælles SELECT der henter reservation, laptop og student i ét round trip.
+    // Kolonnenavnene er valgt så LaptopRowMapper og StudentRowMapper kan genbruges direkte.
+    private static final String SELECT_WITH_RELATIONS =
+            "SELECT r.reservation_uuid, r.status, r.laptop_uuid, r.student_via_id, r.creation_date, " +
+            "l.brand, l.model, l.gigabyte, l.ram, l.performance_type, l.state, " +
+            "s.via_id, s.name, s.degree_end_date, s.degree_title, s.email, s.phone_number, " +
+            "s.performance_needed, s.has_laptop " +
+            "FROM Reservation r " +
+            "JOIN Laptop l ON l.laptop_uuid = r.laptop_uuid " +
+            "JOIN Student s ON s.via_id = r.student_via_id";
+
+    private static final String INSERT_SQL = "INSERT INTO Reservation (reservation_uuid, laptop_uuid, student_via_id, status, creation_date) " +
+            "VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE Reservation SET status = ? WHERE reservation_uuid = ?";
+    // Som UPDATE_SQL ændrer en eksisterende reservation kun status; laptop og student står fast.
+    // Én række pr. array-element; xmax er 0 for rækker indsat af statementet og sat for opdaterede
+    private static final String UPSERT_SQL = "INSERT INTO Reservation (reservation_uuid, laptop_uuid, student_via_id, status, creation_date) " +
+            "SELECT * FROM unnest(?::uuid[], ?::uuid[], ?::integer[], ?::varchar[], ?::timestamp[]) " +
+            "ON CONFLICT (reservation_uuid) DO UPDATE SET status = EXCLUDED.status " +
+            "RETURNING reservation_uuid, (xmax = 0) AS inserted";
+    private static final String SELECT_BY_ID_SQL = SELECT_WITH_RELATIONS + " WHERE r.reservation_uuid = ?";
+    private static final String SELECT_BY_STUDENT_SQL = SELECT_WITH_RELATIONS + " WHERE r.student_via_id = ?";
+
+    // Opretter reservationen og optager laptop og student i ét round trip. Rækkerne låses kun hvis
+    // vagterne holder; uden begge låste rækker opdateres og indsættes intet.
+    // Parametre: via_id, laptop_uuid, reservation_uuid, status, creation_date
+    private static final String CREATE_WITH_GUARDS_SQL =
+            "WITH free_student AS (" +
+            "SELECT via_id FROM Student WHERE via_id = ? AND has_laptop = FALSE FOR UPDATE), " +
+            "free_laptop AS (" +
+            "SELECT laptop_uuid FROM Laptop WHERE laptop_uuid = ? AND state = 'AvailableState' FOR UPDATE), " +
+            "claimed_laptop AS (" +
+            "UPDATE Laptop l SET state = 'LoanedState' FROM free_laptop f, free_student s " +
+            "WHERE l.laptop_uuid = f.laptop_uuid RETURNING l.laptop_uuid), " +
+            "claimed_student AS (" +
+            "UPDATE Student st SET has_laptop = TRUE FROM free_laptop f, free_student s " +
+            "WHERE st.via_id = s.via_id RETURNING st.via_id), " +
+            "inserted AS (" +
+            "INSERT INTO Reservation (reservation_uuid, laptop_uuid, student_via_id, status, creation_date) " +
+            "SELECT ?, f.laptop_uuid, s.via_id, ?, ? FROM free_laptop f, free_student s " +
+            "RETURNING reservation_uuid) " +
+            "SELECT EXISTS (SELECT 1 FROM free_laptop) AS laptop_available, " +
+            "EXISTS (SELECT 1 FROM free_student) AS student_without_laptop, " +
+            "EXISTS (SELECT 1 FROM inserted) AND EXISTS (SELECT 1 FROM claimed_laptop) " +
+            "AND EXISTS (SELECT 1 FROM claimed_student) AS created";
+
+    // Skifter status og frigiver laptop og student hvis en aktiv reservation afsluttes, i ét round trip.
+    // Laptop og student tages fra reservationsrækken. Ingen række tilbage betyder at reservationen ikke findes.
+    // Parametre: reservation_uuid, ny status, om den nye status afslutter reservationen
+    private static final String UPDATE_STATUS_WITH_RELEASE_SQL =
+            "WITH previous AS (" +
+            "SELECT reservation_uuid, status, laptop_uuid, student_via_id FROM Reservation " +
+            "WHERE reservation_uuid = ? FOR UPDATE), " +
+            "updated AS (" +
+            "UPDATE Reservation r SET status = ? FROM previous p " +
+            "WHERE r.reservation_uuid = p.reservation_uuid RETURNING r.reservation_uuid), " +
+            "ending AS (" +
+            "SELECT laptop_uuid, student_via_id FROM previous WHERE status = 'ACTIVE' AND ?), " +
+            "released_laptop AS (" +
+            "UPDATE Laptop l SET state = 'AvailableState' FROM ending e " +
+            "WHERE l.laptop_uuid = e.laptop_uuid RETURNING l.laptop_uuid), " +
+            "released_student AS (" +
+            "UPDATE Student s SET has_laptop = FALSE FROM ending e " +
+            "WHERE s.via_id = e.student_via_id RETURNING s.via_id) " +
+            "SELECT p.status AS previous_status, " +
+            "EXISTS (SELECT 1 FROM released_laptop) AND EXISTS (SELECT 1 FROM released_student) AS released " +
+            "FROM previous p";
 
     /**
      * Henter alle reservationer fra databasen.
@@ -47,15 +104,15 @@ public class ReservationDAO implements GenericDAO<Reservation, UUID> {
     @Override
     public List<Reservation> getAll() throws SQLException {
         List<Reservation> reservations = new ArrayList<>();
-        String sql = "SELECT r.reservation_uuid, r.status, r.laptop_uuid, r.student_via_id, r.creation_date " +
-                "FROM Reservation r";
+        String sql = SELECT_WITH_RELATIONS;
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
+            ReservationRowMapper mapper = new ReservationRowMapper();
             while (rs.next()) {
-                Reservation reservation = mapResultSetToReservation(rs);
+                Reservation reservation = mapper.map(rs);
                 if (reservation != null) {
                     reservations.add(reservation);
                 }
@@ -67,6 +124,88 @@ public class ReservationDAO implements GenericDAO<Reservation, UUID> {
         return reservations;
     }
 
+    /**
+     * Streamer alle reservationer med laptop og student via en server-side cursor.
+     * Egnet til rapporter og eksport over hele reservationshistorikken.
+     *
+     * @param fetchSize Antal rækker der hentes pr. round trip
+     * @return Stream af reservationer - skal lukkes efter brug
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    @Override
+    public Stream<Reservation> streamAll(int fetchSize) throws SQLException {
+        try {
+            return StreamingQuery.stream(SELECT_WITH_RELATIONS, fetchSize, stmt -> { },
+                    new ReservationRowMapper());
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved streaming af reservationer", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Streamer reservationer med en bestemt status via en server-side cursor.
+     *
+     * @param status    Status der filtreres på
+     * @param fetchSize Antal rækker der hentes pr. round trip
+     * @return Stream af reservationer - skal lukkes efter brug
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    public Stream<Reservation> streamByStatus(ReservationStatusEnum status, int fetchSize) throws SQLException {
+        try {
+            return StreamingQuery.stream(SELECT_WITH_RELATIONS + " WHERE r.status = ?", fetchSize,
+                    stmt -> stmt.setString(1, status.name()), new ReservationRowMapper());
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved streaming af reservationer med status " + status, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Henter én side af reservationer sorteret efter (creation_date, reservation_uuid) med keyset pagination.
+     * reservation_uuid bryder uafgjorte tidsstempler, så ingen rækker springes over eller gentages.
+     *
+     * @param after     Sidste reservation fra forrige side, eller null for første side
+     * @param limit     Maksimalt antal reservationer på siden
+     * @param sortOrder Sorteringsretning - DESC giver nyeste først
+     * @return Reservationer på siden
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    @Override
+    public List<Reservation> page(Reservation after, int limit, SortOrderEnum sortOrder) throws SQLException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Sidestørrelse skal være positiv: " + limit);
+        }
+
+        List<Reservation> reservations = new ArrayList<>();
+        String sql = SELECT_WITH_RELATIONS +
+                (after != null ? " WHERE (r.creation_date, r.reservation_uuid) " + sortOrder.getSeekOperator() + " (?, ?)" : "") +
+                " ORDER BY r.creation_date " + sortOrder.getSqlKeyword() +
+                ", r.reservation_uuid " + sortOrder.getSqlKeyword() + " LIMIT ?";
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            if (after != null) {
+                stmt.setTimestamp(index++, new Timestamp(after.getCreationDate().getTime()));
+                stmt.setObject(index++, after.getReservationId());
+            }
+            stmt.setInt(index, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                ReservationRowMapper mapper = new ReservationRowMapper();
+                while (rs.next()) {
+                    reservations.add(mapper.map(rs));
+                }
+            }
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved sidevis hentning af reservationer", e);
+            throw e;
+        }
+        return reservations;
+    }
+
     /**
      * Henter en specifik reservation baseret på UUID.
      *
@@ -76,17 +215,17 @@ public class ReservationDAO implements GenericDAO<Reservation, UUID> {
      */
     @Override
     public Reservation getById(UUID id) throws SQLException {
-        String sql = "SELECT reservation_uuid, status, laptop_uuid, student_via_id, creation_date " +
-                "FROM Reservation WHERE reservation_uuid = ?";
+        String sql = SELECT_BY_ID_SQL;
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, id.toString());
+            stmt.setObject(1, id);
 
             try (ResultSet rs = stmt.executeQuery()) {
+                ReservationRowMapper mapper = new ReservationRowMapper();
                 if (rs.next()) {
-                    return mapResultSetToReservation(rs);
+                    return mapper.map(rs);
                 }
             }
         } catch (SQLException e) {
@@ -105,17 +244,10 @@ public class ReservationDAO implements GenericDAO<Reservation, UUID> {
      */
     @Override
     public boolean insert(Reservation reservation) throws SQLException {
-        String sql = "INSERT INTO Reservation (reservation_uuid, laptop_uuid, student_via_id, status, creation_date) " +
-                "VALUES (?, ?, ?, ?, ?)";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
 
-            stmt.setString(1, reservation.getReservationId().toString());
-            stmt.setString(2, reservation.getLaptop().getId().toString());
-            stmt.setInt(3, reservation.getStudent().getViaId());
-            stmt.setString(4, reservation.getStatus().name());
-            stmt.setTimestamp(5, new Timestamp(reservation.getCreationDate().getTime()));
+            bindInsert(stmt, reservation);
 
             int affectedRows = stmt.executeUpdate();
 
@@ -126,7 +258,7 @@ public class ReservationDAO implements GenericDAO<Reservation, UUID> {
                         reservation.getLaptop().getBrand() + " " + reservation.getLaptop().getModel());
 
                 // Post event
-                eventBus.post(new SystemEvents.ReservationCreatedEvent(reservation));
+                UnitOfWork.publish(new SystemEvents.ReservationCreatedEvent(reservation));
             } else {
                 log.warning("Kunne ikke oprette reservation i database: " + reservation.getReservationId());
             }
@@ -147,13 +279,10 @@ public class ReservationDAO implements GenericDAO<Reservation, UUID> {
      */
     @Override
     public boolean update(Reservation reservation) throws SQLException {
-        String sql = "UPDATE Reservation SET status = ? WHERE reservation_uuid = ?";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
 
-            stmt.setString(1, reservation.getStatus().name());
-            stmt.setString(2, reservation.getReservationId().toString());
+            bindUpdate(stmt, reservation);
 
             int affectedRows = stmt.executeUpdate();
 
@@ -175,6 +304,97 @@ public class ReservationDAO implements GenericDAO<Reservation, UUID> {
         }
     }
 
+    /**
+     * Indsætter flere reservationer med JDBC batching i én transaktion.
+     * Opdaterer ikke laptop- og student-status - brug createReservationWithTransaction til det.
+     *
+     * @param reservations Reservationer der skal indsættes
+     * @return Antal indsatte rækker
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    @Override
+    public int insertAll(Collection<Reservation> reservations) throws SQLException {
+        try {
+            int affectedRows = BatchExecutor.executeBatch(INSERT_SQL, reservations, this::bindInsert);
+
+            log.info(affectedRows + " reservationer oprettet i database med batch-indsættelse");
+
+            // Post events efter commit
+            for (Reservation reservation : reservations) {
+                UnitOfWork.publish(new SystemEvents.ReservationCreatedEvent(reservation));
+            }
+
+            return affectedRows;
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved batch-indsættelse af " + reservations.size() + " reservationer", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Opdaterer status for flere reservationer med JDBC batching i én transaktion.
+     *
+     * @param reservations Reservationer med opdateret status
+     * @return Antal opdaterede rækker
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    @Override
+    public int updateAll(Collection<Reservation> reservations) throws SQLException {
+        try {
+            int affectedRows = BatchExecutor.executeBatch(UPDATE_SQL, reservations, this::bindUpdate);
+
+            log.info(affectedRows + " reservationer opdateret i database med batch-opdatering");
+
+            return affectedRows;
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved batch-opdatering af " + reservations.size() + " reservationer", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Indsætter reservationen, eller opdaterer dens status hvis den allerede findes, i ét round trip.
+     * Opdaterer ikke laptop- og student-status - brug createReservationWithTransaction til det.
+     *
+     * @param reservation Reservation objekt
+     * @return Om reservationen blev indsat eller opdateret
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    @Override
+    public UpsertResult<Reservation> upsert(Reservation reservation) throws SQLException {
+        return upsertAll(List.of(reservation));
+    }
+
+    /**
+     * Indsætter eller opdaterer flere reservationer med INSERT ... ON CONFLICT DO UPDATE.
+     * Nye reservationer giver ReservationCreatedEvent. Som ved update sendes der ikke event for
+     * opdaterede, da den gamle status ville kræve en ekstra forespørgsel.
+     *
+     * @param reservations Reservationer der skal skrives
+     * @return De indsatte og de opdaterede reservationer
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    @Override
+    public UpsertResult<Reservation> upsertAll(Collection<Reservation> reservations) throws SQLException {
+        try {
+            UpsertResult<Reservation> result = BatchExecutor.executeUpsert(UPSERT_SQL, reservations,
+                    Reservation::getReservationId, this::bindUpsert);
+
+            log.info(result.getInsertedCount() + " reservationer oprettet og " + result.getUpdatedCount() +
+                    " opdateret i database med upsert");
+
+            // Post events efter commit
+            for (Reservation reservation : result.getInserted()) {
+                UnitOfWork.publish(new SystemEvents.ReservationCreatedEvent(reservation));
+            }
+
+            return result;
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved upsert af " + reservations.size() + " reservationer", e);
+            throw e;
+        }
+    }
+
     /**
      * Sletter en reservation baseret på UUID.
      *
@@ -195,7 +415,7 @@ public class ReservationDAO implements GenericDAO<Reservation, UUID> {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, id.toString());
+            stmt.setObject(1, id);
 
             int affectedRows = stmt.executeUpdate();
 
@@ -225,7 +445,7 @@ public class ReservationDAO implements GenericDAO<Reservation, UUID> {
     public int count() throws SQLException {
         String sql = "SELECT COUNT(*) FROM Reservation";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -253,7 +473,7 @@ public class ReservationDAO implements GenericDAO<Reservation, UUID> {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, id.toString());
+            stmt.setObject(1, id);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 return rs.next();
@@ -273,17 +493,17 @@ public class ReservationDAO implements GenericDAO<Reservation, UUID> {
      */
     public List<Reservation> getByStudentId(int studentViaId) throws SQLException {
         List<Reservation> reservations = new ArrayList<>();
-        String sql = "SELECT reservation_uuid, status, laptop_uuid, student_via_id, creation_date " +
-                "FROM Reservation WHERE student_via_id = ?";
+        String sql = SELECT_BY_STUDENT_SQL;
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, studentViaId);
 
             try (ResultSet rs = stmt.executeQuery()) {
+                ReservationRowMapper mapper = new ReservationRowMapper();
                 while (rs.next()) {
-                    Reservation reservation = mapResultSetToReservation(rs);
+                    Reservation reservation = mapper.map(rs);
                     if (reservation != null) {
                         reservations.add(reservation);
                     }
@@ -305,17 +525,17 @@ public class ReservationDAO implements GenericDAO<Reservation, UUID> {
      */
     public List<Reservation> getByLaptopId(UUID laptopId) throws SQLException {
         List<Reservation> reservations = new ArrayList<>();
-        String sql = "SELECT reservation_uuid, status, laptop_uuid, student_via_id, creation_date " +
-                "FROM Reservation WHERE laptop_uuid = ?";
+        String sql = SELECT_WITH_RELATIONS + " WHERE r.laptop_uuid = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, laptopId.toString());
+            stmt.setObject(1, laptopId);
 
             try (ResultSet rs = stmt.executeQuery()) {
+                ReservationRowMapper mapper = new ReservationRowMapper();
                 while (rs.next()) {
-                    Reservation reservation = mapResultSetToReservation(rs);
+                    Reservation reservation = mapper.map(rs);
                     if (reservation != null) {
                         reservations.add(reservation);
                     }
@@ -336,17 +556,16 @@ public class ReservationDAO implements GenericDAO<Reservation, UUID> {
      */
     public List<Reservation> getActiveReservations() throws SQLException {
         List<Reservation> reservations = new ArrayList<>();
-        String sql = "SELECT reservation_uuid, status, laptop_uuid, student_via_id, creation_date " +
-                "FROM Reservation WHERE status = ?";
+        // Status skrives som literal, så planneren kan bruge det partielle indeks idx_reservation_active
+        String sql = SELECT_WITH_RELATIONS + " WHERE r.status = '" + ReservationStatusEnum.ACTIVE.name() + "'";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, ReservationStatusEnum.ACTIVE.name());
-
             try (ResultSet rs = stmt.executeQuery()) {
+                ReservationRowMapper mapper = new ReservationRowMapper();
                 while (rs.next()) {
-                    Reservation reservation = mapResultSetToReservation(rs);
+                    Reservation reservation = mapper.map(rs);
                     if (reservation != null) {
                         reservations.add(reservation);
                     }
@@ -360,195 +579,138 @@ public class ReservationDAO implements GenericDAO<Reservation, UUID> {
     }
 
     /**
-     * Opret reservation med transaktionssupport, der opdaterer laptop og student status.
+     * Opretter reservationen og markerer laptop og student som udlånt i én sætning.
+     * Vagterne kræver at laptoppen stadig er AvailableState og at studerende stadig er uden laptop;
+     * rækkerne låses med FOR UPDATE, så de ikke kan ændres mellem kontrol og opdatering.
+     * Holder vagterne ikke, ændres intet og metoden returnerer false.
      *
      * @param reservation Reservationsobjekt at oprette
-     * @return true hvis operationen lykkedes
+     * @return true hvis reservationen blev oprettet, false hvis laptop eller student ikke længere var ledig
      * @throws SQLException hvis der er problemer med databasen
      */
     public boolean createReservationWithTransaction(Reservation reservation) throws SQLException {
-        Connection conn = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-
-            // 1. Indsæt reservation
-            String sql = "INSERT INTO Reservation (reservation_uuid, laptop_uuid, student_via_id, status, creation_date) " +
-                    "VALUES (?, ?, ?, ?, ?)";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, reservation.getReservationId().toString());
-                stmt.setString(2, reservation.getLaptop().getId().toString());
-                stmt.setInt(3, reservation.getStudent().getViaId());
-                stmt.setString(4, reservation.getStatus().name());
-                stmt.setTimestamp(5, new Timestamp(reservation.getCreationDate().getTime()));
-                stmt.executeUpdate();
-            }
-
-            // 2. Opdater laptop tilstand
-            sql = "UPDATE Laptop SET state = 'LoanedState' WHERE laptop_uuid = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, reservation.getLaptop().getId().toString());
-                stmt.executeUpdate();
-            }
+        // Én sætning er atomar i sig selv, så der kræves hverken eksplicit transaktion eller commit
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(CREATE_WITH_GUARDS_SQL)) {
+            stmt.setInt(1, reservation.getStudent().getViaId());
+            stmt.setObject(2, reservation.getLaptop().getId());
+            stmt.setObject(3, reservation.getReservationId());
+            stmt.setString(4, reservation.getStatus().name());
+            stmt.setTimestamp(5, new Timestamp(reservation.getCreationDate().getTime()));
 
-            // 3. Opdater student has_laptop
-            sql = "UPDATE Student SET has_laptop = TRUE WHERE via_id = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setInt(1, reservation.getStudent().getViaId());
-                stmt.executeUpdate();
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                if (!rs.getBoolean("created")) {
+                    log.warning("Reservation [ID: " + reservation.getReservationId() + "] ikke oprettet: " +
+                            (rs.getBoolean("laptop_available") ? "" : "laptoppen er ikke længere ledig. ") +
+                            (rs.getBoolean("student_without_laptop") ? "" : "studerende har allerede en laptop."));
+                    return false;
+                }
             }
 
-            // Commit transaktionen
-            conn.commit();
-
             log.info("Reservation [ID: " + reservation.getReservationId() + "] oprettet med transaktion: " +
                     reservation.getStudent().getName() + " -> " +
                     reservation.getLaptop().getBrand() + " " + reservation.getLaptop().getModel());
 
             // Post event
-            eventBus.post(new SystemEvents.ReservationCreatedEvent(reservation));
+            UnitOfWork.publish(new SystemEvents.ReservationCreatedEvent(reservation));
 
             return true;
         } catch (SQLException e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                    log.warning("Transaktion rullet tilbage: " + e.getMessage());
-                } catch (SQLException ex) {
-                    log.error("Fejl under rollback: " + ex.getMessage());
-                }
-            }
             handleSQLException("Fejl ved oprettelse af reservation med transaktion: " +
                     reservation.getReservationId(), e);
             throw e;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    log.warning("Fejl ved nulstilling af forbindelse: " + e.getMessage());
-                }
-            }
         }
     }
 
     /**
-     * Opdater reservationsstatus med transaktion, der også opdaterer laptop og student status.
+     * Opdaterer reservationens status i én sætning. Går den fra aktiv til afsluttet eller annulleret,
+     * frigives laptop og student i samme sætning. Den tidligere status læses under lås, så
+     * overgangen vurderes ud fra den status der faktisk ændres.
      *
      * @param reservation Reservationsobjekt med den nye status
-     * @return true hvis operationen lykkedes
+     * @return true hvis operationen lykkedes, false hvis reservationen ikke findes
      * @throws SQLException hvis der er problemer med databasen
      */
     public boolean updateStatusWithTransaction(Reservation reservation) throws SQLException {
-        Connection conn = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-
-            // 1. Hent den nuværende status
-            String selectSql = "SELECT status FROM Reservation WHERE reservation_uuid = ?";
-            ReservationStatusEnum currentStatus;
-            try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
-                stmt.setString(1, reservation.getReservationId().toString());
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (!rs.next()) {
-                        return false; // Reservation findes ikke
-                    }
-                    currentStatus = ReservationStatusEnum.valueOf(rs.getString("status"));
-                }
-            }
-
-            // 2. Opdater reservation status
-            String updateSql = "UPDATE Reservation SET status = ? WHERE reservation_uuid = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
-                stmt.setString(1, reservation.getStatus().name());
-                stmt.setString(2, reservation.getReservationId().toString());
-                stmt.executeUpdate();
-            }
+        ReservationStatusEnum newStatus = reservation.getStatus();
+        boolean ends = newStatus == ReservationStatusEnum.COMPLETED || newStatus == ReservationStatusEnum.CANCELLED;
 
-            // 3. Hvis status ændres fra Active til completed eller cancelled
-            if (currentStatus == ReservationStatusEnum.ACTIVE &&
-                    (reservation.getStatus() == ReservationStatusEnum.COMPLETED ||
-                            reservation.getStatus() == ReservationStatusEnum.CANCELLED)) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_STATUS_WITH_RELEASE_SQL)) {
+            stmt.setObject(1, reservation.getReservationId());
+            stmt.setString(2, newStatus.name());
+            stmt.setBoolean(3, ends);
 
-                // Opdater laptop tilstand til Available
-                String laptopSql = "UPDATE Laptop SET state = 'AvailableState' WHERE laptop_uuid = ?";
-                try (PreparedStatement stmt = conn.prepareStatement(laptopSql)) {
-                    stmt.setString(1, reservation.getLaptop().getId().toString());
-                    stmt.executeUpdate();
+            ReservationStatusEnum currentStatus;
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return false; // Reservation findes ikke
                 }
-
-                // Opdater student has_laptop status
-                String studentSql = "UPDATE Student SET has_laptop = FALSE WHERE via_id = ?";
-                try (PreparedStatement stmt = conn.prepareStatement(studentSql)) {
-                    stmt.setInt(1, reservation.getStudent().getViaId());
-                    stmt.executeUpdate();
+                currentStatus = ReservationStatusEnum.valueOf(rs.getString("previous_status"));
+                if (rs.getBoolean("released")) {
+                    logger.fine("Laptop og student frigivet for reservation " + reservation.getReservationId());
                 }
             }
 
-            // Commit transaktionen
-            conn.commit();
-
             log.info("Reservation [ID: " + reservation.getReservationId() + "] status ændret fra " +
-                    currentStatus.getDisplayName() + " til " + reservation.getStatus().getDisplayName());
+                    currentStatus.getDisplayName() + " til " + newStatus.getDisplayName());
 
             // Post event
-            eventBus.post(new SystemEvents.ReservationStatusChangedEvent(
-                    reservation, currentStatus, reservation.getStatus()));
+            UnitOfWork.publish(new SystemEvents.ReservationStatusChangedEvent(
+                    reservation, currentStatus, newStatus));
 
             return true;
         } catch (SQLException e) {
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                    log.warning("Transaktion rullet tilbage: " + e.getMessage());
-                } catch (SQLException ex) {
-                    log.error("Fejl under rollback: " + ex.getMessage());
-                }
-            }
             handleSQLException("Fejl ved opdatering af reservationsstatus med transaktion: " +
                     reservation.getReservationId(), e);
             throw e;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    log.warning("Fejl ved nulstilling af forbindelse: " + e.getMessage());
-                }
-            }
         }
     }
 
     /**
-     * Konverterer ResultSet til Reservation objekt.
+     * Binder en reservations værdier til INSERT_SQL.
      */
-    private Reservation mapResultSetToReservation(ResultSet rs) throws SQLException {
-        UUID reservationId = UUID.fromString(rs.getString("reservation_uuid"));
-        ReservationStatusEnum status = ReservationStatusEnum.valueOf(rs.getString("status"));
-        UUID laptopUUID = UUID.fromString(rs.getString("laptop_uuid"));
-        int studentViaId = rs.getInt("student_via_id");
-        Timestamp creationTimestamp = rs.getTimestamp("creation_date");
-        Date creationDate = creationTimestamp != null ? new Date(creationTimestamp.getTime()) : new Date();
-
-        // Hent tilknyttet Laptop og Student ved hjælp af deres DAOs
-        Laptop laptop = laptopDAO.getById(laptopUUID);
-        Student student = studentDAO.getById(studentViaId);
-
-        // Tjek om Laptop og Student blev fundet
-        if (laptop == null) {
-            logger.log(Level.WARNING, "Laptop med UUID " + laptopUUID + " blev ikke fundet til reservation " + reservationId);
-            return null;
-        }
-        if (student == null) {
-            logger.log(Level.WARNING, "Student med VIA ID " + studentViaId + " blev ikke fundet til reservation " + reservationId);
-            return null;
-        }
+    private void bindInsert(PreparedStatement stmt, Reservation reservation) throws SQLException {
+        stmt.setObject(1, reservation.getReservationId());
+        stmt.setObject(2, reservation.getLaptop().getId());
+        stmt.setInt(3, reservation.getStudent().getViaId());
+        stmt.setString(4, reservation.getStatus().name());
+        stmt.setTimestamp(5, new Timestamp(reservation.getCreationDate().getTime()));
+    }
+
+    /**
+     * Binder en reservations værdier til UPDATE_SQL.
+     */
+    private void bindUpdate(PreparedStatement stmt, Reservation reservation) throws SQLException {
+        stmt.setString(1, reservation.getStatus().name());
+        stmt.setObject(2, reservation.getReservationId());
+    }
 
-        // Opret Reservation objekt med den korrekte konstruktør
-        return new Reservation(reservationId, student, laptop, status, creationDate);
+    /**
+     * Binder reservationer til UPSERT_SQL som ét array pr. kolonne.
+     * Tidspunkter sendes som tekst, som databasen caster til timestamp.
+     */
+    private void bindUpsert(PreparedStatement stmt, Connection conn, List<Reservation> reservations) throws SQLException {
+        int size = reservations.size();
+        UUID[] ids = new UUID[size];
+        UUID[] laptopIds = new UUID[size];
+        Integer[] studentViaIds = new Integer[size];
+        String[] statuses = new String[size];
+        String[] creationDates = new String[size];
+        for (int i = 0; i < size; i++) {
+            Reservation reservation = reservations.get(i);
+            ids[i] = reservation.getReservationId();
+            laptopIds[i] = reservation.getLaptop().getId();
+            studentViaIds[i] = reservation.getStudent().getViaId();
+            statuses[i] = reservation.getStatus().name();
+            creationDates[i] = new Timestamp(reservation.getCreationDate().getTime()).toString();
+        }
+        stmt.setArray(1, conn.createArrayOf("uuid", ids));
+        stmt.setArray(2, conn.createArrayOf("uuid", laptopIds));
+        stmt.setArray(3, conn.createArrayOf("integer", studentViaIds));
+        stmt.setArray(4, conn.createArrayOf("varchar", statuses));
+        stmt.setArray(5, conn.createArrayOf("varchar", creationDates));
     }
 
     /**
@@ -564,4 +726,15 @@ public class ReservationDAO implements GenericDAO<Reservation, UUID> {
         // Post database error event
         eventBus.post(new SystemEvents.DatabaseErrorEvent(message, e.getSQLState(), e));
     }
-}
\ No newline at end of file
+
+    /**
+     * SQL for de hyppigste forespørgsler. Lægges i c3p0's statement-cache på nye forbindelser ved opstart.
+     * Skal være præcis samme tekst som metoderne bruger, ellers rammes cachen ikke.
+     *
+     * @return SQL-sætningerne
+     */
+    static List<String> hotStatements() {
+        return List.of(SELECT_BY_ID_SQL, SELECT_BY_STUDENT_SQL, INSERT_SQL, UPDATE_SQL,
+                CREATE_WITH_GUARDS_SQL, UPDATE_STATUS_WITH_RELEASE_SQL);
+    }
+}
@@ -0,0 +1,57 @@
+package model.database;
+
+import model.enums.ReservationStatusEnum;
+import model.models.Laptop;
+import model.models.Reservation;
+import model.models.Student;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Row mapper for Reservation-rækker joinet med Laptop og Student.
+ * Laptop og Student bygges fra samme række med deres egne mappers.
+ */
+public class ReservationRowMapper extends ColumnIndexRowMapper<Reservation> {
+    private static final int ID = 0;
+    private static final int STATUS = 1;
+    private static final int CREATION_DATE = 2;
+
+    private final LaptopRowMapper laptopMapper;
+    private final StudentRowMapper studentMapper;
+
+    /**
+     * Opretter en mapper for ReservationDAO's joinede kolonnenavne.
+     */
+    public ReservationRowMapper() {
+        this(new LaptopRowMapper(), new StudentRowMapper());
+    }
+
+    /**
+     * Opretter en mapper med egne mappers for de joinede entiteter, fx ved aliaserede projektioner.
+     *
+     * @param laptopMapper  Mapper for laptop-kolonnerne
+     * @param studentMapper Mapper for student-kolonnerne
+     */
+    public ReservationRowMapper(LaptopRowMapper laptopMapper, StudentRowMapper studentMapper) {
+        super("", "reservation_uuid", "status", "creation_date");
+        this.laptopMapper = laptopMapper;
+        this.studentMapper = studentMapper;
+    }
+
+    @Override
+    protected Reservation mapRow(ResultSet rs, int[] indexes) throws SQLException {
+        UUID reservationId = rs.getObject(indexes[ID], UUID.class);
+        ReservationStatusEnum status = ReservationStatusEnum.valueOf(rs.getString(indexes[STATUS]));
+        Timestamp creationTimestamp = rs.getTimestamp(indexes[CREATION_DATE]);
+        Date creationDate = creationTimestamp != null ? new Date(creationTimestamp.getTime()) : new Date();
+
+        Laptop laptop = laptopMapper.map(rs);
+        Student student = studentMapper.map(rs);
+
+        return new Reservation(reservationId, student, laptop, status, creationDate);
+    }
+}
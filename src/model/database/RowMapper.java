@@ -0,0 +1,22 @@
+package model.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Konverterer den aktuelle række i et ResultSet til et objekt.
+ *
+ * @param <T> Typen der bygges fra rækken
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Bygger et objekt fra den række ResultSet'et står på.
+     *
+     * @param rs ResultSet placeret på en gyldig række
+     * @return Objektet bygget fra rækken
+     * @throws SQLException hvis kolonner ikke kan læses
+     */
+    T map(ResultSet rs) throws SQLException;
+}
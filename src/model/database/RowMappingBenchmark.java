@@ -0,0 +1,171 @@
+package model.database;
+
+import model.enums.PerformanceTypeEnum;
+import model.models.AvailableState;
+import model.models.Laptop;
+import model.models.LoanedState;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Benchmark af række-mapping.
+ * Sammenligner den tidligere tekstbaserede UUID-mapping (getString + UUID.fromString) med
+ * native mapping (getObject(..., UUID.class)), og navnebaseret Laptop-mapping med LaptopRowMapper's
+ * forudberegnede kolonnepositioner.
+ * Rækkerne hentes én gang i et scrollbart ResultSet, så målingen ikke inkluderer netværkstid.
+ */
+public class RowMappingBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 100;
+
+    public static void main(String[] args) throws SQLException {
+        try {
+            benchmarkUuidMapping();
+            benchmarkLaptopMapping();
+        } finally {
+            DatabaseConnection.closePool();
+        }
+    }
+
+    private static void benchmarkUuidMapping() throws SQLException {
+        String sql = "SELECT r.reservation_uuid, r.laptop_uuid FROM Reservation r";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql,
+                     ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+             ResultSet rs = stmt.executeQuery()) {
+
+            int rows = countRows(rs);
+            System.out.println("Reservationer i benchmark: " + rows);
+            if (rows == 0) {
+                System.out.println("Ingen reservationer i databasen - intet at måle");
+                return;
+            }
+
+            report("Tekst (getString + UUID.fromString)", rows, measure(rs, RowMappingBenchmark::mapUuidsAsText));
+            report("Native (getObject UUID)", rows, measure(rs, RowMappingBenchmark::mapUuidsNatively));
+        }
+    }
+
+    private static void benchmarkLaptopMapping() throws SQLException {
+        String sql = "SELECT laptop_uuid, brand, model, gigabyte, ram, performance_type, state FROM Laptop";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql,
+                     ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+             ResultSet rs = stmt.executeQuery()) {
+
+            int rows = countRows(rs);
+            System.out.println("Laptops i benchmark: " + rows);
+            if (rows == 0) {
+                System.out.println("Ingen laptops i databasen - intet at måle");
+                return;
+            }
+
+            report("Laptop (opslag på kolonnenavn)", rows, measure(rs, RowMappingBenchmark::mapLaptopsByName));
+            report("Laptop (LaptopRowMapper)", rows, measure(rs, RowMappingBenchmark::mapLaptopsByIndex));
+        }
+    }
+
+    /**
+     * Kører opvarmning og målte iterationer og returnerer gennemsnitlig tid pr. iteration i nanosekunder.
+     */
+    private static long measure(ResultSet rs, MappingPass pass) throws SQLException {
+        long blackhole = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            blackhole += pass.run(rs);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            blackhole += pass.run(rs);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // Forhindrer at JIT fjerner mapping-arbejdet
+        if (blackhole == 42) {
+            System.out.println();
+        }
+        return elapsed / MEASURED_ITERATIONS;
+    }
+
+    private static long mapUuidsAsText(ResultSet rs) throws SQLException {
+        long checksum = 0;
+        rs.beforeFirst();
+        while (rs.next()) {
+            UUID reservationId = UUID.fromString(rs.getString("reservation_uuid"));
+            UUID laptopId = UUID.fromString(rs.getString("laptop_uuid"));
+            checksum += reservationId.getLeastSignificantBits() ^ laptopId.getMostSignificantBits();
+        }
+        return checksum;
+    }
+
+    private static long mapUuidsNatively(ResultSet rs) throws SQLException {
+        long checksum = 0;
+        rs.beforeFirst();
+        while (rs.next()) {
+            UUID reservationId = rs.getObject("reservation_uuid", UUID.class);
+            UUID laptopId = rs.getObject("laptop_uuid", UUID.class);
+            checksum += reservationId.getLeastSignificantBits() ^ laptopId.getMostSignificantBits();
+        }
+        return checksum;
+    }
+
+    /**
+     * Den tidligere mapping fra LaptopDAO: kolonneopslag på navn for hver række.
+     */
+    private static long mapLaptopsByName(ResultSet rs) throws SQLException {
+        long checksum = 0;
+        rs.beforeFirst();
+        while (rs.next()) {
+            Laptop laptop = new Laptop(
+                    rs.getObject("laptop_uuid", UUID.class),
+                    rs.getString("brand"),
+                    rs.getString("model"),
+                    rs.getInt("gigabyte"),
+                    rs.getInt("ram"),
+                    PerformanceTypeEnum.valueOf(rs.getString("performance_type")),
+                    "LoanedState".equals(rs.getString("state")) ? LoanedState.INSTANCE : AvailableState.INSTANCE);
+            checksum += laptop.getGigabyte() ^ laptop.getId().getLeastSignificantBits();
+        }
+        return checksum;
+    }
+
+    private static long mapLaptopsByIndex(ResultSet rs) throws SQLException {
+        LaptopRowMapper mapper = new LaptopRowMapper();
+        long checksum = 0;
+        rs.beforeFirst();
+        while (rs.next()) {
+            Laptop laptop = mapper.map(rs);
+            checksum += laptop.getGigabyte() ^ laptop.getId().getLeastSignificantBits();
+        }
+        return checksum;
+    }
+
+    private static int countRows(ResultSet rs) throws SQLException {
+        int rows = 0;
+        while (rs.next()) {
+            rows++;
+        }
+        return rows;
+    }
+
+    private static void report(String name, int rows, long nanosPerIteration) {
+        double rowsPerSecond = rows / (nanosPerIteration / 1_000_000_000.0);
+        System.out.printf("%-40s %10.1f µs/iteration  %,14.0f rækker/s%n",
+                name, nanosPerIteration / 1000.0, rowsPerSecond);
+    }
+
+    /**
+     * Én gennemløb af alle rækker; returnerer en checksum så JIT ikke kan fjerne arbejdet.
+     */
+    @FunctionalInterface
+    private interface MappingPass {
+        long run(ResultSet rs) throws SQLException;
+    }
+}
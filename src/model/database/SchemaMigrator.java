@@ -0,0 +1,240 @@
+package model.database;
+
+import model.log.Log;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Kører versionerede SQL-migreringer mod databasen.
+ * Migreringerne ligger som V&lt;version&gt;__&lt;beskrivelse&gt;.sql i db/migration og køres i versionsorden.
+ * Anvendte versioner registreres i tabellen schema_version, så hver migrering kun køres én gang.
+ * Et advisory lock sikrer at flere instanser der starter samtidig ikke migrerer parallelt.
+ */
+public class SchemaMigrator {
+    private static final Logger logger = Logger.getLogger(SchemaMigrator.class.getName());
+    private static final Log log = Log.getInstance();
+
+    // Placering af migreringerne - først på classpath, ellers i kildetræet
+    private static final String CLASSPATH_LOCATION = "db/migration";
+    private static final String FILE_LOCATION = "src/main/resources/db/migration";
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    // Vilkårlig, fast nøgle til pg_advisory_lock - deles af alle instanser af systemet
+    private static final long ADVISORY_LOCK_KEY = 7_426_310_001L;
+
+    private static final String CREATE_VERSION_TABLE =
+            "CREATE TABLE IF NOT EXISTS schema_version (" +
+            "version INTEGER PRIMARY KEY, " +
+            "description VARCHAR(200) NOT NULL, " +
+            "checksum BIGINT NOT NULL, " +
+            "installed_on TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+            "execution_ms BIGINT NOT NULL)";
+
+    private final Path migrationDirectory;
+
+    /**
+     * Opretter en migrator der læser migreringerne fra standardplaceringen.
+     */
+    public SchemaMigrator() {
+        this(resolveMigrationDirectory());
+    }
+
+    /**
+     * Opretter en migrator der læser migreringerne fra en bestemt mappe.
+     *
+     * @param migrationDirectory Mappe med V&lt;version&gt;__&lt;beskrivelse&gt;.sql filer
+     */
+    public SchemaMigrator(Path migrationDirectory) {
+        this.migrationDirectory = migrationDirectory;
+    }
+
+    /**
+     * Kører alle migreringer der endnu ikke er anvendt.
+     * Hver migrering køres i sin egen transaktion; fejler en migrering rulles den tilbage
+     * og de efterfølgende køres ikke.
+     *
+     * @param conn Forbindelse til databasen (autocommit gendannes bagefter)
+     * @return Antal migreringer der blev anvendt
+     * @throws SQLException hvis en migrering fejler
+     */
+    public int migrate(Connection conn) throws SQLException {
+        List<Migration> migrations = loadMigrations();
+        boolean originalAutoCommit = conn.getAutoCommit();
+        int applied = 0;
+
+        try (Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(true);
+            stmt.execute("SELECT pg_advisory_lock(" + ADVISORY_LOCK_KEY + ")");
+            try {
+                stmt.execute(CREATE_VERSION_TABLE);
+                Map<Integer, Long> installed = loadInstalledVersions(conn);
+
+                for (Migration migration : migrations) {
+                    Long installedChecksum = installed.get(migration.version);
+                    if (installedChecksum != null) {
+                        if (installedChecksum != migration.checksum) {
+                            logger.warning("Migrering V" + migration.version + " er ændret efter den blev anvendt");
+                            log.warning("Migrering V" + migration.version + " er ændret efter den blev anvendt");
+                        }
+                        continue;
+                    }
+                    apply(conn, migration);
+                    applied++;
+                }
+            } finally {
+                conn.setAutoCommit(true);
+                stmt.execute("SELECT pg_advisory_unlock(" + ADVISORY_LOCK_KEY + ")");
+            }
+        } finally {
+            conn.setAutoCommit(originalAutoCommit);
+        }
+
+        if (applied > 0) {
+            logger.info("Anvendte " + applied + " database-migreringer");
+            log.info("Anvendte " + applied + " database-migreringer");
+        } else {
+            logger.fine("Databaseskemaet er opdateret - ingen migreringer at køre");
+        }
+        return applied;
+    }
+
+    /**
+     * Henter den højeste anvendte migreringsversion.
+     *
+     * @param conn Forbindelse til databasen
+     * @return Højeste version, eller 0 hvis ingen migreringer er anvendt
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    public int getCurrentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(CREATE_VERSION_TABLE);
+            try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Kører én migrering og registrerer den i schema_version i samme transaktion.
+     */
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        logger.info("Anvender migrering V" + migration.version + ": " + migration.description);
+        long start = System.nanoTime();
+
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(migration.sql);
+
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+                insert.setInt(1, migration.version);
+                insert.setString(2, migration.description);
+                insert.setLong(3, migration.checksum);
+                insert.setLong(4, elapsedMs);
+                insert.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            logger.log(Level.SEVERE, "Migrering V" + migration.version + " fejlede", e);
+            log.critical("Migrering V" + migration.version + " fejlede: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    private Map<Integer, Long> loadInstalledVersions(Connection conn) throws SQLException {
+        Map<Integer, Long> installed = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                installed.put(rs.getInt(1), rs.getLong(2));
+            }
+        }
+        return installed;
+    }
+
+    /**
+     * Indlæser migreringsfilerne sorteret efter version.
+     */
+    private List<Migration> loadMigrations() throws SQLException {
+        List<Migration> migrations = new ArrayList<>();
+        if (migrationDirectory == null || !Files.isDirectory(migrationDirectory)) {
+            logger.warning("Migreringsmappen blev ikke fundet: " + migrationDirectory);
+            return migrations;
+        }
+
+        try (Stream<Path> files = Files.list(migrationDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                String sql = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                migrations.add(new Migration(
+                        Integer.parseInt(matcher.group(1)),
+                        matcher.group(2).replace('_', ' '),
+                        sql));
+            }
+        } catch (IOException e) {
+            throw new SQLException("Kunne ikke læse migreringer fra " + migrationDirectory, e);
+        }
+
+        migrations.sort((a, b) -> Integer.compare(a.version, b.version));
+        return migrations;
+    }
+
+    private static Path resolveMigrationDirectory() {
+        URL resource = SchemaMigrator.class.getClassLoader().getResource(CLASSPATH_LOCATION);
+        if (resource != null && "file".equals(resource.getProtocol())) {
+            try {
+                return Paths.get(resource.toURI());
+            } catch (URISyntaxException e) {
+                logger.fine("Kunne ikke bruge migreringsmappen fra classpath: " + e.getMessage());
+            }
+        }
+        return Paths.get(FILE_LOCATION);
+    }
+
+    /**
+     * En enkelt versioneret migreringsfil.
+     */
+    private static final class Migration {
+        final int version;
+        final String description;
+        final String sql;
+        final long checksum;
+
+        Migration(int version, String description, String sql) {
+            this.version = version;
+            this.description = description;
+            this.sql = sql;
+
+            CRC32 crc = new CRC32();
+            crc.update(sql.getBytes(StandardCharsets.UTF_8));
+            this.checksum = crc.getValue();
+        }
+    }
+}
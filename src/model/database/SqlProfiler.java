@@ -0,0 +1,225 @@
+package model.database;
+
+import model.events.SystemEvents;
+import model.log.Log;
+import model.util.EventBus;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Måler udførelsestid, kald og rækker pr. SQL-skabelon og finder N+1-mønstre: samme
+ * enkeltrækkes-forespørgsel udført mange gange i én logisk operation, typisk i en løkke
+ * over resultatet af en anden forespørgsel.
+ * En logisk operation er en sammenhængende række forespørgsler på samme tråd - en pause
+ * længere end operationGapMillis afslutter den.
+ */
+final class SqlProfiler {
+    private static final Logger logger = Logger.getLogger(SqlProfiler.class.getName());
+    private static final Log log = Log.getInstance();
+    private static final EventBus eventBus = EventBus.getInstance();
+
+    private static final SqlProfiler instance = new SqlProfiler();
+
+    // Literaler og lister af parametre samles, så forskellige værdier giver samme skabelon
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // Øvre grænse for cachen af normaliserede skabeloner, hvis SQL bygges med mange forskellige literaler
+    private static final int MAX_CACHED_TEMPLATES = 1000;
+
+    private final Map<String, String> templateCache = new ConcurrentHashMap<>();
+    private final Map<String, TemplateStats> statsByTemplate = new ConcurrentHashMap<>();
+    private final ThreadLocal<Operation> currentOperation = ThreadLocal.withInitial(Operation::new);
+
+    private volatile boolean enabled = true;
+    private volatile int nPlusOneThreshold = 10;
+    private volatile long operationGapNanos = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private SqlProfiler() {
+    }
+
+    static SqlProfiler getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param enabled            Om profileringen er slået til
+     * @param nPlusOneThreshold  Antal udførelser af samme skabelon i én operation der tæller som N+1
+     * @param operationGapMillis Pause der afslutter en logisk operation
+     */
+    void configure(boolean enabled, int nPlusOneThreshold, long operationGapMillis) {
+        this.enabled = enabled;
+        this.nPlusOneThreshold = Math.max(2, nPlusOneThreshold);
+        this.operationGapNanos = TimeUnit.MILLISECONDS.toNanos(operationGapMillis);
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Normaliserer SQL til en skabelon: literaler erstattes af ?, lister af parametre samles
+     * og whitespace komprimeres.
+     *
+     * @param sql SQL som den blev sendt til driveren
+     * @return Skabelonen
+     */
+    String templateOf(String sql) {
+        if (sql == null) {
+            return "<ukendt>";
+        }
+        String cached = templateCache.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+
+        String template = STRING_LITERAL.matcher(sql).replaceAll("?");
+        template = NUMBER_LITERAL.matcher(template).replaceAll("?");
+        template = PARAMETER_LIST.matcher(template).replaceAll("(?...)");
+        template = WHITESPACE.matcher(template).replaceAll(" ").trim();
+
+        if (templateCache.size() < MAX_CACHED_TEMPLATES) {
+            templateCache.put(sql, template);
+        }
+        return template;
+    }
+
+    /**
+     * Registrerer én udførelse. Kaldes på den tråd der udførte forespørgslen.
+     *
+     * @param template Skabelonen
+     * @param nanos    Udførelsestid
+     * @param rows     Påvirkede rækker, eller 0 for forespørgsler - de tælles med countRows
+     * @param failed   true hvis udførelsen fejlede
+     */
+    void recordExecution(String template, long nanos, long rows, boolean failed) {
+        TemplateStats stats = statsFor(template);
+        stats.latency.record(nanos);
+        stats.calls.increment();
+        stats.rows.add(rows);
+        if (failed) {
+            stats.errors.increment();
+        }
+
+        detectNPlusOne(template, stats);
+    }
+
+    /**
+     * Tæller rækker læst fra en forespørgsels resultat.
+     */
+    void countRows(String template, long rows) {
+        statsFor(template).rows.add(rows);
+    }
+
+    private TemplateStats statsFor(String template) {
+        return statsByTemplate.computeIfAbsent(template, key -> new TemplateStats());
+    }
+
+    private void detectNPlusOne(String template, TemplateStats stats) {
+        Operation operation = currentOperation.get();
+        long now = System.nanoTime();
+        if (now - operation.lastExecutionNanos > operationGapNanos) {
+            operation.executions.clear();
+            operation.reported.clear();
+        }
+        operation.lastExecutionNanos = now;
+
+        int executions = operation.executions.merge(template, 1, Integer::sum);
+        if (executions < nPlusOneThreshold || operation.reported.contains(template)) {
+            return;
+        }
+
+        // Kun enkeltrækkes-forespørgsler - gentagne bulk-forespørgsler er et andet problem
+        long calls = stats.calls.sum();
+        if (calls > 0 && (double) stats.rows.sum() / calls > 1.0) {
+            return;
+        }
+        operation.reported.add(template);
+        stats.nPlusOneDetections.increment();
+
+        String message = "Muligt N+1-mønster: samme forespørgsel udført " + executions +
+                " gange i én operation på tråd '" + Thread.currentThread().getName() + "': " + template;
+        // Stacken viser løkken der udfører forespørgslen
+        logger.log(Level.WARNING, message, new Throwable("N+1 udført her"));
+        log.warning(message);
+
+        eventBus.post(new SystemEvents.NPlusOneDetectedEvent(template, executions,
+                Thread.currentThread().getName()));
+    }
+
+    /**
+     * @param limit Maksimalt antal skabeloner
+     * @return Skabelonerne med størst samlet udførelsestid, størst først
+     */
+    List<SqlStatementSnapshot> getTopStatements(int limit) {
+        List<SqlStatementSnapshot> snapshots = new ArrayList<>();
+        for (Map.Entry<String, TemplateStats> entry : statsByTemplate.entrySet()) {
+            snapshots.add(entry.getValue().snapshot(entry.getKey()));
+        }
+        snapshots.sort(Comparator.comparingDouble(SqlStatementSnapshot::getTotalMillis).reversed());
+        return snapshots.size() > limit ? new ArrayList<>(snapshots.subList(0, limit)) : snapshots;
+    }
+
+    /**
+     * @param limit Maksimalt antal skabeloner
+     * @return Læsbar top-N rapport
+     */
+    String getReport(int limit) {
+        List<SqlStatementSnapshot> top = getTopStatements(limit);
+        StringBuilder report = new StringBuilder();
+        report.append("SQL-profil (top ").append(top.size()).append(" af ").append(statsByTemplate.size())
+                .append(" efter samlet tid):");
+        for (SqlStatementSnapshot snapshot : top) {
+            report.append("\n  ").append(snapshot);
+        }
+        return report.toString();
+    }
+
+    /**
+     * Nulstiller alle målinger.
+     */
+    void reset() {
+        statsByTemplate.clear();
+    }
+
+    /**
+     * Målinger for én skabelon.
+     */
+    private static final class TemplateStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder nPlusOneDetections = new LongAdder();
+
+        SqlStatementSnapshot snapshot(String template) {
+            LatencyHistogram.Snapshot latencySnapshot = latency.snapshot();
+            return new SqlStatementSnapshot(template, calls.sum(), rows.sum(), errors.sum(),
+                    nPlusOneDetections.sum(), latencySnapshot.getMeanMillis() * latencySnapshot.getCount(),
+                    latencySnapshot);
+        }
+    }
+
+    /**
+     * Udførelser på én tråd i den igangværende logiske operation.
+     */
+    private static final class Operation {
+        private final Map<String, Integer> executions = new HashMap<>();
+        private final Set<String> reported = new HashSet<>();
+        private long lastExecutionNanos;
+    }
+}
@@ -0,0 +1,84 @@
+package model.database;
+
+/**
+ * Uforanderligt øjebliksbillede af målingerne for én SQL-skabelon.
+ * En skabelon er SQL-teksten med literaler erstattet af ?, så samme forespørgsel med
+ * forskellige værdier samles.
+ */
+public final class SqlStatementSnapshot {
+    private final String template;
+    private final long calls;
+    private final long rows;
+    private final long errors;
+    private final long nPlusOneDetections;
+    private final double totalMillis;
+    private final LatencyHistogram.Snapshot latency;
+
+    SqlStatementSnapshot(String template, long calls, long rows, long errors, long nPlusOneDetections,
+                         double totalMillis, LatencyHistogram.Snapshot latency) {
+        this.template = template;
+        this.calls = calls;
+        this.rows = rows;
+        this.errors = errors;
+        this.nPlusOneDetections = nPlusOneDetections;
+        this.totalMillis = totalMillis;
+        this.latency = latency;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return Antal udførelser, inkl. fejlede
+     */
+    public long getCalls() {
+        return calls;
+    }
+
+    /**
+     * @return Rækker læst eller påvirket i alt
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return Antal gange skabelonen er fundet udført i en N+1-løkke
+     */
+    public long getNPlusOneDetections() {
+        return nPlusOneDetections;
+    }
+
+    /**
+     * @return Samlet udførelsestid i millisekunder
+     */
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    /**
+     * @return Fordeling af udførelsestiden pr. kald
+     */
+    public LatencyHistogram.Snapshot getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return Gennemsnitligt antal rækker pr. kald
+     */
+    public double getRowsPerCall() {
+        return calls == 0 ? 0 : (double) rows / calls;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,10.1f ms  %7d kald  %8d rækker  %s  %s%s",
+                totalMillis, calls, rows, latency, template,
+                nPlusOneDetections > 0 ? "  [N+1 x" + nPlusOneDetections + "]" : "");
+    }
+}
@@ -0,0 +1,145 @@
+package model.database;
+
+import model.exceptions.UncheckedSQLException;
+import model.log.Log;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Hjælpeklasse der eksponerer en forespørgsel som en lazy Stream.
+ * PostgreSQL-driveren bruger kun en server-side cursor når autocommit er slået fra og
+ * fetch size er sat, så rækkerne hentes i blokke i stedet for at blive læst ind i hukommelsen på én gang.
+ */
+final class StreamingQuery {
+    private static final Log log = Log.getInstance();
+
+    /**
+     * Binder parametre til forespørgslen før den udføres.
+     */
+    @FunctionalInterface
+    interface ParameterBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    private StreamingQuery() {
+        // Utility-klasse - kan ikke instantieres
+    }
+
+    /**
+     * Udfører forespørgslen og returnerer rækkerne som en Stream.
+     * Forbindelsen holdes indtil streamen lukkes eller er læst til ende, så kald den i try-with-resources.
+     *
+     * @param sql       SQL forespørgsel
+     * @param fetchSize Antal rækker driveren henter pr. round trip
+     * @param binder    Binder parametre til forespørgslen
+     * @param mapper    Konverterer hver række
+     * @param <T>       Elementtypen
+     * @return Stream der læser rækker efterhånden som de forbruges
+     * @throws SQLException hvis forespørgslen ikke kan startes
+     */
+    static <T> Stream<T> stream(String sql, int fetchSize, ParameterBinder binder, RowMapper<T> mapper)
+            throws SQLException {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size skal være positiv: " + fetchSize);
+        }
+
+        Connection conn = DatabaseConnection.getReadConnection();
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn.setAutoCommit(false);
+            stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(fetchSize);
+            binder.bind(stmt);
+            rs = stmt.executeQuery();
+        } catch (SQLException e) {
+            release(conn, stmt, rs);
+            throw e;
+        }
+
+        CursorSpliterator<T> spliterator = new CursorSpliterator<>(conn, stmt, rs, mapper);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    /**
+     * Lukker ResultSet og statement, afslutter læse-transaktionen og returnerer forbindelsen til poolen.
+     */
+    private static void release(Connection conn, PreparedStatement stmt, ResultSet rs) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (stmt != null) {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            log.warning("Fejl ved lukning af streaming-cursor: " + e.getMessage());
+        }
+
+        try {
+            conn.commit();
+        } catch (SQLException e) {
+            log.warning("Fejl ved afslutning af streaming-transaktion: " + e.getMessage());
+        }
+
+        try {
+            conn.setAutoCommit(true);
+            conn.close();
+        } catch (SQLException e) {
+            log.warning("Fejl ved nulstilling af forbindelse: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Spliterator der læser én række ad gangen fra cursoren.
+     * Frigiver forbindelsen automatisk når sidste række er læst.
+     */
+    private static final class CursorSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+        private final Connection conn;
+        private final PreparedStatement stmt;
+        private final ResultSet rs;
+        private final RowMapper<T> mapper;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        CursorSpliterator(Connection conn, PreparedStatement stmt, ResultSet rs, RowMapper<T> mapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.conn = conn;
+            this.stmt = stmt;
+            this.rs = rs;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (closed.get()) {
+                return false;
+            }
+            try {
+                if (!rs.next()) {
+                    close();
+                    return false;
+                }
+                action.accept(mapper.map(rs));
+                return true;
+            } catch (SQLException e) {
+                close();
+                throw new UncheckedSQLException("Fejl ved læsning af række fra streaming-cursor", e);
+            }
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(conn, stmt, rs);
+            }
+        }
+    }
+}
@@ -1,16 +1,22 @@
 package model.database;
 
 import model.enums.PerformanceTypeEnum;
+import model.enums.SortOrderEnum;
 import model.events.SystemEvents;
 import model.log.Log;
+import model.models.Laptop;
 import model.models.Student;
 import model.util.EventBus;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object for Student entiteter med forbedret implementering.
@@ -20,6 +26,64 @@ public class StudentDAO implements GenericDAO<Student, Integer> {
     private static final Logger logger = Logger.getLogger(StudentDAO.class.getName());
     private static final Log log = Log.getInstance();
     private static final EventBus eventBus = EventBus.getInstance();
+    private static final IdentityMap identityMap = IdentityMap.getInstance();
+
+    private static final String SELECT_SQL = "SELECT via_id, name, degree_end_date, degree_title, email, phone_number, " +
+            "performance_needed, has_laptop FROM Student";
+    private static final String INSERT_SQL = "INSERT INTO Student (via_id, name, degree_end_date, degree_title, email, phone_number, " +
+            "performance_needed, has_laptop) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE Student SET name = ?, degree_end_date = ?, degree_title = ?, email = ?, " +
+            "phone_number = ?, performance_needed = ?, has_laptop = ? WHERE via_id = ?";
+    private static final String SELECT_BY_ID_SQL = SELECT_SQL + " WHERE via_id = ?";
+    // Én række pr. array-element; xmax er 0 for rækker indsat af statementet og sat for opdaterede
+    private static final String UPSERT_SQL = "INSERT INTO Student (via_id, name, degree_end_date, degree_title, email, " +
+            "phone_number, performance_needed, has_laptop) " +
+            "SELECT * FROM unnest(?::integer[], ?::varchar[], ?::date[], ?::varchar[], ?::varchar[], ?::integer[], " +
+            "?::varchar[], ?::boolean[]) " +
+            "ON CONFLICT (via_id) DO UPDATE SET name = EXCLUDED.name, degree_end_date = EXCLUDED.degree_end_date, " +
+            "degree_title = EXCLUDED.degree_title, email = EXCLUDED.email, phone_number = EXCLUDED.phone_number, " +
+            "performance_needed = EXCLUDED.performance_needed, has_laptop = EXCLUDED.has_laptop " +
+            "RETURNING via_id, (xmax = 0) AS inserted";
+
+    // Sletter studerende med reservationer og køpladser og frigiver deres udlånte laptops i ét round trip.
+    // Fremmednøglerne tjekkes først ved sætningens afslutning, så rækkefølgen af CTE'erne er ligegyldig.
+    // Giver én række pr. slettet student og frigivet laptop (released_*-kolonnerne er NULL uden laptop),
+    // samt de køer studenten er fjernet fra og deres størrelse bagefter.
+    // Parameter: int-array med VIA ID'er
+    private static final String DELETE_CASCADE_SQL =
+            "WITH doomed AS (" +
+            "SELECT via_id FROM Student WHERE via_id = ANY(?) FOR UPDATE), " +
+            "ended AS (" +
+            "DELETE FROM Reservation r USING doomed d WHERE r.student_via_id = d.via_id " +
+            "RETURNING r.student_via_id, r.laptop_uuid, r.status), " +
+            "released AS (" +
+            "UPDATE Laptop l SET state = 'AvailableState' FROM ended e " +
+            "WHERE l.laptop_uuid = e.laptop_uuid AND e.status = 'ACTIVE' AND l.state = 'LoanedState' " +
+            "RETURNING e.student_via_id, l.laptop_uuid, l.brand, l.model, l.gigabyte, l.ram, " +
+            "l.performance_type, l.state), " +
+            "dequeued AS (" +
+            "DELETE FROM QueueEntry q USING doomed d WHERE q.student_via_id = d.via_id " +
+            "RETURNING q.student_via_id, q.performance_type), " +
+            "queue_sizes AS (" +
+            "SELECT q.performance_type, count(*) - (SELECT count(*) FROM dequeued x " +
+            "WHERE x.performance_type = q.performance_type) AS remaining " +
+            "FROM QueueEntry q GROUP BY q.performance_type), " +
+            "deleted AS (" +
+            "DELETE FROM Student s USING doomed d WHERE s.via_id = d.via_id " +
+            "RETURNING s.via_id, s.name, s.degree_end_date, s.degree_title, s.email, s.phone_number, " +
+            "s.performance_needed, s.has_laptop) " +
+            "SELECT s.*, " +
+            "r.laptop_uuid AS released_laptop_uuid, r.brand AS released_brand, r.model AS released_model, " +
+            "r.gigabyte AS released_gigabyte, r.ram AS released_ram, " +
+            "r.performance_type AS released_performance_type, r.state AS released_state, " +
+            "q.removed_from, q.queue_sizes " +
+            "FROM deleted s " +
+            "LEFT JOIN released r ON r.student_via_id = s.via_id " +
+            "LEFT JOIN LATERAL (" +
+            "SELECT array_agg(z.performance_type::text ORDER BY z.performance_type) AS removed_from, " +
+            "array_agg(z.remaining ORDER BY z.performance_type) AS queue_sizes " +
+            "FROM queue_sizes z WHERE EXISTS (SELECT 1 FROM dequeued x " +
+            "WHERE x.student_via_id = s.via_id AND x.performance_type = z.performance_type)) q ON TRUE";
 
     /**
      * Henter alle studerende fra databasen.
@@ -33,12 +97,13 @@ public class StudentDAO implements GenericDAO<Student, Integer> {
         String sql = "SELECT via_id, name, degree_end_date, degree_title, email, phone_number, " +
                 "performance_needed, has_laptop FROM Student";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
+            StudentRowMapper mapper = new StudentRowMapper();
             while (rs.next()) {
-                Student student = mapResultSetToStudent(rs);
+                Student student = mapper.map(rs);
                 students.add(student);
             }
         } catch (SQLException e) {
@@ -48,6 +113,83 @@ public class StudentDAO implements GenericDAO<Student, Integer> {
         return students;
     }
 
+    /**
+     * Streamer alle studerende via en server-side cursor.
+     *
+     * @param fetchSize Antal rækker der hentes pr. round trip
+     * @return Stream af studerende - skal lukkes efter brug
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    @Override
+    public Stream<Student> streamAll(int fetchSize) throws SQLException {
+        try {
+            return StreamingQuery.stream(SELECT_SQL, fetchSize, stmt -> { }, new StudentRowMapper());
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved streaming af studerende", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Streamer studerende med et bestemt ydelsesbehov via en server-side cursor.
+     *
+     * @param performanceType Ydelsesbehovet der filtreres på
+     * @param fetchSize       Antal rækker der hentes pr. round trip
+     * @return Stream af studerende - skal lukkes efter brug
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    public Stream<Student> streamByPerformanceType(PerformanceTypeEnum performanceType, int fetchSize) throws SQLException {
+        try {
+            return StreamingQuery.stream(SELECT_SQL + " WHERE performance_needed = ?", fetchSize,
+                    stmt -> stmt.setString(1, performanceType.name()), new StudentRowMapper());
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved streaming af studerende med performance type " + performanceType, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Henter én side af studerende sorteret efter VIA ID med keyset pagination.
+     *
+     * @param after     Sidste student fra forrige side, eller null for første side
+     * @param limit     Maksimalt antal studerende på siden
+     * @param sortOrder Sorteringsretning
+     * @return Studerende på siden
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    @Override
+    public List<Student> page(Student after, int limit, SortOrderEnum sortOrder) throws SQLException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Sidestørrelse skal være positiv: " + limit);
+        }
+
+        List<Student> students = new ArrayList<>();
+        String sql = SELECT_SQL +
+                (after != null ? " WHERE via_id " + sortOrder.getSeekOperator() + " ?" : "") +
+                " ORDER BY via_id " + sortOrder.getSqlKeyword() + " LIMIT ?";
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            if (after != null) {
+                stmt.setInt(index++, after.getViaId());
+            }
+            stmt.setInt(index, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                StudentRowMapper mapper = new StudentRowMapper();
+                while (rs.next()) {
+                    students.add(mapper.map(rs));
+                }
+            }
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved sidevis hentning af studerende", e);
+            throw e;
+        }
+        return students;
+    }
+
     /**
      * Henter en student baseret på VIA ID.
      *
@@ -57,17 +199,15 @@ public class StudentDAO implements GenericDAO<Student, Integer> {
      */
     @Override
     public Student getById(Integer id) throws SQLException {
-        String sql = "SELECT via_id, name, degree_end_date, degree_title, email, phone_number, " +
-                "performance_needed, has_laptop FROM Student WHERE via_id = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
 
             stmt.setInt(1, id);
 
             try (ResultSet rs = stmt.executeQuery()) {
+                StudentRowMapper mapper = new StudentRowMapper();
                 if (rs.next()) {
-                    return mapResultSetToStudent(rs);
+                    return mapper.map(rs);
                 }
             }
         } catch (SQLException e) {
@@ -86,20 +226,10 @@ public class StudentDAO implements GenericDAO<Student, Integer> {
      */
     @Override
     public boolean insert(Student student) throws SQLException {
-        String sql = "INSERT INTO Student (via_id, name, degree_end_date, degree_title, email, phone_number, " +
-                "performance_needed, has_laptop) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
 
-            stmt.setInt(1, student.getViaId());
-            stmt.setString(2, student.getName());
-            stmt.setDate(3, new java.sql.Date(student.getDegreeEndDate().getTime()));
-            stmt.setString(4, student.getDegreeTitle());
-            stmt.setString(5, student.getEmail());
-            stmt.setInt(6, student.getPhoneNumber());
-            stmt.setString(7, student.getPerformanceNeeded().name());
-            stmt.setBoolean(8, student.isHasLaptop());
+            bindInsert(stmt, student);
 
             int affectedRows = stmt.executeUpdate();
 
@@ -108,7 +238,7 @@ public class StudentDAO implements GenericDAO<Student, Integer> {
                 log.info("Student [" + student.getName() + ", VIA ID: " + student.getViaId() + "] oprettet i database");
 
                 // Post event
-                eventBus.post(new SystemEvents.StudentCreatedEvent(student));
+                publishWritten(student, true);
             } else {
                 log.warning("Kunne ikke oprette student i database: " + student.getViaId());
             }
@@ -129,20 +259,10 @@ public class StudentDAO implements GenericDAO<Student, Integer> {
      */
     @Override
     public boolean update(Student student) throws SQLException {
-        String sql = "UPDATE Student SET name = ?, degree_end_date = ?, degree_title = ?, email = ?, " +
-                "phone_number = ?, performance_needed = ?, has_laptop = ? WHERE via_id = ?";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
 
-            stmt.setString(1, student.getName());
-            stmt.setDate(2, new java.sql.Date(student.getDegreeEndDate().getTime()));
-            stmt.setString(3, student.getDegreeTitle());
-            stmt.setString(4, student.getEmail());
-            stmt.setInt(5, student.getPhoneNumber());
-            stmt.setString(6, student.getPerformanceNeeded().name());
-            stmt.setBoolean(7, student.isHasLaptop());
-            stmt.setInt(8, student.getViaId());
+            bindUpdate(stmt, student);
 
             int affectedRows = stmt.executeUpdate();
 
@@ -151,7 +271,7 @@ public class StudentDAO implements GenericDAO<Student, Integer> {
                 log.info("Student [" + student.getName() + ", VIA ID: " + student.getViaId() + "] opdateret i database");
 
                 // Post event
-                eventBus.post(new SystemEvents.StudentUpdatedEvent(student));
+                publishWritten(student, false);
             } else {
                 log.warning("Kunne ikke opdatere student i database: " + student.getViaId());
             }
@@ -164,59 +284,122 @@ public class StudentDAO implements GenericDAO<Student, Integer> {
     }
 
     /**
-     * Sletter en student fra databasen.
+     * Indsætter flere studerende med JDBC batching i én transaktion.
+     * Bruges fx ved oprettelse af et helt hold ved semesterstart.
      *
-     * @param id Student VIA ID
-     * @return true hvis operationen lykkedes
+     * @param students Studerende der skal indsættes
+     * @return Antal indsatte rækker
      * @throws SQLException hvis der er problemer med databasen
      */
     @Override
-    public boolean delete(Integer id) throws SQLException {
-        // Først hent studenten så vi kan sende event efter sletning
-        Student student = getById(id);
-        if (student == null) {
-            return false;
-        }
+    public int insertAll(Collection<Student> students) throws SQLException {
+        try {
+            int affectedRows = BatchExecutor.executeBatch(INSERT_SQL, students, this::bindInsert);
 
-        // Først slet afhængige reservationer
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement("DELETE FROM Reservation WHERE student_via_id = ?")) {
-            stmt.setInt(1, id);
-            stmt.executeUpdate(); // Vi ignorerer resultatet, da der måske ikke er nogen reservationer
+            log.info(affectedRows + " studerende oprettet i database med batch-indsættelse");
+
+            // Post events efter commit
+            for (Student student : students) {
+                publishWritten(student, true);
+            }
+
+            return affectedRows;
         } catch (SQLException e) {
-            log.warning("Advarsel: Kunne ikke slette reservationer for student " + id + ": " + e.getMessage());
-            // Vi fortsætter alligevel
+            handleSQLException("Fejl ved batch-indsættelse af " + students.size() + " studerende", e);
+            throw e;
         }
+    }
 
-        // Fjern fra eventuelle køer
+    /**
+     * Opdaterer flere studerende med JDBC batching i én transaktion.
+     *
+     * @param students Studerende med opdaterede oplysninger
+     * @return Antal opdaterede rækker
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    @Override
+    public int updateAll(Collection<Student> students) throws SQLException {
         try {
-            QueueDAO queueDAO = new QueueDAO();
-            queueDAO.removeFromAllQueues(id);
+            List<Student> updated = BatchExecutor.executeBatchMatched(UPDATE_SQL, students, this::bindUpdate);
+
+            log.info(updated.size() + " studerende opdateret i database med batch-opdatering");
+            if (updated.size() < students.size()) {
+                log.warning((students.size() - updated.size()) + " studerende fandtes ikke og blev ikke opdateret");
+            }
+
+            // Post events efter commit - kun for studerende hvis række blev opdateret
+            for (Student student : updated) {
+                publishWritten(student, false);
+            }
+
+            return updated.size();
         } catch (SQLException e) {
-            log.warning("Advarsel: Kunne ikke fjerne student " + id + " fra køer: " + e.getMessage());
-            // Vi fortsætter alligevel
+            handleSQLException("Fejl ved batch-opdatering af " + students.size() + " studerende", e);
+            throw e;
         }
+    }
 
-        // Derefter slet studenten
-        String sql = "DELETE FROM Student WHERE via_id = ?";
+    /**
+     * Indsætter studenten, eller opdaterer den hvis VIA ID allerede findes, i ét round trip.
+     *
+     * @param student Student objekt
+     * @return Om studenten blev indsat eller opdateret
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    @Override
+    public UpsertResult<Student> upsert(Student student) throws SQLException {
+        return upsertAll(List.of(student));
+    }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    /**
+     * Indsætter eller opdaterer flere studerende med INSERT ... ON CONFLICT DO UPDATE.
+     * Nye studerende giver StudentCreatedEvent, eksisterende StudentUpdatedEvent.
+     *
+     * @param students Studerende der skal skrives
+     * @return De indsatte og de opdaterede studerende
+     * @throws SQLException hvis der er problemer med databasen
+     */
+    @Override
+    public UpsertResult<Student> upsertAll(Collection<Student> students) throws SQLException {
+        try {
+            UpsertResult<Student> result = BatchExecutor.executeUpsert(UPSERT_SQL, students, Student::getViaId, this::bindUpsert);
 
-            stmt.setInt(1, id);
+            log.info(result.getInsertedCount() + " studerende oprettet og " + result.getUpdatedCount() +
+                    " opdateret i database med upsert");
 
-            int affectedRows = stmt.executeUpdate();
+            // Post events efter commit
+            for (Student student : result.getInserted()) {
+                publishWritten(student, true);
+            }
+            for (Student student : result.getUpdated()) {
+                publishWritten(student, false);
+            }
 
-            boolean success = affectedRows > 0;
+            return result;
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved upsert af " + students.size() + " studerende", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Sletter en student fra databasen sammen med alt der peger på den: reservationerne slettes,
+     * udlånte laptops gøres ledige igen og studenten fjernes fra køerne. Det sker i én sætning,
+     * så enten gennemføres hele sletningen eller intet.
+     *
+     * @param id Student VIA ID
+     * @return true hvis studenten fandtes og blev slettet
+     * @throws SQLException hvis der er problemer med databasen - intet er da slettet
+     */
+    @Override
+    public boolean delete(Integer id) throws SQLException {
+        try {
+            boolean success = !deleteCascade(List.of(id)).isEmpty();
             if (success) {
                 log.info("Student [VIA ID: " + id + "] slettet fra database");
-
-                // Post event
-                eventBus.post(new SystemEvents.StudentDeletedEvent(student));
             } else {
                 log.warning("Kunne ikke slette student fra database: " + id);
             }
-
             return success;
         } catch (SQLException e) {
             handleSQLException("Fejl ved sletning af student: " + id, e);
@@ -224,6 +407,92 @@ public class StudentDAO implements GenericDAO<Student, Integer> {
         }
     }
 
+    /**
+     * Sletter flere studerende på én gang, fx en årgang der er færdiguddannet.
+     * Som {@link #delete(Integer)}, men for alle ID'er i én sætning.
+     *
+     * @param ids VIA ID'er - ID'er der ikke findes springes over
+     * @return Antal slettede studerende
+     * @throws SQLException hvis der er problemer med databasen - intet er da slettet
+     */
+    public int deleteAll(Collection<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        try {
+            int deleted = deleteCascade(ids).size();
+            log.info(deleted + " af " + ids.size() + " studerende slettet fra database");
+            return deleted;
+        } catch (SQLException e) {
+            handleSQLException("Fejl ved sletning af " + ids.size() + " studerende", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Udfører DELETE_CASCADE_SQL og poster events for det der er slettet, frigivet og fjernet fra køer.
+     *
+     * @return De slettede studerende
+     */
+    private List<Student> deleteCascade(Collection<Integer> ids) throws SQLException {
+        Map<Integer, Student> deleted = new LinkedHashMap<>();
+        List<Laptop> releasedLaptops = new ArrayList<>();
+        List<SystemEvents.StudentRemovedFromQueueEvent> queueEvents = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(DELETE_CASCADE_SQL)) {
+            stmt.setArray(1, conn.createArrayOf("integer", ids.toArray()));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                StudentRowMapper studentMapper = new StudentRowMapper();
+                LaptopRowMapper laptopMapper = new LaptopRowMapper("released_");
+                while (rs.next()) {
+                    // En række pr. frigivet laptop, så samme student kan optræde flere gange
+                    Student student = deleted.get(rs.getInt("via_id"));
+                    if (student == null) {
+                        student = studentMapper.map(rs);
+                        deleted.put(student.getViaId(), student);
+                        queueEvents.addAll(queueEvents(student, rs));
+                    }
+                    if (rs.getObject("released_laptop_uuid") != null) {
+                        releasedLaptops.add(laptopMapper.map(rs));
+                    }
+                }
+            }
+        }
+
+        // Events sendes først når en evt. omgivende unit of work er committet
+        for (Laptop laptop : releasedLaptops) {
+            UnitOfWork.publish(new SystemEvents.LaptopStateChangedEvent(laptop, "LoanedState", "AvailableState", true));
+        }
+        for (SystemEvents.StudentRemovedFromQueueEvent event : queueEvents) {
+            UnitOfWork.publish(event);
+        }
+        for (Student student : deleted.values()) {
+            UnitOfWork.publish(new SystemEvents.StudentDeletedEvent(student));
+            UnitOfWork.afterCommit(() -> identityMap.evict(Student.class, student.getViaId()));
+        }
+        return new ArrayList<>(deleted.values());
+    }
+
+    /**
+     * Bygger et event for hver kø studenten er fjernet fra, med køens størrelse efter sletningen.
+     */
+    private List<SystemEvents.StudentRemovedFromQueueEvent> queueEvents(Student student, ResultSet rs) throws SQLException {
+        List<SystemEvents.StudentRemovedFromQueueEvent> events = new ArrayList<>();
+        Array removedFrom = rs.getArray("removed_from");
+        if (removedFrom == null) {
+            return events;
+        }
+        String[] queueTypes = (String[]) removedFrom.getArray();
+        Long[] queueSizes = (Long[]) rs.getArray("queue_sizes").getArray();
+        for (int i = 0; i < queueTypes.length; i++) {
+            events.add(new SystemEvents.StudentRemovedFromQueueEvent(
+                    student, PerformanceTypeEnum.valueOf(queueTypes[i]), queueSizes[i].intValue(), false));
+        }
+        return events;
+    }
+
     /**
      * Tæller antal studerende i databasen.
      *
@@ -234,7 +503,7 @@ public class StudentDAO implements GenericDAO<Student, Integer> {
     public int count() throws SQLException {
         String sql = "SELECT COUNT(*) FROM Student";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -285,14 +554,15 @@ public class StudentDAO implements GenericDAO<Student, Integer> {
         String sql = "SELECT via_id, name, degree_end_date, degree_title, email, phone_number, " +
                 "performance_needed, has_laptop FROM Student WHERE performance_needed = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, performanceType.name());
 
             try (ResultSet rs = stmt.executeQuery()) {
+                StudentRowMapper mapper = new StudentRowMapper();
                 while (rs.next()) {
-                    Student student = mapResultSetToStudent(rs);
+                    Student student = mapper.map(rs);
                     students.add(student);
                 }
             }
@@ -316,14 +586,15 @@ public class StudentDAO implements GenericDAO<Student, Integer> {
         String sql = "SELECT via_id, name, degree_end_date, degree_title, email, phone_number, " +
                 "performance_needed, has_laptop FROM Student WHERE has_laptop = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setBoolean(1, hasLaptop);
 
             try (ResultSet rs = stmt.executeQuery()) {
+                StudentRowMapper mapper = new StudentRowMapper();
                 while (rs.next()) {
-                    Student student = mapResultSetToStudent(rs);
+                    Student student = mapper.map(rs);
                     students.add(student);
                 }
             }
@@ -336,30 +607,83 @@ public class StudentDAO implements GenericDAO<Student, Integer> {
     }
 
     /**
-     * Konverterer ResultSet til Student objekt.
-     *
-     * @param rs ResultSet at konvertere
-     * @return Student objektet
-     * @throws SQLException hvis der er problemer med databasen
+     * Binder en students værdier til INSERT_SQL.
+     */
+    private void bindInsert(PreparedStatement stmt, Student student) throws SQLException {
+        stmt.setInt(1, student.getViaId());
+        stmt.setString(2, student.getName());
+        stmt.setDate(3, new java.sql.Date(student.getDegreeEndDate().getTime()));
+        stmt.setString(4, student.getDegreeTitle());
+        stmt.setString(5, student.getEmail());
+        stmt.setInt(6, student.getPhoneNumber());
+        stmt.setString(7, student.getPerformanceNeeded().name());
+        stmt.setBoolean(8, student.isHasLaptop());
+    }
+
+    /**
+     * Binder en students værdier til UPDATE_SQL.
      */
-    public Student mapResultSetToStudent(ResultSet rs) throws SQLException {
-        int viaId = rs.getInt("via_id");
-        String name = rs.getString("name");
-        java.util.Date degreeEndDate = rs.getDate("degree_end_date");
-        String degreeTitle = rs.getString("degree_title");
-        String email = rs.getString("email");
-        int phoneNumber = rs.getInt("phone_number");
-        PerformanceTypeEnum performanceNeeded = PerformanceTypeEnum.valueOf(rs.getString("performance_needed"));
-        boolean hasLaptop = rs.getBoolean("has_laptop");
-
-        Student student = new Student(name, degreeEndDate, degreeTitle, viaId, email, phoneNumber, performanceNeeded);
-
-        // Sæt hasLaptop baseret på databaseværdien
-        if (hasLaptop != student.isHasLaptop()) {
-            student.setHasLaptop(hasLaptop);
+    private void bindUpdate(PreparedStatement stmt, Student student) throws SQLException {
+        stmt.setString(1, student.getName());
+        stmt.setDate(2, new java.sql.Date(student.getDegreeEndDate().getTime()));
+        stmt.setString(3, student.getDegreeTitle());
+        stmt.setString(4, student.getEmail());
+        stmt.setInt(5, student.getPhoneNumber());
+        stmt.setString(6, student.getPerformanceNeeded().name());
+        stmt.setBoolean(7, student.isHasLaptop());
+        stmt.setInt(8, student.getViaId());
+    }
+
+    /**
+     * Binder studerende til UPSERT_SQL som ét array pr. kolonne.
+     * Datoer sendes som tekst (yyyy-mm-dd), som databasen caster til date.
+     */
+    private void bindUpsert(PreparedStatement stmt, Connection conn, List<Student> students) throws SQLException {
+        int size = students.size();
+        Integer[] viaIds = new Integer[size];
+        String[] names = new String[size];
+        String[] degreeEndDates = new String[size];
+        String[] degreeTitles = new String[size];
+        String[] emails = new String[size];
+        Integer[] phoneNumbers = new Integer[size];
+        String[] performanceNeeded = new String[size];
+        Boolean[] hasLaptop = new Boolean[size];
+        for (int i = 0; i < size; i++) {
+            Student student = students.get(i);
+            viaIds[i] = student.getViaId();
+            names[i] = student.getName();
+            degreeEndDates[i] = new java.sql.Date(student.getDegreeEndDate().getTime()).toString();
+            degreeTitles[i] = student.getDegreeTitle();
+            emails[i] = student.getEmail();
+            phoneNumbers[i] = student.getPhoneNumber();
+            performanceNeeded[i] = student.getPerformanceNeeded().name();
+            hasLaptop[i] = student.isHasLaptop();
         }
+        stmt.setArray(1, conn.createArrayOf("integer", viaIds));
+        stmt.setArray(2, conn.createArrayOf("varchar", names));
+        stmt.setArray(3, conn.createArrayOf("varchar", degreeEndDates));
+        stmt.setArray(4, conn.createArrayOf("varchar", degreeTitles));
+        stmt.setArray(5, conn.createArrayOf("varchar", emails));
+        stmt.setArray(6, conn.createArrayOf("integer", phoneNumbers));
+        stmt.setArray(7, conn.createArrayOf("varchar", performanceNeeded));
+        stmt.setArray(8, conn.createArrayOf("boolean", hasLaptop));
+    }
 
-        return student;
+    /**
+     * Registrerer en skrevet student i identity map efter commit og poster eventet med den kanoniske instans,
+     * så caches og senere indlæsninger deler samme objekt.
+     *
+     * @param created true for StudentCreatedEvent, false for StudentUpdatedEvent
+     */
+    private void publishWritten(Student student, boolean created) {
+        UnitOfWork.afterCommit(() -> {
+            Student canonical = identityMap.register(Student.class, student.getViaId(), student, StudentRowMapper::refresh);
+            if (created) {
+                eventBus.post(new SystemEvents.StudentCreatedEvent(canonical));
+            } else {
+                eventBus.post(new SystemEvents.StudentUpdatedEvent(canonical));
+            }
+        });
     }
 
     /**
@@ -375,4 +699,14 @@ public class StudentDAO implements GenericDAO<Student, Integer> {
         // Post database error event
         eventBus.post(new SystemEvents.DatabaseErrorEvent(message, e.getSQLState(), e));
     }
-}
\ No newline at end of file
+
+    /**
+     * SQL for de hyppigste forespørgsler. Lægges i c3p0's statement-cache på nye forbindelser ved opstart.
+     * Skal være præcis samme tekst som metoderne bruger, ellers rammes cachen ikke.
+     *
+     * @return SQL-sætningerne
+     */
+    static List<String> hotStatements() {
+        return List.of(SELECT_BY_ID_SQL, INSERT_SQL, UPDATE_SQL, UPSERT_SQL);
+    }
+}
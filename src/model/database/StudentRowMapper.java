@@ -0,0 +1,65 @@
+package model.database;
+
+import model.enums.PerformanceTypeEnum;
+import model.models.Student;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Row mapper for Student-rækker.
+ * hasLaptop sættes direkte i konstruktøren, så der ikke fyres property-change events under indlæsning.
+ * Er studerende allerede i hukommelsen, returneres den kendte instans via IdentityMap, opdateret med
+ * rækkens værdier uden at fyre events. Læsninger fra read replicaen og inden for en unit of work
+ * opdaterer ikke den kendte instans med det samme - se IdentityMap.
+ */
+public class StudentRowMapper extends ColumnIndexRowMapper<Student> {
+    private static final IdentityMap identityMap = IdentityMap.getInstance();
+
+    private static final int VIA_ID = 0;
+    private static final int NAME = 1;
+    private static final int DEGREE_END_DATE = 2;
+    private static final int DEGREE_TITLE = 3;
+    private static final int EMAIL = 4;
+    private static final int PHONE_NUMBER = 5;
+    private static final int PERFORMANCE_NEEDED = 6;
+    private static final int HAS_LAPTOP = 7;
+
+    /**
+     * Opretter en mapper for Student's egne kolonnenavne.
+     */
+    public StudentRowMapper() {
+        this("");
+    }
+
+    /**
+     * Opretter en mapper for en projektion hvor kolonnerne har et fælles præfiks.
+     *
+     * @param columnPrefix Præfiks foran kolonnenavnene
+     */
+    public StudentRowMapper(String columnPrefix) {
+        super(columnPrefix, "via_id", "name", "degree_end_date", "degree_title", "email", "phone_number",
+                "performance_needed", "has_laptop");
+    }
+
+    @Override
+    protected Student mapRow(ResultSet rs, int[] indexes) throws SQLException {
+        Student student = new Student(
+                rs.getString(indexes[NAME]),
+                rs.getDate(indexes[DEGREE_END_DATE]),
+                rs.getString(indexes[DEGREE_TITLE]),
+                rs.getInt(indexes[VIA_ID]),
+                rs.getString(indexes[EMAIL]),
+                rs.getInt(indexes[PHONE_NUMBER]),
+                PerformanceTypeEnum.valueOf(rs.getString(indexes[PERFORMANCE_NEEDED])),
+                rs.getBoolean(indexes[HAS_LAPTOP]));
+        return identityMap.canonical(Student.class, student.getViaId(), student, StudentRowMapper::refresh);
+    }
+
+    /**
+     * Overfører værdierne fra en netop indlæst eller skrevet række til den kendte instans uden events.
+     */
+    static void refresh(Student known, Student loaded) {
+        known.refreshFromDatabase(loaded);
+    }
+}
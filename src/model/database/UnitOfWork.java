@@ -0,0 +1,350 @@
+package model.database;
+
+import model.log.Log;
+import model.util.EventBus;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Samler DAO-kald på den aktuelle tråd i én transaktion på én forbindelse.
+ * Inden for en unit of work returnerer DatabaseConnection den samme forbindelse til alle DAO'er -
+ * også til læsninger, så de ser transaktionens egne skrivninger. Forbindelsen hentes først ved
+ * første databasekald og gives tilbage til poolen når unit of work afsluttes.
+ * <pre>
+ * try (UnitOfWork unitOfWork = UnitOfWork.begin()) {
+ *     studentDAO.insert(student);
+ *     reservationDAO.createReservationWithTransaction(reservation);
+ *     unitOfWork.commit();
+ * }
+ * </pre>
+ * Lukkes den uden commit, rulles alt tilbage. En indlejret unit of work deltager i den ydre:
+ * dens commit gør intet, og lukkes den uden commit, rulles hele den ydre transaktion tilbage.
+ * DAO'ernes egne commit() og rollback() på den delte forbindelse virker på samme måde.
+ * Fejler en sætning, markeres hele unit of work til rollback - også hvis kalderen fanger fejlen -
+ * da PostgreSQL afviser resten af en afbrudt transaktion og driveren ruller den stille tilbage ved commit.
+ * Events og opdateringer af hukommelsen registreres med afterCommit og udføres kun hvis
+ * transaktionen bliver committet.
+ */
+public final class UnitOfWork implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(UnitOfWork.class.getName());
+    private static final Log log = Log.getInstance();
+    private static final EventBus eventBus = EventBus.getInstance();
+
+    private static final ThreadLocal<Transaction> current = new ThreadLocal<>();
+
+    private final Transaction transaction;
+    private final boolean nested;
+    private boolean committed;
+    private boolean closed;
+
+    private UnitOfWork(Transaction transaction, boolean nested) {
+        this.transaction = transaction;
+        this.nested = nested;
+    }
+
+    /**
+     * Starter en unit of work på den aktuelle tråd, eller deltager i den igangværende.
+     *
+     * @return Unit of work der skal lukkes, fx med try-with-resources
+     */
+    public static UnitOfWork begin() {
+        Transaction transaction = current.get();
+        if (transaction != null) {
+            return new UnitOfWork(transaction, true);
+        }
+        transaction = new Transaction();
+        current.set(transaction);
+        return new UnitOfWork(transaction, false);
+    }
+
+    /**
+     * @return true hvis den aktuelle tråd er i en unit of work
+     */
+    public static boolean isActive() {
+        return current.get() != null;
+    }
+
+    /**
+     * Udfører en handling når den igangværende unit of work er committet, eller med det samme
+     * hvis tråden ikke er i en unit of work. Handlingen droppes hvis transaktionen rulles tilbage.
+     *
+     * @param action Handling, fx opdatering af en cache eller en property change
+     */
+    public static void afterCommit(Runnable action) {
+        Transaction transaction = current.get();
+        if (transaction != null) {
+            transaction.afterCommit.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Poster et event når den igangværende unit of work er committet, eller med det samme uden en.
+     *
+     * @param event Event der skal postes
+     */
+    static void publish(EventBus.Event event) {
+        afterCommit(() -> eventBus.post(event));
+    }
+
+    /**
+     * Giver unit of work'ens forbindelse hvis tråden er i en. Første gang hentes den med acquire.
+     *
+     * @param acquire Henter en forbindelse fra poolen
+     * @return Future med den delte forbindelse, eller null hvis tråden ikke er i en unit of work
+     */
+    static CompletableFuture<Connection> joinCurrent(Supplier<CompletableFuture<Connection>> acquire) {
+        Transaction transaction = current.get();
+        return transaction != null ? transaction.connection(acquire) : null;
+    }
+
+    /**
+     * Committer transaktionen og udfører afterCommit-handlingerne. For en indlejret unit of work
+     * markeres den blot som fuldført; den ydre committer.
+     *
+     * @throws SQLException hvis commit fejler, hvis en sætning i unit of work fejlede, eller hvis en
+     *                      indre operation har rullet tilbage
+     */
+    public void commit() throws SQLException {
+        if (closed || committed) {
+            throw new IllegalStateException("Unit of work er allerede afsluttet");
+        }
+        committed = true;
+        if (nested) {
+            return;
+        }
+
+        try {
+            if (transaction.rollbackOnly) {
+                throw new SQLException("Transaktionen blev rullet tilbage af en fejlet eller indre operation");
+            }
+            if (transaction.connection != null && transaction.connection.isCompletedExceptionally()) {
+                throw new SQLException("Unit of work fik ingen forbindelse - intet at committe");
+            }
+            Connection conn = transaction.physicalConnection();
+            if (conn != null) {
+                conn.commit();
+            }
+        } catch (SQLException e) {
+            committed = false;
+            close();
+            throw e;
+        }
+
+        // Forbindelsen gives tilbage før handlingerne, så de ikke deltager i en afsluttet transaktion
+        release();
+        for (Runnable action : transaction.afterCommit) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Fejl i handling efter commit: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Afslutter unit of work. Er den ikke committet, rulles transaktionen tilbage.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        if (nested) {
+            closed = true;
+            if (!committed) {
+                transaction.rollbackOnly = true;
+            }
+            return;
+        }
+        if (!committed) {
+            Connection conn = transaction.physicalConnection();
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                    log.warning("Unit of work rullet tilbage");
+                } catch (SQLException e) {
+                    log.error("Fejl under rollback af unit of work: " + e.getMessage());
+                }
+            }
+        }
+        release();
+    }
+
+    private void release() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        current.remove();
+
+        if (transaction.connection != null && !transaction.connection.isDone()) {
+            // Hentningen er ikke færdig - forbindelsen gives tilbage når den når frem
+            transaction.connection.thenAccept(UnitOfWork::closeQuietly);
+            return;
+        }
+        Connection conn = transaction.physicalConnection();
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.setAutoCommit(true);
+        } catch (SQLException e) {
+            log.warning("Fejl ved nulstilling af forbindelse: " + e.getMessage());
+        } finally {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                log.warning("Fejl ved lukning af forbindelse: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Tilstand delt af en unit of work og dens indlejrede.
+     */
+    private static final class Transaction {
+        private final List<Runnable> afterCommit = new ArrayList<>();
+        private CompletableFuture<Connection> connection;
+        private Connection joined;
+        private boolean rollbackOnly;
+
+        CompletableFuture<Connection> connection(Supplier<CompletableFuture<Connection>> acquire) {
+            if (connection == null) {
+                connection = acquire.get().thenApply(conn -> {
+                    try {
+                        conn.setAutoCommit(false);
+                    } catch (SQLException e) {
+                        UnitOfWork.closeQuietly(conn);
+                        throw new CompletionException(e);
+                    }
+                    joined = (Connection) Proxy.newProxyInstance(
+                            UnitOfWork.class.getClassLoader(),
+                            new Class<?>[]{Connection.class},
+                            new JoinedConnection(conn, this));
+                    return conn;
+                });
+            }
+            return connection.thenApply(conn -> joined);
+        }
+
+        /**
+         * @return Forbindelsen fra poolen, eller null hvis den ikke er hentet
+         */
+        Connection physicalConnection() {
+            if (connection == null || !connection.isDone() || connection.isCompletedExceptionally()) {
+                return null;
+            }
+            return connection.join();
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Fejl ved lukning af forbindelse", e);
+        }
+    }
+
+    /**
+     * Forbindelsen som DAO'erne får inden for en unit of work. Transaktionsstyringen ligger hos
+     * unit of work, så close, commit og setAutoCommit ignoreres, og rollback markerer transaktionen
+     * til at blive rullet tilbage. Statements pakkes ind, så en SQLException fra dem gør det samme.
+     */
+    private static final class JoinedConnection implements InvocationHandler {
+        private final Connection delegate;
+        private final Transaction transaction;
+
+        JoinedConnection(Connection delegate, Transaction transaction) {
+            this.delegate = delegate;
+            this.transaction = transaction;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            int parameters = method.getParameterCount();
+            if ("equals".equals(name) && parameters == 1) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name) && parameters == 0) {
+                return System.identityHashCode(proxy);
+            }
+            if (("close".equals(name) || "commit".equals(name)) && parameters == 0) {
+                return null;
+            }
+            if ("setAutoCommit".equals(name)) {
+                return null;
+            }
+            if ("getAutoCommit".equals(name)) {
+                return false;
+            }
+            if ("rollback".equals(name) && parameters == 0) {
+                transaction.rollbackOnly = true;
+                return null;
+            }
+
+            Object result = invokeMarkingFailure(delegate, method, args, transaction);
+            if (result instanceof Statement) {
+                return Proxy.newProxyInstance(
+                        UnitOfWork.class.getClassLoader(),
+                        new Class<?>[]{method.getReturnType()},
+                        new JoinedStatement((Statement) result, transaction));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Statement fra den delte forbindelse. En SQLException markerer transaktionen til rollback.
+     */
+    private static final class JoinedStatement implements InvocationHandler {
+        private final Statement delegate;
+        private final Transaction transaction;
+
+        JoinedStatement(Statement delegate, Transaction transaction) {
+            this.delegate = delegate;
+            this.transaction = transaction;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("equals".equals(name) && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name) && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            }
+            return invokeMarkingFailure(delegate, method, args, transaction);
+        }
+    }
+
+    private static Object invokeMarkingFailure(Object target, Method method, Object[] args,
+                                               Transaction transaction) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException && !transaction.rollbackOnly) {
+                transaction.rollbackOnly = true;
+                logger.fine("Unit of work markeret til rollback: " + e.getCause().getMessage());
+            }
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package model.database;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultatet af en upsert: hvilke entiteter blev indsat som nye rækker, og hvilke opdaterede
+ * en eksisterende række. Databasen afgør det selv for hver række, så resultatet er korrekt
+ * også når andre skriver samtidigt.
+ *
+ * @param <T> Entitetstypen
+ */
+public final class UpsertResult<T> {
+    private final List<T> inserted;
+    private final List<T> updated;
+
+    UpsertResult(List<T> inserted, List<T> updated) {
+        this.inserted = Collections.unmodifiableList(inserted);
+        this.updated = Collections.unmodifiableList(updated);
+    }
+
+    /**
+     * @return Entiteterne der blev indsat som nye rækker
+     */
+    public List<T> getInserted() {
+        return inserted;
+    }
+
+    /**
+     * @return Entiteterne der opdaterede en eksisterende række
+     */
+    public List<T> getUpdated() {
+        return updated;
+    }
+
+    public int getInsertedCount() {
+        return inserted.size();
+    }
+
+    public int getUpdatedCount() {
+        return updated.size();
+    }
+
+    /**
+     * @return Antal skrevne rækker i alt
+     */
+    public int getTotalCount() {
+        return inserted.size() + updated.size();
+    }
+
+    @Override
+    public String toString() {
+        return "UpsertResult[indsat=" + inserted.size() + ", opdateret=" + updated.size() + "]";
+    }
+}
@@ -0,0 +1,57 @@
+package model.database;
+
+import model.enums.WorkloadEnum;
+
+/**
+ * Markerer at databasekald på den aktuelle tråd tilhører en bestemt trafiktype.
+ * Bruges med try-with-resources; det tidligere scope gendannes når blokken forlades:
+ * <pre>
+ * try (WorkloadScope scope = WorkloadScope.enter(WorkloadEnum.REPORTING)) {
+ *     reservationDAO.getAll();
+ * }
+ * </pre>
+ * Uden et scope regnes trafikken som interaktiv.
+ */
+public final class WorkloadScope implements AutoCloseable {
+    private static final ThreadLocal<WorkloadEnum> current = new ThreadLocal<>();
+
+    private final WorkloadEnum previous;
+    private boolean closed;
+
+    private WorkloadScope(WorkloadEnum previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * Starter et scope for den aktuelle tråd.
+     *
+     * @param workload Trafiktypen for kald inden for scopet
+     * @return Scope der skal lukkes når kaldene er færdige
+     */
+    public static WorkloadScope enter(WorkloadEnum workload) {
+        WorkloadScope scope = new WorkloadScope(current.get());
+        current.set(workload);
+        return scope;
+    }
+
+    /**
+     * @return Trafiktypen for den aktuelle tråd, INTERACTIVE hvis intet scope er aktivt
+     */
+    public static WorkloadEnum current() {
+        WorkloadEnum workload = current.get();
+        return workload != null ? workload : WorkloadEnum.INTERACTIVE;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (previous != null) {
+            current.set(previous);
+        } else {
+            current.remove();
+        }
+    }
+}
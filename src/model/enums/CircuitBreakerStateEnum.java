@@ -0,0 +1,35 @@
+package model.enums;
+
+/**
+ * Enum der definerer tilstandene for en circuit breaker.
+ */
+public enum CircuitBreakerStateEnum {
+    CLOSED("Lukket"),
+    OPEN("Åben"),
+    HALF_OPEN("Halvåben");
+
+    private final String displayName;
+
+    /**
+     * Konstruktør
+     *
+     * @param displayName Brugervenlig visningstekst
+     */
+    CircuitBreakerStateEnum(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * Returnerer en brugervenlig tekst til visning i UI
+     *
+     * @return Læsbar tekst for tilstanden
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,41 @@
+package model.enums;
+
+/**
+ * Enum der definerer sorteringsretning for sidevis (keyset) hentning.
+ */
+public enum SortOrderEnum {
+    ASC("ASC", ">"),
+    DESC("DESC", "<");
+
+    private final String sqlKeyword;
+    private final String seekOperator;
+
+    /**
+     * Konstruktør
+     *
+     * @param sqlKeyword   Nøgleord der bruges i ORDER BY
+     * @param seekOperator Sammenligningsoperator der springer til rækkerne efter nøglen
+     */
+    SortOrderEnum(String sqlKeyword, String seekOperator) {
+        this.sqlKeyword = sqlKeyword;
+        this.seekOperator = seekOperator;
+    }
+
+    /**
+     * Returnerer nøgleordet til ORDER BY
+     *
+     * @return "ASC" eller "DESC"
+     */
+    public String getSqlKeyword() {
+        return sqlKeyword;
+    }
+
+    /**
+     * Returnerer operatoren der vælger rækkerne efter en nøgle i denne sorteringsretning
+     *
+     * @return "&gt;" for stigende, "&lt;" for faldende
+     */
+    public String getSeekOperator() {
+        return seekOperator;
+    }
+}
@@ -0,0 +1,49 @@
+package model.enums;
+
+/**
+ * Enum der definerer typer af databasetrafik.
+ * Hver type kan have sin egen forbindelsespool, så fx en lang rapport ikke kan
+ * opbruge de forbindelser skranken skal bruge til at oprette reservationer.
+ */
+public enum WorkloadEnum {
+    INTERACTIVE("interactive", "Interaktiv"),
+    BACKGROUND("background", "Baggrund"),
+    REPORTING("reporting", "Rapportering");
+
+    private final String configKey;
+    private final String displayName;
+
+    /**
+     * Konstruktør
+     *
+     * @param configKey   Navn der bruges i database.properties og som poolnavn
+     * @param displayName Brugervenlig visningstekst
+     */
+    WorkloadEnum(String configKey, String displayName) {
+        this.configKey = configKey;
+        this.displayName = displayName;
+    }
+
+    /**
+     * Returnerer navnet der bruges i konfigurationen, fx db.workload.reporting.pool.maxSize
+     *
+     * @return Konfigurationsnavnet
+     */
+    public String getConfigKey() {
+        return configKey;
+    }
+
+    /**
+     * Returnerer en brugervenlig tekst til visning i UI
+     *
+     * @return Læsbar tekst for trafiktypen
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
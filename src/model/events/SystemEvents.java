@@ -1,5 +1,6 @@
 package model.events;
 
+import model.enums.CircuitBreakerStateEnum;
 import model.enums.PerformanceTypeEnum;
 import model.enums.ReservationStatusEnum;
 import model.models.Laptop;
@@ -7,6 +8,9 @@ import model.models.Reservation;
 import model.models.Student;
 import model.util.EventBus;
 
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
 
 /**
@@ -398,4 +402,272 @@ public class SystemEvents {
             return exception;
         }
     }
+
+    /**
+     * Event der udløses når ventetiden på en databaseforbindelse bliver for høj.
+     * Sendes én gang når p99 ventetid i et målevindue overstiger grænsen, og igen først
+     * efter poolen har været under grænsen i et helt vindue.
+     */
+    public static class DatabasePoolSaturatedEvent implements OperationEvent {
+        private final String poolName;
+        private final double p99WaitMillis;
+        private final long thresholdMillis;
+        private final int busyConnections;
+        private final int maxPoolSize;
+
+        public DatabasePoolSaturatedEvent(String poolName, double p99WaitMillis, long thresholdMillis,
+                                          int busyConnections, int maxPoolSize) {
+            this.poolName = poolName;
+            this.p99WaitMillis = p99WaitMillis;
+            this.thresholdMillis = thresholdMillis;
+            this.busyConnections = busyConnections;
+            this.maxPoolSize = maxPoolSize;
+        }
+
+        public String getPoolName() {
+            return poolName;
+        }
+
+        public double getP99WaitMillis() {
+            return p99WaitMillis;
+        }
+
+        public long getThresholdMillis() {
+            return thresholdMillis;
+        }
+
+        public int getBusyConnections() {
+            return busyConnections;
+        }
+
+        public int getMaxPoolSize() {
+            return maxPoolSize;
+        }
+    }
+
+    /**
+     * Event der udløses når den adaptive styring ændrer en pools forbindelsesgrænse
+     */
+    public static class DatabasePoolResizedEvent implements OperationEvent {
+        private final String poolName;
+        private final int oldLimit;
+        private final int newLimit;
+        private final String reason;
+
+        public DatabasePoolResizedEvent(String poolName, int oldLimit, int newLimit, String reason) {
+            this.poolName = poolName;
+            this.oldLimit = oldLimit;
+            this.newLimit = newLimit;
+            this.reason = reason;
+        }
+
+        public String getPoolName() {
+            return poolName;
+        }
+
+        public int getOldLimit() {
+            return oldLimit;
+        }
+
+        public int getNewLimit() {
+            return newLimit;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    /**
+     * Event der udløses når forbindelsespoolerne er varmet op efter opstart
+     */
+    public static class DatabaseReadyEvent implements OperationEvent {
+        private final int warmedConnections;
+        private final long durationMillis;
+
+        public DatabaseReadyEvent(int warmedConnections, long durationMillis) {
+            this.warmedConnections = warmedConnections;
+            this.durationMillis = durationMillis;
+        }
+
+        public int getWarmedConnections() {
+            return warmedConnections;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+    }
+
+    /**
+     * Event der udløses når database.properties er genindlæst og nye pools har overtaget.
+     * Indeholder kun navnene på de ændrede nøgler, da værdierne kan være adgangskoder.
+     */
+    public static class DatabaseConfigReloadedEvent implements OperationEvent {
+        private final Set<String> changedKeys;
+
+        public DatabaseConfigReloadedEvent(Set<String> changedKeys) {
+            this.changedKeys = Collections.unmodifiableSet(new TreeSet<>(changedKeys));
+        }
+
+        public Set<String> getChangedKeys() {
+            return changedKeys;
+        }
+    }
+
+    /**
+     * Event der udløses når en databaseforbindelse har været udlånt længere end grænsen.
+     * stackTrace er kun sat hvis hentningen var med i stikprøven.
+     */
+    public static class ConnectionLeakSuspectedEvent implements OperationEvent {
+        private final String poolName;
+        private final String caller;
+        private final String threadName;
+        private final long heldMillis;
+        private final String stackTrace;
+
+        public ConnectionLeakSuspectedEvent(String poolName, String caller, String threadName, long heldMillis,
+                                            String stackTrace) {
+            this.poolName = poolName;
+            this.caller = caller;
+            this.threadName = threadName;
+            this.heldMillis = heldMillis;
+            this.stackTrace = stackTrace;
+        }
+
+        public String getPoolName() {
+            return poolName;
+        }
+
+        public String getCaller() {
+            return caller;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+
+        public long getHeldMillis() {
+            return heldMillis;
+        }
+
+        public String getStackTrace() {
+            return stackTrace;
+        }
+    }
+
+    /**
+     * Event der udløses når en tråd henter en databaseforbindelse mens den allerede holder en
+     */
+    public static class NestedCheckoutDetectedEvent implements OperationEvent {
+        private final String poolName;
+        private final String outerCaller;
+        private final String innerCaller;
+        private final String threadName;
+
+        public NestedCheckoutDetectedEvent(String poolName, String outerCaller, String innerCaller, String threadName) {
+            this.poolName = poolName;
+            this.outerCaller = outerCaller;
+            this.innerCaller = innerCaller;
+            this.threadName = threadName;
+        }
+
+        public String getPoolName() {
+            return poolName;
+        }
+
+        public String getOuterCaller() {
+            return outerCaller;
+        }
+
+        public String getInnerCaller() {
+            return innerCaller;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+    }
+
+    /**
+     * Event der udløses når samme enkeltrækkes-forespørgsel udføres mange gange i én operation (N+1)
+     */
+    public static class NPlusOneDetectedEvent implements OperationEvent {
+        private final String sqlTemplate;
+        private final int executions;
+        private final String threadName;
+
+        public NPlusOneDetectedEvent(String sqlTemplate, int executions, String threadName) {
+            this.sqlTemplate = sqlTemplate;
+            this.executions = executions;
+            this.threadName = threadName;
+        }
+
+        public String getSqlTemplate() {
+            return sqlTemplate;
+        }
+
+        public int getExecutions() {
+            return executions;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+    }
+
+    /**
+     * Event der udløses når en operation overskrider sit tidsbudget
+     */
+    public static class QueryTimeoutEvent implements OperationEvent {
+        private final String operation;
+        private final String caller;
+        private final long budgetMillis;
+
+        public QueryTimeoutEvent(String operation, String caller, long budgetMillis) {
+            this.operation = operation;
+            this.caller = caller;
+            this.budgetMillis = budgetMillis;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public String getCaller() {
+            return caller;
+        }
+
+        public long getBudgetMillis() {
+            return budgetMillis;
+        }
+    }
+
+    /**
+     * Event der udløses når en circuit breaker skifter tilstand
+     */
+    public static class CircuitBreakerStateChangedEvent implements OperationEvent {
+        private final String breakerName;
+        private final CircuitBreakerStateEnum oldState;
+        private final CircuitBreakerStateEnum newState;
+
+        public CircuitBreakerStateChangedEvent(String breakerName, CircuitBreakerStateEnum oldState,
+                                               CircuitBreakerStateEnum newState) {
+            this.breakerName = breakerName;
+            this.oldState = oldState;
+            this.newState = newState;
+        }
+
+        public String getBreakerName() {
+            return breakerName;
+        }
+
+        public CircuitBreakerStateEnum getOldState() {
+            return oldState;
+        }
+
+        public CircuitBreakerStateEnum getNewState() {
+            return newState;
+        }
+    }
 }
\ No newline at end of file
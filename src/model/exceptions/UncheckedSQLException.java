@@ -0,0 +1,32 @@
+package model.exceptions;
+
+import java.sql.SQLException;
+
+/**
+ * Unchecked wrapper for SQLException.
+ * Bruges hvor en database fejl skal passere gennem API'er der ikke tillader checked exceptions,
+ * f.eks. når rækker læses lazily fra en java.util.stream.Stream.
+ */
+public class UncheckedSQLException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Opretter en ny unchecked exception omkring en SQLException.
+     *
+     * @param message Fejlbeskeden
+     * @param cause   Den underliggende SQLException
+     */
+    public UncheckedSQLException(String message, SQLException cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Returnerer den underliggende SQLException.
+     *
+     * @return SQLException der udløste fejlen
+     */
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
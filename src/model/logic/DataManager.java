@@ -1,11 +1,16 @@
 package model.logic;
 
+import model.database.Deadline;
 import model.database.LaptopDAO;
 import model.database.QueueDAO;
 import model.database.ReservationDAO;
 import model.database.StudentDAO;
+import model.database.UnitOfWork;
+import model.database.WorkloadScope;
 import model.enums.PerformanceTypeEnum;
 import model.enums.ReservationStatusEnum;
+import model.enums.SortOrderEnum;
+import model.enums.WorkloadEnum;
 import model.log.Log;
 import model.logic.reservationsLogic.ReservationManager;
 import model.models.Laptop;
@@ -24,6 +29,8 @@ import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+// Deadline og WorkloadScope bruges kun for deres virkning i try-with-resources og refereres ikke i kroppen
+@SuppressWarnings("try")
 public class DataManager implements PropertyChangeListener, DataModel {
     private static final Logger logger = Logger.getLogger(DataManager.class.getName());
 
@@ -62,7 +69,9 @@ public class DataManager implements PropertyChangeListener, DataModel {
     }
 
     public void refreshCaches() {
-        try {
+        // Fuld genindlæsning kører i baggrundspoolen, så den ikke optager forbindelser fra skranken
+        try (WorkloadScope scope = WorkloadScope.enter(WorkloadEnum.BACKGROUND);
+             Deadline deadline = Deadline.start("refreshCaches")) {
             laptopCache.clear();
             laptopCache.addAll(laptopDAO.getAll());
 
@@ -83,7 +92,7 @@ public class DataManager implements PropertyChangeListener, DataModel {
     // LAPTOP METODER
 
     public List<Laptop> getAllLaptops() {
-        try {
+        try (Deadline deadline = Deadline.start("getAllLaptops")) {
             return laptopDAO.getAll();
         } catch (SQLException e) {
             logger.log(Level.WARNING, "Fejl ved hentning af laptops: " + e.getMessage(), e);
@@ -92,6 +101,16 @@ public class DataManager implements PropertyChangeListener, DataModel {
         }
     }
 
+    public List<Laptop> getLaptopsPage(Laptop after, int limit) {
+        try (Deadline deadline = Deadline.start("getLaptopsPage")) {
+            return laptopDAO.page(after, limit, SortOrderEnum.ASC);
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Fejl ved sidevis hentning af laptops: " + e.getMessage(), e);
+            log.addToLog("Fejl ved sidevis hentning af laptops: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
     public int getAmountOfAvailableLaptops() {
         int count = 0;
         for (Laptop laptop : laptopCache) {
@@ -113,7 +132,7 @@ public class DataManager implements PropertyChangeListener, DataModel {
     }
 
     public Laptop findAvailableLaptop(PerformanceTypeEnum performanceType) {
-        try {
+        try (Deadline deadline = Deadline.start("findAvailableLaptop")) {
             List<Laptop> availableLaptops = laptopDAO.getAvailableLaptopsByPerformance(performanceType);
             return availableLaptops.isEmpty() ? null : availableLaptops.get(0);
         } catch (SQLException e) {
@@ -130,7 +149,7 @@ public class DataManager implements PropertyChangeListener, DataModel {
     }
 
     public Laptop createLaptop(String brand, String model, int gigabyte, int ram, PerformanceTypeEnum performanceType) {
-        try {
+        try (Deadline deadline = Deadline.start("createLaptop")) {
             if (brand == null || brand.trim().isEmpty() ||
                     model == null || model.trim().isEmpty() ||
                     gigabyte <= 0 || ram <= 0 || performanceType == null) {
@@ -163,7 +182,7 @@ public class DataManager implements PropertyChangeListener, DataModel {
     }
 
     public boolean updateLaptop(Laptop laptop) {
-        try {
+        try (Deadline deadline = Deadline.start("updateLaptop")) {
             boolean success = laptopDAO.update(laptop);
 
             if (success) {
@@ -184,7 +203,7 @@ public class DataManager implements PropertyChangeListener, DataModel {
     // STUDENT METODER
 
     public List<Student> getAllStudents() {
-        try {
+        try (Deadline deadline = Deadline.start("getAllStudents")) {
             return studentDAO.getAll();
         } catch (SQLException e) {
             logger.log(Level.WARNING, "Fejl ved hentning af studerende: " + e.getMessage(), e);
@@ -193,6 +212,16 @@ public class DataManager implements PropertyChangeListener, DataModel {
         }
     }
 
+    public List<Student> getStudentsPage(Student after, int limit) {
+        try (Deadline deadline = Deadline.start("getStudentsPage")) {
+            return studentDAO.page(after, limit, SortOrderEnum.ASC);
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Fejl ved sidevis hentning af studerende: " + e.getMessage(), e);
+            log.addToLog("Fejl ved sidevis hentning af studerende: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
     public int getStudentCount() {
         return studentCache.size();
     }
@@ -204,7 +233,7 @@ public class DataManager implements PropertyChangeListener, DataModel {
             }
         }
 
-        try {
+        try (Deadline deadline = Deadline.start("getStudentByID")) {
             return studentDAO.getById(viaId);
         } catch (SQLException e) {
             logger.log(Level.WARNING, "Fejl ved søgning efter student med ID " + viaId + ": " + e.getMessage(), e);
@@ -264,7 +293,9 @@ public class DataManager implements PropertyChangeListener, DataModel {
     public Student createStudent(String name, Date degreeEndDate, String degreeTitle,
                                  int viaId, String email, int phoneNumber,
                                  PerformanceTypeEnum performanceNeeded) {
-        try {
+        // Student, reservation eller køplads gemmes i én transaktion på én forbindelse
+        try (Deadline deadline = Deadline.start("createStudent");
+             UnitOfWork unitOfWork = UnitOfWork.begin()) {
             if (name == null || name.trim().isEmpty() ||
                     degreeEndDate == null ||
                     degreeTitle == null || degreeTitle.trim().isEmpty() ||
@@ -285,16 +316,22 @@ public class DataManager implements PropertyChangeListener, DataModel {
             boolean success = studentDAO.insert(student);
 
             if (success) {
-                studentCache.add(student);
+                UnitOfWork.afterCommit(() -> {
+                    studentCache.add(student);
 
-                log.addToLog("Student oprettet: " + student.getName() + " (VIA ID: " + student.getViaId() + ")");
-                firePropertyChange("studentCreated", null, student);
+                    log.addToLog("Student oprettet: " + student.getName() + " (VIA ID: " + student.getViaId() + ")");
+                    firePropertyChange("studentCreated", null, student);
+                });
 
                 Laptop availableLaptop = findAvailableLaptop(student.getPerformanceNeeded());
 
-                if (availableLaptop != null) {
-                    reservationManager.createReservation(availableLaptop, student);
-                } else {
+                // null hvis laptoppen er udlånt af en anden i mellemtiden og reservationen afvises -
+                // så kommer studenten i kø i stedet
+                Reservation reservation = availableLaptop != null
+                        ? reservationManager.createReservation(availableLaptop, student)
+                        : null;
+
+                if (reservation == null) {
                     if (PerformanceTypeEnum.LOW.equals(student.getPerformanceNeeded())) {
                         reservationManager.addToLowPerformanceQueue(student);
                     } else if (PerformanceTypeEnum.HIGH.equals(student.getPerformanceNeeded())) {
@@ -302,6 +339,7 @@ public class DataManager implements PropertyChangeListener, DataModel {
                     }
                 }
 
+                unitOfWork.commit();
                 return student;
             } else {
                 log.addToLog("Fejl: Kunne ikke gemme student i database");
@@ -315,7 +353,7 @@ public class DataManager implements PropertyChangeListener, DataModel {
     }
 
     public boolean updateStudent(Student student) {
-        try {
+        try (Deadline deadline = Deadline.start("updateStudent")) {
             boolean success = studentDAO.update(student);
 
             if (success) {
@@ -340,11 +378,15 @@ public class DataManager implements PropertyChangeListener, DataModel {
     }
 
     public Reservation createReservation(Laptop laptop, Student student) {
-        return reservationManager.createReservation(laptop, student);
+        try (Deadline deadline = Deadline.start("createReservation")) {
+            return reservationManager.createReservation(laptop, student);
+        }
     }
 
     public boolean updateReservationStatus(UUID reservationId, ReservationStatusEnum newStatus) {
-        return reservationManager.updateReservationStatus(reservationId, newStatus);
+        try (Deadline deadline = Deadline.start("updateReservationStatus")) {
+            return reservationManager.updateReservationStatus(reservationId, newStatus);
+        }
     }
 
     public int getAmountOfActiveReservations() {
@@ -355,31 +397,54 @@ public class DataManager implements PropertyChangeListener, DataModel {
         return reservationManager.getAllActiveReservations();
     }
 
+    public List<Reservation> getReservationsPage(Reservation after, int limit) {
+        try (Deadline deadline = Deadline.start("getReservationsPage")) {
+            // Nyeste reservationer først
+            return reservationDAO.page(after, limit, SortOrderEnum.DESC);
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Fejl ved sidevis hentning af reservationer: " + e.getMessage(), e);
+            log.addToLog("Fejl ved sidevis hentning af reservationer: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
 
     //QUEUE metoder
 
     public void addToHighPerformanceQueue(Student student) {
-        reservationManager.addToHighPerformanceQueue(student);
+        try (Deadline deadline = Deadline.start("addToHighPerformanceQueue")) {
+            reservationManager.addToHighPerformanceQueue(student);
+        }
     }
 
     public void addToLowPerformanceQueue(Student student) {
-        reservationManager.addToLowPerformanceQueue(student);
+        try (Deadline deadline = Deadline.start("addToLowPerformanceQueue")) {
+            reservationManager.addToLowPerformanceQueue(student);
+        }
     }
 
     public int getHighNeedingQueueSize() {
-        return reservationManager.getHighNeedingQueueSize();
+        try (Deadline deadline = Deadline.start("getHighNeedingQueueSize")) {
+            return reservationManager.getHighNeedingQueueSize();
+        }
     }
 
     public int getLowNeedingQueueSize() {
-        return reservationManager.getLowNeedingQueueSize();
+        try (Deadline deadline = Deadline.start("getLowNeedingQueueSize")) {
+            return reservationManager.getLowNeedingQueueSize();
+        }
     }
 
     public List<Student> getStudentsInHighPerformanceQueue() {
-        return reservationManager.getStudentsInHighPerformanceQueue();
+        try (Deadline deadline = Deadline.start("getStudentsInHighPerformanceQueue")) {
+            return reservationManager.getStudentsInHighPerformanceQueue();
+        }
     }
 
     public List<Student> getStudentsInLowPerformanceQueue() {
-        return reservationManager.getStudentsInLowPerformanceQueue();
+        try (Deadline deadline = Deadline.start("getStudentsInLowPerformanceQueue")) {
+            return reservationManager.getStudentsInLowPerformanceQueue();
+        }
     }
 
     @Override
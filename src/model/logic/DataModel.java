@@ -18,6 +18,8 @@ public interface DataModel extends PropertyChangeNotifier {
 
     List<Laptop> getAllLaptops();
 
+    List<Laptop> getLaptopsPage(Laptop after, int limit);
+
     int getAmountOfAvailableLaptops();
 
     int getAmountOfLoanedLaptops();
@@ -30,6 +32,8 @@ public interface DataModel extends PropertyChangeNotifier {
 
     List<Student> getAllStudents();
 
+    List<Student> getStudentsPage(Student after, int limit);
+
     int getStudentCount();
 
     Student getStudentByID(int viaId);
@@ -62,6 +66,8 @@ public interface DataModel extends PropertyChangeNotifier {
 
     List<Reservation> getAllActiveReservations();
 
+    List<Reservation> getReservationsPage(Reservation after, int limit);
+
     void addToHighPerformanceQueue(Student student);
 
     void addToLowPerformanceQueue(Student student);
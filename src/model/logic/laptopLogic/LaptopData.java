@@ -30,6 +30,8 @@ public class LaptopData implements LaptopDataInterface, PropertyChangeNotifier {
     private final List<Laptop> laptopCache;
     private final LaptopDAO laptopDAO;
     private final PropertyChangeSupport changeSupport;
+    // Samme listener-instans hver gang, så den ikke registreres flere gange på en laptop der genindlæses
+    private final PropertyChangeListener laptopListener = this::handleLaptopPropertyChange;
 
     /**
      * Konstruktør der initialiserer komponenter og cache.
@@ -69,7 +71,7 @@ public class LaptopData implements LaptopDataInterface, PropertyChangeNotifier {
 
             // Registrer som listener til alle laptops
             for (Laptop laptop : laptopCache) {
-                laptop.addPropertyChangeListener(this::handleLaptopPropertyChange);
+                laptop.addPropertyChangeListener(laptopListener);
             }
 
             firePropertyChange("laptopsRefreshed", null, laptopCache.size());
@@ -102,7 +104,7 @@ public class LaptopData implements LaptopDataInterface, PropertyChangeNotifier {
     private void handleLaptopCreated(Laptop laptop) {
         if (!laptopCache.contains(laptop)) {
             laptopCache.add(laptop);
-            laptop.addPropertyChangeListener(this::handleLaptopPropertyChange);
+            laptop.addPropertyChangeListener(laptopListener);
 
             firePropertyChange("laptopAdded", null, laptop);
             firePropertyChange("laptopCount", laptopCache.size() - 1, laptopCache.size());
@@ -4,6 +4,7 @@ import model.database.LaptopDAO;
 import model.database.QueueDAO;
 import model.database.ReservationDAO;
 import model.database.StudentDAO;
+import model.database.UnitOfWork;
 import model.enums.PerformanceTypeEnum;
 import model.enums.ReservationStatusEnum;
 import model.log.Log;
@@ -104,14 +105,17 @@ public class ReservationManager implements PropertyChangeListener, PropertyChang
      * Indlæs køer fra databasen ved opstart
      */
     private void loadQueuesFromDatabase() throws SQLException {
+        // Hent begge køer i ét round trip
+        Map<PerformanceTypeEnum, List<Student>> queues = queueDAO.getStudentsInAllQueues();
+
         // Indlæs lav-ydelses kø
-        List<Student> lowPerformanceStudents = queueDAO.getStudentsInQueue(PerformanceTypeEnum.LOW);
+        List<Student> lowPerformanceStudents = queues.get(PerformanceTypeEnum.LOW);
         for (Student student : lowPerformanceStudents) {
             lowPerformanceQueue.addToQueue(student);
         }
 
         // Indlæs høj-ydelses kø
-        List<Student> highPerformanceStudents = queueDAO.getStudentsInQueue(PerformanceTypeEnum.HIGH);
+        List<Student> highPerformanceStudents = queues.get(PerformanceTypeEnum.HIGH);
         for (Student student : highPerformanceStudents) {
             highPerformanceQueue.addToQueue(student);
         }
@@ -159,15 +163,17 @@ public class ReservationManager implements PropertyChangeListener, PropertyChang
             boolean success = reservationDAO.createReservationWithTransaction(reservation);
 
             if (success) {
-                // Opdater in-memory liste
-                activeReservations.add(reservation);
+                // Hukommelsen opdateres først når en evt. omgivende unit of work er committet
+                UnitOfWork.afterCommit(() -> {
+                    activeReservations.add(reservation);
 
-                // Tilføj lytter til den nye reservation
-                reservation.addPropertyChangeListener(this);
+                    // Tilføj lytter til den nye reservation
+                    reservation.addPropertyChangeListener(this);
 
-                // Notificér om den nye reservation
-                firePropertyChange("reservationCreated", null, reservation);
-                firePropertyChange("activeReservationsCount", activeReservations.size() - 1, activeReservations.size());
+                    // Notificér om den nye reservation
+                    firePropertyChange("reservationCreated", null, reservation);
+                    firePropertyChange("activeReservationsCount", activeReservations.size() - 1, activeReservations.size());
+                });
 
                 return reservation;
             } else {
@@ -212,21 +218,23 @@ public class ReservationManager implements PropertyChangeListener, PropertyChang
             boolean success = reservationDAO.updateStatusWithTransaction(reservation);
 
             if (success) {
-                // Fjern fra in-memory listen hvis cancelled/completed
-                if (newStatus == ReservationStatusEnum.CANCELLED ||
-                        newStatus == ReservationStatusEnum.COMPLETED) {
-
-                    int oldSize = activeReservations.size();
-                    activeReservations.removeIf(r -> r.getReservationId().equals(reservationId));
-
-                    // Notificér om ændringen i aktive reservationer
-                    if (oldSize != activeReservations.size()) {
-                        firePropertyChange("activeReservationsCount", oldSize, activeReservations.size());
+                UnitOfWork.afterCommit(() -> {
+                    // Fjern fra in-memory listen hvis cancelled/completed
+                    if (newStatus == ReservationStatusEnum.CANCELLED ||
+                            newStatus == ReservationStatusEnum.COMPLETED) {
+
+                        int oldSize = activeReservations.size();
+                        activeReservations.removeIf(r -> r.getReservationId().equals(reservationId));
+
+                        // Notificér om ændringen i aktive reservationer
+                        if (oldSize != activeReservations.size()) {
+                            firePropertyChange("activeReservationsCount", oldSize, activeReservations.size());
+                        }
                     }
-                }
 
-                log.addToLog("Reservation " + reservationId + " opdateret til status: " + newStatus);
-                firePropertyChange("reservationStatusUpdated", oldStatus, newStatus);
+                    log.addToLog("Reservation " + reservationId + " opdateret til status: " + newStatus);
+                    firePropertyChange("reservationStatusUpdated", oldStatus, newStatus);
+                });
                 return true;
             } else {
                 logger.warning("Kunne ikke opdatere reservation i database");
@@ -299,12 +307,14 @@ public class ReservationManager implements PropertyChangeListener, PropertyChang
             boolean added = queueDAO.addToQueue(student, PerformanceTypeEnum.HIGH);
 
             if (added) {
-                // Tilføj til in-memory kø
-                highPerformanceQueue.addToQueue(student);
-                log.addToLog("Student " + student.getName() + " tilføjet til høj-ydelses kø");
-
-                // Notificér om ændringen i køen
-                firePropertyChange("highQueueSize", highPerformanceQueue.getQueueSize() - 1, highPerformanceQueue.getQueueSize());
+                UnitOfWork.afterCommit(() -> {
+                    // Tilføj til in-memory kø
+                    highPerformanceQueue.addToQueue(student);
+                    log.addToLog("Student " + student.getName() + " tilføjet til høj-ydelses kø");
+
+                    // Notificér om ændringen i køen
+                    firePropertyChange("highQueueSize", highPerformanceQueue.getQueueSize() - 1, highPerformanceQueue.getQueueSize());
+                });
             } else {
                 logger.warning("Kunne ikke tilføje student til kø i databasen");
                 log.addToLog("Fejl: Kunne ikke tilføje student til kø i databasen");
@@ -357,12 +367,14 @@ public class ReservationManager implements PropertyChangeListener, PropertyChang
             boolean added = queueDAO.addToQueue(student, PerformanceTypeEnum.LOW);
 
             if (added) {
-                // Tilføj til in-memory kø
-                lowPerformanceQueue.addToQueue(student);
-                log.addToLog("Student " + student.getName() + " tilføjet til lav-ydelses kø");
-
-                // Notificér om ændringen i køen
-                firePropertyChange("lowQueueSize", lowPerformanceQueue.getQueueSize() - 1, lowPerformanceQueue.getQueueSize());
+                UnitOfWork.afterCommit(() -> {
+                    // Tilføj til in-memory kø
+                    lowPerformanceQueue.addToQueue(student);
+                    log.addToLog("Student " + student.getName() + " tilføjet til lav-ydelses kø");
+
+                    // Notificér om ændringen i køen
+                    firePropertyChange("lowQueueSize", lowPerformanceQueue.getQueueSize() - 1, lowPerformanceQueue.getQueueSize());
+                });
             } else {
                 logger.warning("Kunne ikke tilføje student til kø i databasen");
                 log.addToLog("Fejl: Kunne ikke tilføje student til kø i databasen");
@@ -436,8 +448,9 @@ public class ReservationManager implements PropertyChangeListener, PropertyChang
                 Student nextStudent = queueDAO.getAndRemoveNextInQueue(laptopType);
 
                 if (nextStudent != null) {
-                    // Opdater in-memory kø
-                    queue.getAndRemoveNextInLine();
+                    // Opdater in-memory kø - en anden instans kan have taget hovedet,
+                    // så fjern præcis den student databasen gav os
+                    queue.removeStudentById(nextStudent.getViaId());
 
                     // Opret reservation
                     Reservation reservation = createReservation(laptop, nextStudent);
@@ -530,7 +543,7 @@ public class ReservationManager implements PropertyChangeListener, PropertyChang
      */
     public int getAmountOfReservationsToDate() {
         try {
-            return reservationDAO.getAll().size();
+            return reservationDAO.count();
         } catch (SQLException e) {
             logger.log(Level.WARNING, "Fejl ved hentning af alle reservationer: " + e.getMessage(), e);
             // Returner in-memory størrelse som fallback
@@ -31,6 +31,8 @@ public class StudentData implements StudentDataInterface, PropertyChangeNotifier
     private final List<Student> studentCache;
     private final StudentDAO studentDAO;
     private final PropertyChangeSupport changeSupport;
+    // Samme listener-instans hver gang, så den ikke registreres flere gange på en student der genindlæses
+    private final PropertyChangeListener studentListener = this::handleStudentPropertyChange;
 
     /**
      * Konstruktør der initialiserer komponenter og cache.
@@ -69,7 +71,7 @@ public class StudentData implements StudentDataInterface, PropertyChangeNotifier
 
             // Registrer som listener til alle studerende
             for (Student student : studentCache) {
-                student.addPropertyChangeListener(this::handleStudentPropertyChange);
+                student.addPropertyChangeListener(studentListener);
             }
 
             firePropertyChange("studentsRefreshed", null, studentCache.size());
@@ -101,7 +103,7 @@ public class StudentData implements StudentDataInterface, PropertyChangeNotifier
     private void handleStudentCreated(Student student) {
         if (!studentCache.contains(student)) {
             studentCache.add(student);
-            student.addPropertyChangeListener(this::handleStudentPropertyChange);
+            student.addPropertyChangeListener(studentListener);
 
             firePropertyChange("studentAdded", null, student);
             firePropertyChange("studentCount", studentCache.size() - 1, studentCache.size());
@@ -46,13 +46,30 @@ public class Laptop implements PropertyChangeNotifier {
      * @param performanceType  Performance category (HIGH/LOW)
      */
     public Laptop(UUID id, String brand, String model, int gigabyte, int ram, PerformanceTypeEnum performanceType) {
+        this(id, brand, model, gigabyte, ram, performanceType, new AvailableState());
+    }
+
+    /**
+     * Constructor for creating a laptop with a specific UUID and state (used when loading from database).
+     * The state is assigned directly, so no property change events are fired during hydration.
+     *
+     * @param id               Unique ID (UUID)
+     * @param brand            Laptop brand
+     * @param model            Laptop model
+     * @param gigabyte         Hard disk capacity in GB
+     * @param ram              RAM in GB
+     * @param performanceType  Performance category (HIGH/LOW)
+     * @param state            Current state (Available/Loaned)
+     */
+    public Laptop(UUID id, String brand, String model, int gigabyte, int ram, PerformanceTypeEnum performanceType,
+                  LaptopState state) {
         this.id = id;
         this.brand = brand;
         this.model = model;
         this.gigabyte = gigabyte;
         this.ram = ram;
         this.performanceType = performanceType;
-        this.state = new AvailableState();
+        this.state = state;
         this.changeSupport = new PropertyChangeSupport(this);
     }
 
@@ -165,6 +182,22 @@ public class Laptop implements PropertyChangeNotifier {
         }
     }
 
+    /**
+     * Copies the values of a laptop just loaded from the database into this instance
+     * (used when loading from database). The values are assigned directly, so no property
+     * change events are fired during hydration.
+     *
+     * @param loaded Laptop built from the database row
+     */
+    public void refreshFromDatabase(Laptop loaded) {
+        this.brand = loaded.brand;
+        this.model = loaded.model;
+        this.gigabyte = loaded.gigabyte;
+        this.ram = loaded.ram;
+        this.performanceType = loaded.performanceType;
+        this.state = loaded.state;
+    }
+
     /**
      * Sets the laptop state based on the class name from the database
      * @param stateName name of the state class (e.g. "AvailableState" or "LoanedState")
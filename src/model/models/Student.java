@@ -36,13 +36,31 @@ public class Student implements PropertyChangeNotifier {
      */
     public Student(String name, Date degreeEndDate, String degreeTitle, int viaId,
                    String email, int phoneNumber, PerformanceTypeEnum performanceNeeded) {
+        this(name, degreeEndDate, degreeTitle, viaId, email, phoneNumber, performanceNeeded, false);
+    }
+
+    /**
+     * Creates a student with a known hasLaptop value (used when loading from database).
+     * The value is assigned directly, so no property change events are fired during hydration.
+     *
+     * @param name              Student's name
+     * @param degreeEndDate     End date for education
+     * @param degreeTitle       Education title
+     * @param viaId             Unique VIA ID
+     * @param email             Email address
+     * @param phoneNumber       Phone number
+     * @param performanceNeeded Laptop performance needs (HIGH/LOW)
+     * @param hasLaptop         Whether the student currently has a laptop
+     */
+    public Student(String name, Date degreeEndDate, String degreeTitle, int viaId,
+                   String email, int phoneNumber, PerformanceTypeEnum performanceNeeded, boolean hasLaptop) {
         this.name = name;
         this.degreeEndDate = degreeEndDate;
         this.degreeTitle = degreeTitle;
         this.viaId = viaId;
         this.email = email;
         this.phoneNumber = phoneNumber;
-        this.hasLaptop = false;
+        this.hasLaptop = hasLaptop;
         this.performanceNeeded = performanceNeeded;
         this.changeSupport = new PropertyChangeSupport(this);
     }
@@ -140,6 +158,23 @@ public class Student implements PropertyChangeNotifier {
         firePropertyChange("hasLaptop", oldValue, hasLaptop);
     }
 
+    /**
+     * Copies the values of a student just loaded from the database into this instance
+     * (used when loading from database). The values are assigned directly, so no property
+     * change events are fired during hydration.
+     *
+     * @param loaded Student built from the database row
+     */
+    public void refreshFromDatabase(Student loaded) {
+        this.name = loaded.name;
+        this.degreeEndDate = loaded.degreeEndDate;
+        this.degreeTitle = loaded.degreeTitle;
+        this.email = loaded.email;
+        this.phoneNumber = loaded.phoneNumber;
+        this.performanceNeeded = loaded.performanceNeeded;
+        this.hasLaptop = loaded.hasLaptop;
+    }
+
     // PropertyChangeNotifier implementation
 
     @Override